@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.wire.WireOut;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes the excerpts of a batch, see {@link ExcerptAppender#writeBatch(int, BatchWriter)}
+ */
+@FunctionalInterface
+public interface BatchWriter {
+    /**
+     * @param i    the position of this excerpt in the batch, starting at 0
+     * @param wire to write the excerpt to, the header has already been reserved.
+     */
+    void writeExcerpt(int i, @NotNull WireOut wire);
+}
@@ -19,6 +19,7 @@ import net.openhft.chronicle.core.io.Closeable;
 import net.openhft.chronicle.core.util.ObjectUtils;
 import net.openhft.chronicle.wire.BinaryMethodWriterInvocationHandler;
 import net.openhft.chronicle.wire.MethodWriterBuilder;
+import net.openhft.chronicle.wire.WireIn;
 import net.openhft.chronicle.wire.WireType;
 import org.jetbrains.annotations.NotNull;
 
@@ -28,6 +29,8 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.reflect.Proxy;
 import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * <em>Chronicle</em> (in a generic sense) is a Java project focused on building a persisted low
@@ -71,6 +74,20 @@ public interface ChronicleQueue extends Closeable {
     @NotNull
     ExcerptTailer createTailer();
 
+    /**
+     * Create a tailer whose index is persisted under a name, so a tailer created later with the
+     * same name, in this or another process, carries on from the next excerpt to be read. Only
+     * one tailer with a given name should be in use at a time. Names are matched ignoring case, so
+     * "Reader" and "reader" share an index.
+     *
+     * @param id the name of the tailer
+     * @return a new ExcerptTailer at the persisted index, or at the start if there isn't one.
+     */
+    @NotNull
+    default ExcerptTailer createTailer(@NotNull String id) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * An Appender can be used to writeBytes new excerpts sequentially to the upper.
      *
@@ -133,6 +150,22 @@ public interface ChronicleQueue extends Closeable {
 
     int sourceId();
 
+    /**
+     * Stream the data excerpts in a range of indices. The stream can be made parallel, in which case
+     * the range is split between cycles, and then within a cycle, each part being read with its own
+     * tailer. The tailers of a stream which isn't read to the end are released when it is closed.
+     *
+     * @param fromIndex first index to include
+     * @param toIndex   last index to include
+     * @param decoder   to turn an excerpt into an element of the stream, the wire is only valid
+     *                  until it returns
+     * @return the stream of decoded excerpts, in index order unless unordered() is used.
+     */
+    @NotNull
+    default <T> Stream<T> stream(long fromIndex, long toIndex, @NotNull Function<? super WireIn, ? extends T> decoder) {
+        throw new UnsupportedOperationException();
+    }
+
 
     default <T> T methodWriter(@NotNull Class<T> tClass, Class... additional) {
         Class[] interfaces = ObjectUtils.addAll(tClass, additional);
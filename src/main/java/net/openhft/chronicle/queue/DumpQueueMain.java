@@ -19,17 +19,22 @@ package net.openhft.chronicle.queue;
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.MappedBytes;
 import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.queue.impl.single.CycleScanner;
 import net.openhft.chronicle.queue.impl.single.DirectoryListing;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.table.SingleTableBuilder;
 import net.openhft.chronicle.wire.WireDumper;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.Arrays;
 
 import static java.lang.System.err;
@@ -39,6 +44,8 @@ import static java.lang.System.err;
  */
 public class DumpQueueMain {
     private static final String FILE = System.getProperty("file");
+    // dump the cycle files concurrently, each to a temporary file first, unless -Ddump.parallel=false
+    private static final boolean PARALLEL = !"false".equalsIgnoreCase(System.getProperty("dump.parallel"));
     private static final int LENGTH = ", 0".length();
 
     public static void main(String[] args) throws FileNotFoundException {
@@ -66,14 +73,42 @@ public class DumpQueueMain {
             }
 
             Arrays.sort(files);
-            for (File file : files)
-                dumpFile(file, out, upperLimit);
+            if (!PARALLEL) {
+                for (File file : files)
+                    dumpFile(file, out, upperLimit);
+                return;
+            }
+            // dump the cycles concurrently, each to a file of its own, and copy them out in order.
+            new CycleScanner().scan(Arrays.asList(files), file -> dumpToTempFile(file, upperLimit), tmp -> {
+                try {
+                    out.flush();
+                    Files.copy(tmp.toPath(), out);
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                } finally {
+                    tmp.delete();
+                }
+            });
 
         } else {
             dumpFile(path, out, upperLimit);
         }
     }
 
+    @NotNull
+    private static File dumpToTempFile(@NotNull File file, long upperLimit) {
+        try {
+            File tmp = File.createTempFile(file.getName(), ".dump");
+            tmp.deleteOnExit();
+            try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                dumpFile(file, out, upperLimit);
+            }
+            return tmp;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
     private static void dumpFile(@NotNull File file, @NotNull PrintStream out, long upperLimit) {
         if (file.getName().endsWith(SingleChronicleQueue.SUFFIX)) {
             Bytes<ByteBuffer> buffer = Bytes.elasticByteBuffer();
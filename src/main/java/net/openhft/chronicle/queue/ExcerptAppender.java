@@ -41,6 +41,40 @@ public interface ExcerptAppender extends ExcerptCommon<ExcerptAppender>, Marshal
         writeBytes((BytesStore) bytes);
     }
 
+    /**
+     * Write {@code count} excerpts as one batch. The space for the batch is reserved with a single
+     * header, the excerpts are published together when the last one has been written and indexed
+     * in one pass.
+     * <p>
+     * As other appenders wait for the batch to be published, the batch should be written without
+     * blocking.
+     *
+     * @param count       the number of excerpts to write
+     * @param batchWriter called once for each excerpt in the batch
+     */
+    default void writeBatch(int count, @NotNull BatchWriter batchWriter) throws UnrecoverableTimeoutException {
+        for (int i = 0; i < count; i++) {
+            try (DocumentContext dc = writingDocument()) {
+                batchWriter.writeExcerpt(i, dc.wire());
+            }
+        }
+    }
+
+    /**
+     * Reserve space for an excerpt of up to {@code maxLength} bytes directly in the queue file.
+     * The excerpt is written when the reservation is committed with its actual length.
+     *
+     * @param maxLength the most bytes the excerpt can have
+     * @return the reservation, which must be committed or aborted before this appender is used
+     * again
+     * @throws UnsupportedOperationException if this appender doesn't write to the queue file
+     *                                       directly
+     */
+    @NotNull
+    default Reservation reserve(int maxLength) throws UnrecoverableTimeoutException {
+        throw new UnsupportedOperationException("reserve() is not supported by " + getClass().getSimpleName());
+    }
+
     /**
      * Write an entry at a given index. This can use used for rebuilding a queue, or replication.
      *
@@ -22,6 +22,8 @@ import net.openhft.chronicle.wire.ReadMarshallable;
 import net.openhft.chronicle.wire.SourceContext;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * The component that facilitates sequentially reading data from a {@link ChronicleQueue}.
  *
@@ -46,6 +48,46 @@ public interface ExcerptTailer extends ExcerptCommon<ExcerptTailer>, Marshallabl
     @NotNull
     DocumentContext readingDocument(boolean includeMetaData);
 
+    /**
+     * Read up to {@code maxMessages} data excerpts, stopping early when there are no more excerpts
+     * available. Excerpts within a cycle are read without the bookkeeping of {@link
+     * #readingDocument()} for each one.
+     *
+     * @param maxMessages the most excerpts to read
+     * @param batchReader called once for each excerpt read
+     * @return the number of excerpts read
+     */
+    default int readBatch(int maxMessages, @NotNull BatchReader batchReader) {
+        int count = 0;
+        while (count < maxMessages) {
+            try (DocumentContext dc = readingDocument()) {
+                if (!dc.isPresent())
+                    break;
+                batchReader.readExcerpt(dc.index(), dc.wire());
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Wait for an excerpt to be available to read, spinning briefly, then yielding, then parking.
+     * A tailer parked waiting is woken as soon as an appender in the same process writes, and
+     * checks for excerpts written by other processes at least every millisecond.
+     * <p>
+     * This doesn't read the excerpt, and may return true for an excerpt which turns out to be
+     * meta data, so {@link #readingDocument()} should be called after it whatever it returns.
+     *
+     * @param timeout the longest to wait
+     * @param unit    of the timeout
+     * @return true if there is an excerpt to read, false if the timeout passed or the thread was
+     * interrupted
+     * @throws UnsupportedOperationException if this tailer can't wait for excerpts
+     */
+    default boolean awaitNext(long timeout, @NotNull TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * @return the index just read, this include the cycle and the sequence number from with this
      * cycle
@@ -68,6 +110,19 @@ public interface ExcerptTailer extends ExcerptCommon<ExcerptTailer>, Marshallabl
      */
     boolean moveToIndex(long index);
 
+    /**
+     * Moves to the first excerpt which may have been written at or after a wall clock time, using
+     * the time index the appenders write if the queue has a time index spacing. Reading forward
+     * from here can return up to one spacing of excerpts written before the time.
+     *
+     * @param epochNanos the time in nanoseconds since the epoch
+     * @return true if there is such an excerpt, false if this moved to the end
+     * @throws UnsupportedOperationException if this tailer can't look up excerpts by time
+     */
+    default boolean moveToTime(long epochNanos) {
+        throw new UnsupportedOperationException("moveToTime is not supported by " + getClass().getSimpleName());
+    }
+
     /**
      * Replay from the first entry in the first cycle.
      *
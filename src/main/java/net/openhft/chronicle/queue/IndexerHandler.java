@@ -0,0 +1,26 @@
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.queue.impl.single.Indexer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import org.jetbrains.annotations.NotNull;
+
+public final class IndexerHandler implements EventHandler {
+    private final Indexer indexer;
+
+    public IndexerHandler(final SingleChronicleQueue queue) {
+        this.indexer = new Indexer(queue);
+    }
+
+    @Override
+    public boolean action() {
+        return indexer.execute();
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.MONITOR;
+    }
+}
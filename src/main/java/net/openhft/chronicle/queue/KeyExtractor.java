@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.wire.WireIn;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Extracts the key excerpts are indexed by, see
+ * {@link net.openhft.chronicle.queue.impl.AbstractChronicleQueueBuilder#keyExtractor(KeyExtractor)}
+ * <p>
+ * Keys are longs. To index by another type of key, return a hash of it and check the key of the
+ * excerpts a lookup returns.
+ */
+@FunctionalInterface
+public interface KeyExtractor {
+    /**
+     * Returned for an excerpt which shouldn't be indexed.
+     */
+    long NO_KEY = Long.MIN_VALUE;
+
+    /**
+     * @param wire to read the excerpt from, only valid until this method returns.
+     * @return the key of the excerpt, or {@link #NO_KEY}
+     */
+    long key(@NotNull WireIn wire);
+}
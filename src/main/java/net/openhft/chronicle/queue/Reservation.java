@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.wire.UnrecoverableTimeoutException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Space reserved for an excerpt directly in the queue file, see {@link
+ * ExcerptAppender#reserve(int)}. The excerpt is written straight into the {@link #bytes()}, or
+ * read into them from a channel with {@link #read(ReadableByteChannel)}, so it is not copied again
+ * before it is published.
+ * <p>
+ * Other appenders and tailers wait until the reservation is committed or aborted, so it should be
+ * completed without blocking.
+ */
+public interface Reservation extends AutoCloseable {
+
+    /**
+     * @return the bytes of the queue file, with the write position at the start of the reserved
+     * space and the write limit at its end. They must not be used after the reservation is
+     * committed or aborted.
+     */
+    @NotNull
+    Bytes<?> bytes();
+
+    /**
+     * Read from a channel straight into the reserved space, after the bytes written so far.
+     *
+     * @param channel to read from
+     * @return the number of bytes read, possibly zero, or -1 if the channel has reached the end of
+     * the stream
+     */
+    int read(@NotNull ReadableByteChannel channel) throws IOException;
+
+    /**
+     * @return the number of bytes reserved.
+     */
+    int maxLength();
+
+    /**
+     * Publish the bytes written to the reserved space as an excerpt. If nothing has been written
+     * the reservation is aborted.
+     */
+    void commit() throws UnrecoverableTimeoutException;
+
+    /**
+     * Release the reserved space without writing an excerpt.
+     */
+    void abort();
+
+    /**
+     * @return true if the reservation has not been committed or aborted.
+     */
+    boolean isOpen();
+
+    /**
+     * Aborts the reservation if it is still open.
+     */
+    @Override
+    default void close() {
+        if (isOpen())
+            abort();
+    }
+}
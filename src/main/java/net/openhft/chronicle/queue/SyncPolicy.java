@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When the queue files are forced to disk. The sync is done by a background thread shared by all
+ * the appenders of a queue, so many messages are made durable by one sync.
+ */
+public final class SyncPolicy {
+    /**
+     * Leave writing to disk to the operating system, the default.
+     */
+    public static final SyncPolicy NONE = new SyncPolicy(Type.NONE, 0);
+    /**
+     * Sync as soon as a message is written, and wait for it to be durable before returning from
+     * the write. Concurrent writers share a sync.
+     */
+    public static final SyncPolicy PER_MESSAGE = new SyncPolicy(Type.PER_MESSAGE, 0);
+
+    @NotNull
+    private final Type type;
+    private final long value;
+
+    private SyncPolicy(@NotNull Type type, long value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    /**
+     * @param messages the number of messages written between syncs
+     */
+    @NotNull
+    public static SyncPolicy everyMessages(int messages) {
+        if (messages <= 0)
+            throw new IllegalArgumentException("messages must be positive, was " + messages);
+        return new SyncPolicy(Type.MESSAGES, messages);
+    }
+
+    /**
+     * @param micros the most time in microseconds before a message written is synced
+     */
+    @NotNull
+    public static SyncPolicy everyMicros(long micros) {
+        if (micros <= 0)
+            throw new IllegalArgumentException("micros must be positive, was " + micros);
+        return new SyncPolicy(Type.MICROS, micros);
+    }
+
+    public boolean isNone() {
+        return type == Type.NONE;
+    }
+
+    public boolean isPerMessage() {
+        return type == Type.PER_MESSAGE;
+    }
+
+    /**
+     * @return the number of messages between syncs, or 0 if not synced by count
+     */
+    public int messages() {
+        return type == Type.MESSAGES ? (int) value : 0;
+    }
+
+    /**
+     * @return the time between syncs in nanoseconds, or 0 if not synced by time
+     */
+    public long intervalNanos() {
+        return type == Type.MICROS ? TimeUnit.MICROSECONDS.toNanos(value) : 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SyncPolicy)) return false;
+        SyncPolicy that = (SyncPolicy) o;
+        return type == that.type && value == that.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return type.hashCode() * 31 + Long.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case MESSAGES:
+                return "SyncPolicy{every " + value + " messages}";
+            case MICROS:
+                return "SyncPolicy{every " + value + " us}";
+            default:
+                return "SyncPolicy{" + type + "}";
+        }
+    }
+
+    private enum Type {
+        NONE, MESSAGES, MICROS, PER_MESSAGE
+    }
+}
@@ -77,6 +77,18 @@ public abstract class AbstractChronicleQueueBuilder<B extends ChronicleQueueBuil
     private TimeProvider timeProvider = SystemTimeProvider.INSTANCE;
     private Supplier<Pauser> pauserSupplier = () -> new TimeoutPauser(500_000);
     private long timeoutMS = 10_000; // 10 seconds.
+    @NotNull
+    private SyncPolicy syncPolicy = SyncPolicy.NONE;
+    private long preCreateCycleMS = 0;
+    private int positionCacheSize = 0;
+    private boolean sharedPositionCache = false;
+    private boolean adaptiveIndexing = false;
+    private int timeIndexSpacing = 0;
+    @Nullable
+    private KeyExtractor keyExtractor = null;
+    private int keyIndexCapacity = 1 << 20;
+    private boolean sealCycles = false;
+    private int spareCycleFiles = 0;
     private WireStoreFactory storeFactory;
     private int sourceId = 0;
     private StoreRecoveryFactory recoverySupplier = TimedStoreRecovery.FACTORY;
@@ -247,7 +259,7 @@ public abstract class AbstractChronicleQueueBuilder<B extends ChronicleQueueBuil
     }
 
     /**
-     * @return BufferMode to use for writes. Only None is available is the OSS
+     * @return BufferMode to use for writes
      */
     @NotNull
     public BufferMode writeBufferMode() {
@@ -333,6 +345,156 @@ public abstract class AbstractChronicleQueueBuilder<B extends ChronicleQueueBuil
         return timeoutMS;
     }
 
+    /**
+     * @param syncPolicy when the queue files are forced to disk
+     * @return this builder
+     */
+    public B syncPolicy(@NotNull SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+        return (B) this;
+    }
+
+    @NotNull
+    public SyncPolicy syncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * @param preCreateCycleMS how long before the end of a cycle the file for the next cycle is
+     *                         created and its pages loaded by a background thread, or 0 to create
+     *                         it when the first message of the cycle is written
+     * @return this builder
+     */
+    public B preCreateCycleMS(long preCreateCycleMS) {
+        this.preCreateCycleMS = preCreateCycleMS;
+        return (B) this;
+    }
+
+    public long preCreateCycleMS() {
+        return preCreateCycleMS;
+    }
+
+    /**
+     * @param positionCacheSize the number of excerpt positions each tailer caches by index to speed
+     *                          up repeated and nearby seeks, or 0 for no cache
+     * @return this builder
+     */
+    public B positionCacheSize(int positionCacheSize) {
+        this.positionCacheSize = positionCacheSize;
+        return (B) this;
+    }
+
+    public int positionCacheSize() {
+        return positionCacheSize;
+    }
+
+    /**
+     * @param sharedPositionCache if true, the tailers of the queue share one position cache
+     *                            rather than having one each
+     * @return this builder
+     */
+    public B sharedPositionCache(boolean sharedPositionCache) {
+        this.sharedPositionCache = sharedPositionCache;
+        return (B) this;
+    }
+
+    public boolean sharedPositionCache() {
+        return sharedPositionCache;
+    }
+
+    /**
+     * @param adaptiveIndexing if true, new cycles of a roll cycle with large index arrays use a
+     *                         three level index of small arrays, so the index grows with the number
+     *                         of excerpts in the cycle. Older versions can't read these cycles.
+     * @return this builder
+     */
+    public B adaptiveIndexing(boolean adaptiveIndexing) {
+        this.adaptiveIndexing = adaptiveIndexing;
+        return (B) this;
+    }
+
+    public boolean adaptiveIndexing() {
+        return adaptiveIndexing;
+    }
+
+    /**
+     * @param timeIndexSpacing the number of excerpts between entries of the time index the
+     *                         appenders write next to each cycle, rounded up to a power of 2, or 0
+     *                         for no time index. See {@link net.openhft.chronicle.queue.ExcerptTailer#moveToTime(long)}
+     * @return this builder
+     */
+    public B timeIndexSpacing(int timeIndexSpacing) {
+        this.timeIndexSpacing = timeIndexSpacing <= 0 ? 0 : Maths.nextPower2(timeIndexSpacing, 1);
+        return (B) this;
+    }
+
+    public int timeIndexSpacing() {
+        return timeIndexSpacing;
+    }
+
+    /**
+     * @param keyExtractor the key the appenders index each excerpt by, in a file next to each
+     *                     cycle, so the excerpts of a key can be found with
+     *                     {@link net.openhft.chronicle.queue.impl.single.SingleChronicleQueue#lookup(long)},
+     *                     or null for no key index
+     * @return this builder
+     */
+    public B keyExtractor(@Nullable KeyExtractor keyExtractor) {
+        this.keyExtractor = keyExtractor;
+        return (B) this;
+    }
+
+    @Nullable
+    public KeyExtractor keyExtractor() {
+        return keyExtractor;
+    }
+
+    /**
+     * @param keyIndexCapacity the number of entries in the key index of a new cycle, rounded up
+     *                         to a power of 2. Only three quarters of them are used, a cycle with
+     *                         more excerpts is scanned by a lookup until its index is rebuilt.
+     * @return this builder
+     */
+    public B keyIndexCapacity(int keyIndexCapacity) {
+        this.keyIndexCapacity = Maths.nextPower2(keyIndexCapacity, 1 << 10);
+        return (B) this;
+    }
+
+    public int keyIndexCapacity() {
+        return keyIndexCapacity;
+    }
+
+    /**
+     * @param sealCycles if true, when a cycle is rolled its number of excerpts and length are
+     *                   recorded in its header, so the excerpts of a rolled cycle can be counted
+     *                   without reading its index. A RetentionManager can truncate the file after
+     *                   its EOF later
+     * @return this builder
+     */
+    public B sealCycles(boolean sealCycles) {
+        this.sealCycles = sealCycles;
+        return (B) this;
+    }
+
+    public boolean sealCycles() {
+        return sealCycles;
+    }
+
+    /**
+     * @param spareCycleFiles the number of allocated and zeroed files a background thread keeps in
+     *                        the queue directory to be renamed into place for new cycles, or 0 to
+     *                        create each cycle file
+     * @return this builder
+     */
+    public B spareCycleFiles(int spareCycleFiles) {
+        this.spareCycleFiles = Math.max(0, spareCycleFiles);
+        return (B) this;
+    }
+
+    public int spareCycleFiles() {
+        return spareCycleFiles;
+    }
+
     public void storeFactory(WireStoreFactory storeFactory) {
         this.storeFactory = storeFactory;
     }
@@ -103,6 +103,22 @@ public interface RollingChronicleQueue extends ChronicleQueue {
      */
     int indexSpacing();
 
+    /**
+     * @return the number of levels of the index of a new cycle, 2 or 3. A three level index uses
+     * much smaller arrays, created as the cycle grows.
+     */
+    default int indexLevels() {
+        return 2;
+    }
+
+    /**
+     * @return true if new cycles record their length and number of excerpts when they are rolled,
+     * so they can be truncated to it later.
+     */
+    default boolean sealCycles() {
+        return false;
+    }
+
     @NotNull
     RollCycle rollCycle();
 
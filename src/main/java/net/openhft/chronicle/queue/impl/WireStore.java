@@ -34,6 +34,14 @@ public interface WireStore extends CommonStore {
     @NotNull
     WireStore writePosition(long position);
 
+    /**
+     * @param position       the start of the last written excerpt to this cycle/store
+     * @param sequenceNumber the sequence number of that excerpt
+     * @return this store
+     */
+    @NotNull
+    WireStore writePosition(long position, long sequenceNumber);
+
     /**
      * @return an epoch offset as the number of number of milliseconds since January 1, 1970,
      * 00:00:00 GMT, if you set the epoch to the current time, then the cycle will be ZERO
@@ -60,6 +68,12 @@ public interface WireStore extends CommonStore {
 
     long lastSequenceNumber(ExcerptContext ec) throws StreamCorruptedException;
 
+    /**
+     * @param position the start of an excerpt, expected to be the {@link #writePosition()}
+     * @return the sequence number of the excerpt if it is the last one written, otherwise -1
+     */
+    long sequenceForWritePosition(long position);
+
     void lastAcknowledgedIndexReplicated(long lastAcknowledgedIndexReplicated);
 
     long lastAcknowledgedIndexReplicated();
@@ -133,6 +133,20 @@ public class WireStorePool {
         return supplier.cycles(lowerCycle, upperCycle);
     }
 
+    /**
+     * @return true if the store of a cycle is held by an appender or tailer of this process
+     */
+    public synchronized boolean isAcquired(int cycle) {
+        for (Map.Entry<RollDetails, WeakReference<WireStore>> entry : stores.entrySet()) {
+            if (entry.getKey().cycle() != cycle)
+                continue;
+            final WireStore store = entry.getValue().get();
+            if (store != null && store.refCount() > 0)
+                return true;
+        }
+        return false;
+    }
+
     public boolean isEmpty() {
         return stores.isEmpty();
     }
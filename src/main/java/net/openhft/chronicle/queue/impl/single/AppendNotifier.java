@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wakes the tailers of this process which are parked waiting for an excerpt when an appender of
+ * this process writes one.
+ * <p>
+ * Excerpts written by other processes are seen by the waiting tailers polling the header after the
+ * last excerpt, which is in shared memory, so appenders don't write anything more to the queue
+ * files to notify them.
+ */
+final class AppendNotifier {
+    private final Queue<Thread> waiting = new ConcurrentLinkedQueue<>();
+
+    void register(@NotNull Thread thread) {
+        waiting.add(thread);
+    }
+
+    void unregister(@NotNull Thread thread) {
+        waiting.remove(thread);
+    }
+
+    /**
+     * Called by an appender after publishing an excerpt, or when the queue is closed. This is
+     * cheap when no tailer is waiting.
+     */
+    void notifyWaiting() {
+        if (waiting.isEmpty())
+            return;
+        for (Thread thread : waiting)
+            LockSupport.unpark(thread);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.threads.Pauser;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.UnrecoverableTimeoutException;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * An appender for {@link net.openhft.chronicle.queue.BufferMode#Asynchronous} queues. Messages
+ * are written to a thread local wire and then copied to a ring buffer, from which an {@link
+ * AsyncAppenderHandler} writes them to the queue in a background thread.
+ * <p>
+ * As messages are written to the queue after they are appended, the index of a message is not
+ * known when it is appended.
+ */
+class AsyncAppender implements ExcerptAppender {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncAppender.class);
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final AsyncAppenderHandler handler;
+    @NotNull
+    private final Wire wire;
+    @NotNull
+    private final AsyncAppenderContext context = new AsyncAppenderContext();
+    @NotNull
+    private final Pauser pauser;
+    private Padding padToCacheLines = Padding.SMART;
+
+    AsyncAppender(@NotNull SingleChronicleQueue queue, @NotNull AsyncAppenderHandler handler) {
+        this.queue = queue;
+        this.handler = handler;
+        this.wire = queue.wireType().apply(Bytes.elasticByteBuffer());
+        this.pauser = queue.pauserSupplier.get();
+        queue.addCloseListener(this, AsyncAppender::close);
+    }
+
+    private void close() {
+        wire.bytes().release();
+    }
+
+    @NotNull
+    @Override
+    public DocumentContext writingDocument(boolean metaData) throws UnrecoverableTimeoutException {
+        checkNotClosed();
+        if (!context.isClosed)
+            throw new IllegalStateException("Nested blocks of writingDocument() not supported");
+        wire.clear();
+        context.isClosed = false;
+        context.metaData = metaData;
+        return context;
+    }
+
+    @Override
+    public void writeBytes(@NotNull BytesStore bytes) throws UnrecoverableTimeoutException {
+        checkNotClosed();
+        offer(bytes, bytes.readPosition(), bytes.readRemaining(), false);
+    }
+
+    private void checkNotClosed() {
+        if (queue.isClosed())
+            throw new IllegalStateException("Queue is closed");
+        handler.checkNotClosed();
+    }
+
+    private void offer(@NotNull BytesStore bytes, long offset, long length, boolean metaData) throws UnrecoverableTimeoutException {
+        final AsyncRingBuffer ringBuffer = handler.ringBuffer();
+        if (ringBuffer.offer(bytes, offset, length, metaData))
+            return;
+
+        // the ring buffer is full, wait for the background thread to catch up.
+        final long end = System.currentTimeMillis() + queue.timeoutMS;
+        try {
+            do {
+                checkNotClosed();
+                if (System.currentTimeMillis() > end)
+                    throw new UnrecoverableTimeoutException(new TimeoutException("Ring buffer full for " + queue.timeoutMS + " ms"));
+                pauser.pause();
+            } while (!ringBuffer.offer(bytes, offset, length, metaData));
+        } finally {
+            pauser.reset();
+        }
+    }
+
+    /**
+     * @return the index of the last message written to the queue by the background appender,
+     * which may be behind the last message appended.
+     */
+    @Override
+    public long lastIndexAppended() {
+        return handler.lastIndexAppended();
+    }
+
+    @Override
+    public int cycle() {
+        return handler.cycle();
+    }
+
+    @Override
+    public void padToCacheAlign(Padding padToCacheLines) {
+        this.padToCacheLines = padToCacheLines;
+    }
+
+    @NotNull
+    @Override
+    public Padding padToCacheAlignMode() {
+        return padToCacheLines;
+    }
+
+    /**
+     * @param lazyIndexing whether the background appender shared by all the appenders of this
+     *                     queue indexes lazily.
+     */
+    @NotNull
+    @Override
+    public ExcerptAppender lazyIndexing(boolean lazyIndexing) {
+        handler.lazyIndexing(lazyIndexing);
+        return this;
+    }
+
+    @Override
+    public boolean lazyIndexing() {
+        return handler.lazyIndexing();
+    }
+
+    @Override
+    public int sourceId() {
+        return queue.sourceId;
+    }
+
+    @NotNull
+    @Override
+    public ChronicleQueue queue() {
+        return queue;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncAppender{" +
+                "queue=" + queue +
+                ", handler=" + handler +
+                '}';
+    }
+
+    class AsyncAppenderContext implements DocumentContext {
+        boolean isClosed = true;
+        private boolean metaData = false;
+
+        @Override
+        public int sourceId() {
+            return AsyncAppender.this.sourceId();
+        }
+
+        @Override
+        public boolean isPresent() {
+            return false;
+        }
+
+        @NotNull
+        @Override
+        public Wire wire() {
+            return wire;
+        }
+
+        @Override
+        public boolean isMetaData() {
+            return metaData;
+        }
+
+        @Override
+        public void metaData(boolean metaData) {
+            this.metaData = metaData;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return isClosed;
+        }
+
+        /**
+         * @return Long.MIN_VALUE as the index isn't known until the message is written by the
+         * background appender.
+         */
+        @Override
+        public long index() {
+            return Long.MIN_VALUE;
+        }
+
+        @Override
+        public boolean isNotComplete() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            if (isClosed) {
+                LOG.warn("Already Closed, close was called twice.");
+                return;
+            }
+            isClosed = true;
+            if (Thread.currentThread().isInterrupted()) {
+                LOG.warn("Thread is interrupted. Can't guarantee complete message, so not committing");
+                return;
+            }
+            final Bytes<?> bytes = wire.bytes();
+            offer(bytes, bytes.readPosition(), bytes.readRemaining(), metaData);
+        }
+    }
+}
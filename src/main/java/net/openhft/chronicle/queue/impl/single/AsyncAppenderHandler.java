@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.threads.EventGroup;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreAppender;
+
+/**
+ * Drains the ring buffer shared by the {@link AsyncAppender}s of a queue, writing each message to
+ * the queue with a single {@link StoreAppender} on an event loop.
+ * <p>
+ * If a message can't be written, it can't be retried without blocking every message behind it, so
+ * the handler stops writing. Later writes, and closing the queue, fail with the cause.
+ */
+final class AsyncAppenderHandler implements EventHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncAppenderHandler.class);
+    private static final int MAX_MESSAGES_PER_ACTION = 256;
+    private static final long STATS_INTERVAL_MS = 1000;
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final AsyncRingBuffer ringBuffer;
+    @NotNull
+    private final StoreAppender appender;
+    @NotNull
+    private final EventLoop eventLoop;
+    private final boolean createdEventLoop;
+    private final AsyncRingBuffer.MessageConsumer writer = this::write;
+    private volatile boolean closing = false;
+    private volatile boolean closed = false;
+    private volatile boolean lazyIndexing = false;
+    private volatile long lastIndexAppended = Long.MIN_VALUE;
+    private volatile int cycle = Integer.MIN_VALUE;
+    private volatile Thread drainThread;
+    @Nullable
+    private volatile Throwable failure;
+    private long droppedMessages = 0;
+    private long lastStatsMS;
+
+    AsyncAppenderHandler(@NotNull SingleChronicleQueue queue) {
+        this.queue = queue;
+        this.ringBuffer = new AsyncRingBuffer(queue.bufferCapacity());
+        this.appender = new StoreAppender(queue);
+        this.lastStatsMS = queue.time().currentTimeMillis();
+
+        EventLoop eventLoop = queue.eventLoop();
+        this.createdEventLoop = eventLoop == null;
+        if (createdEventLoop)
+            eventLoop = new EventGroup(true);
+        this.eventLoop = eventLoop;
+        eventLoop.addHandler(this);
+        if (createdEventLoop)
+            eventLoop.start();
+    }
+
+    @NotNull
+    AsyncRingBuffer ringBuffer() {
+        return ringBuffer;
+    }
+
+    /**
+     * @throws IllegalStateException if a message could not be written to the queue, or the queue
+     *                               is closed
+     */
+    void checkNotClosed() {
+        checkNotFailed();
+        if (closing)
+            throw new IllegalStateException("Queue is closed");
+    }
+
+    /**
+     * @throws IllegalStateException if a message could not be written to the queue
+     */
+    void checkNotFailed() {
+        final Throwable failure = this.failure;
+        if (failure != null)
+            throw new IllegalStateException("A message could not be written to the queue, later messages have been dropped", failure);
+    }
+
+    boolean lazyIndexing() {
+        return lazyIndexing;
+    }
+
+    void lazyIndexing(boolean lazyIndexing) {
+        this.lazyIndexing = lazyIndexing;
+    }
+
+    /**
+     * @return the index of the last message written to the queue by this handler
+     * @throws IllegalStateException if no message has been written yet or lazy indexing is used
+     */
+    long lastIndexAppended() {
+        long lastIndexAppended = this.lastIndexAppended;
+        if (lastIndexAppended == Long.MIN_VALUE)
+            throw new IllegalStateException("no messages written");
+        return lastIndexAppended;
+    }
+
+    int cycle() {
+        int cycle = this.cycle;
+        return cycle == Integer.MIN_VALUE ? queue.cycle() : cycle;
+    }
+
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed)
+            throw new InvalidEventHandlerException();
+        drainThread = Thread.currentThread();
+
+        boolean busy = drain() > 0;
+
+        long now = queue.time().currentTimeMillis();
+        if (now - lastStatsMS >= STATS_INTERVAL_MS) {
+            lastStatsMS = now;
+            queue.onRingBufferStats().accept(ringBuffer);
+        }
+        return busy;
+    }
+
+    private int drain() {
+        if (appender.lazyIndexing() != lazyIndexing)
+            appender.lazyIndexing(lazyIndexing);
+        int count = ringBuffer.read(writer, MAX_MESSAGES_PER_ACTION);
+        if (count > 0)
+            cycle = appender.cycle();
+        return count;
+    }
+
+    private void write(BytesStore bytes, long offset, int length, boolean metaData) {
+        if (failure != null) {
+            // the ring buffer is still drained so its memory can be released.
+            droppedMessages++;
+            return;
+        }
+        try {
+            try (DocumentContext dc = appender.writingDocument(metaData)) {
+                dc.wire().bytes().write(bytes, offset, length);
+            }
+            if (!metaData && !appender.lazyIndexing())
+                lastIndexAppended = appender.lastIndexAppended();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            ringBuffer.close();
+            LOG.error("Unable to write a message of " + length + " bytes, no more messages will be written", e);
+        }
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.MEDIUM;
+    }
+
+    /**
+     * Stop accepting messages and wait up to the queue's timeout for those already in the ring
+     * buffer to be written.
+     */
+    void close() {
+        if (closing)
+            return;
+        closing = true;
+        ringBuffer.close();
+
+        if (Thread.currentThread() == drainThread) {
+            while (drain() > 0) {
+                // drain in this thread as the event loop is busy calling us.
+            }
+        } else {
+            long end = System.currentTimeMillis() + queue.timeoutMS;
+            while (!ringBuffer.isEmpty()) {
+                if (System.currentTimeMillis() > end) {
+                    LOG.warn("Timed out waiting for the ring buffer to drain, dropping " + ringBuffer.readRemaining() + " bytes");
+                    break;
+                }
+                Jvm.pause(1);
+            }
+        }
+        closed = true;
+        if (createdEventLoop)
+            eventLoop.close();
+        queue.onRingBufferStats().accept(ringBuffer);
+        if (!ringBuffer.release())
+            LOG.warn("The ring buffer was not released as it still has messages");
+        if (droppedMessages > 0)
+            LOG.warn("Dropped " + droppedMessages + " messages after a message could not be written");
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncAppenderHandler{" +
+                "queue=" + queue +
+                ", ringBuffer=" + ringBuffer +
+                ", closing=" + closing +
+                '}';
+    }
+}
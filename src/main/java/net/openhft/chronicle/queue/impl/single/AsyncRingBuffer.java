@@ -0,0 +1,237 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.BytesRingBufferStats;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.NativeBytesStore;
+import net.openhft.chronicle.core.Maths;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, multi producer, single consumer ring buffer of messages held off heap.
+ * <p>
+ * Each message is a 4 byte header followed by the message, padded to 8 bytes. A producer claims
+ * space by advancing the write cursor with a CAS, copies its message and publishes it with an
+ * ordered write of the header. The consumer reads the published messages in order, zeroes the
+ * space it has read and then advances the read cursor.
+ * <p>
+ * Once closed, the top bit of the write cursor is set so no more space can be claimed, and the off
+ * heap memory can be released when every message claimed before has been read.
+ */
+final class AsyncRingBuffer implements BytesRingBufferStats {
+    private static final int COMPLETE = 1 << 30;
+    private static final int PADDING = 1 << 29;
+    private static final int META_DATA = 1 << 28;
+    private static final int LENGTH_MASK = META_DATA - 1;
+    private static final int HEADER_SIZE = 4;
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    @NotNull
+    private final NativeBytesStore<Void> buffer;
+    private final long capacity;
+    private final long mask;
+    private final AtomicLong writeCursor = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong missedWriteCount = new AtomicLong();
+    private final AtomicLong contentionCount = new AtomicLong();
+    private volatile long readCursor = 0;
+    private volatile long minWriteBytesRemaining;
+
+    AsyncRingBuffer(long capacity) {
+        this.capacity = Maths.nextPower2(capacity, 4L << 10);
+        this.mask = this.capacity - 1;
+        this.buffer = NativeBytesStore.nativeStoreWithFixedCapacity(this.capacity);
+        this.buffer.zeroOut(0, this.capacity);
+        this.minWriteBytesRemaining = this.capacity;
+    }
+
+    private static long align8(long length) {
+        return (length + 7) & ~7L;
+    }
+
+    /**
+     * @return the largest message which is guaranteed to fit in this ring buffer.
+     */
+    long maxMessageLength() {
+        return Math.min(LENGTH_MASK, capacity / 2 - HEADER_SIZE);
+    }
+
+    /**
+     * @param bytes    to copy from
+     * @param offset   of the message in {@code bytes}
+     * @param length   of the message
+     * @param metaData whether the message is meta data
+     * @return true if the message was added, false if the ring buffer doesn't have the space.
+     */
+    boolean offer(@NotNull BytesStore bytes, long offset, long length, boolean metaData) {
+        if (length > maxMessageLength())
+            throw new IllegalArgumentException("Message of " + length + " bytes is larger than " + maxMessageLength() + " bytes");
+        final long recordLength = align8(HEADER_SIZE + length);
+        for (; ; ) {
+            final long write = writeCursor.get();
+            if (write < 0)
+                throw new IllegalStateException("Queue is closed");
+            long position = write & mask;
+            final long toEnd = capacity - position;
+            final long needed = recordLength <= toEnd ? recordLength : toEnd + recordLength;
+            final long remaining = capacity - (write - readCursor);
+            if (needed > remaining) {
+                missedWriteCount.incrementAndGet();
+                return false;
+            }
+            if (!writeCursor.compareAndSet(write, write + needed)) {
+                contentionCount.incrementAndGet();
+                continue;
+            }
+            if (needed != recordLength) {
+                // not enough space before the end, so skip to the start.
+                buffer.writeOrderedInt(position, COMPLETE | PADDING);
+                position = 0;
+            }
+            buffer.write(position + HEADER_SIZE, bytes, offset, length);
+            int header = COMPLETE | (int) length;
+            if (metaData)
+                header |= META_DATA;
+            buffer.writeOrderedInt(position, header);
+
+            writeCount.incrementAndGet();
+            if (remaining - needed < minWriteBytesRemaining)
+                minWriteBytesRemaining = remaining - needed;
+            return true;
+        }
+    }
+
+    /**
+     * Pass up to {@code maxMessages} published messages to the consumer in the order they were
+     * claimed, and release the space they used.
+     *
+     * @return the number of messages read.
+     */
+    int read(@NotNull MessageConsumer consumer, int maxMessages) {
+        final long start = readCursor;
+        long read = start;
+        int count = 0;
+        try {
+            while (count < maxMessages) {
+                final long position = read & mask;
+                final int header = buffer.readVolatileInt(position);
+                if ((header & COMPLETE) == 0)
+                    break;
+                if ((header & PADDING) != 0) {
+                    read += capacity - position;
+                    continue;
+                }
+                final int length = header & LENGTH_MASK;
+                consumer.accept(buffer, position + HEADER_SIZE, length, (header & META_DATA) != 0);
+                read += align8(HEADER_SIZE + length);
+                count++;
+            }
+        } finally {
+            if (read != start)
+                clear(start, read);
+        }
+        return count;
+    }
+
+    private void clear(long from, long to) {
+        // clear the space so an old header can't be mistaken for a published one.
+        final long fromPosition = from & mask;
+        final long toPosition = to & mask;
+        if (fromPosition < toPosition) {
+            buffer.zeroOut(fromPosition, toPosition);
+        } else {
+            buffer.zeroOut(fromPosition, capacity);
+            buffer.zeroOut(0, toPosition);
+        }
+        readCursor = to;
+    }
+
+    boolean isEmpty() {
+        return readRemaining() == 0;
+    }
+
+    long readRemaining() {
+        return (writeCursor.get() & ~CLOSED) - readCursor;
+    }
+
+    /**
+     * Stop accepting messages, those already claimed can still be read.
+     */
+    void close() {
+        for (; ; ) {
+            final long write = writeCursor.get();
+            if (write < 0 || writeCursor.compareAndSet(write, write | CLOSED))
+                return;
+        }
+    }
+
+    /**
+     * Release the off heap memory once closed. A producer could still be copying a message into
+     * space it has claimed unless every message has been read, in which case it is not released.
+     *
+     * @return true if the memory was released
+     */
+    boolean release() {
+        close();
+        if (!isEmpty() || buffer.refCount() <= 0)
+            return false;
+        buffer.release();
+        return true;
+    }
+
+    @Override
+    public long minNumberOfWriteBytesRemaining() {
+        long min = minWriteBytesRemaining;
+        minWriteBytesRemaining = capacity - readRemaining();
+        return min;
+    }
+
+    @Override
+    public long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getAndClearWriteCount() {
+        return writeCount.getAndSet(0);
+    }
+
+    @Override
+    public long getAndClearMissedWriteCount() {
+        return missedWriteCount.getAndSet(0);
+    }
+
+    @Override
+    public long getAndClearContentionCount() {
+        return contentionCount.getAndSet(0);
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncRingBuffer{" +
+                "capacity=" + capacity +
+                ", readRemaining=" + readRemaining() +
+                '}';
+    }
+
+    @FunctionalInterface
+    interface MessageConsumer {
+        void accept(BytesStore bytes, long offset, int length, boolean metaData);
+    }
+}
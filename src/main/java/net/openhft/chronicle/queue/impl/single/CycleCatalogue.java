@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.MappedBytes;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * The cycles of a queue in ascending order, kept in a file next to the directory listing, so the
+ * next or previous cycle, or the cycles in a range, can be found without listing the directory.
+ * <p>
+ * The file holds a header and the cycles as ints. A change is made under the lock of the
+ * directory listing, and between two increments of a version, which is odd while the cycles are
+ * being changed. A reader re-reads the cycles if the version changed while it read them, and
+ * uses the cycles as they were before a change until it is finished. Each process keeps a copy of
+ * the cycles, brought up to date from the file when the version changes. Only the cycles added
+ * at the end are read unless the others have been changed.
+ */
+final class CycleCatalogue implements Closeable {
+    static final String FILE = "directory-listing.cycles";
+    private static final long CHUNK_SIZE = 64 << 10;
+    private static final int VERSION = 0;
+    private static final int COUNT = 8;
+    // the number of changes other than adding a cycle at the end
+    private static final int REWRITES = 16;
+    private static final int HEADER_SIZE = 64;
+
+    @NotNull
+    private final MappedBytes bytes;
+    @NotNull
+    private volatile Cycles cycles = new Cycles(-1, 0, new int[0], 0);
+
+    private CycleCatalogue(@NotNull MappedBytes bytes) {
+        this.bytes = bytes;
+    }
+
+    @NotNull
+    static CycleCatalogue of(@NotNull File file) throws FileNotFoundException {
+        return new CycleCatalogue(MappedBytes.mappedBytes(file, CHUNK_SIZE));
+    }
+
+    private static long offset(int i) {
+        return HEADER_SIZE + 4L * i;
+    }
+
+    /**
+     * @return the cycles as of the last change to the file
+     */
+    @NotNull
+    synchronized Cycles cycles() {
+        Cycles cycles = this.cycles;
+        while (true) {
+            final long version = bytes.readVolatileLong(VERSION);
+            if (version == cycles.version)
+                return cycles;
+            // being changed, the change isn't visible until it is finished.
+            if ((version & 1) != 0)
+                return cycles;
+            final int count = (int) bytes.readVolatileLong(COUNT);
+            final long rewrites = bytes.readVolatileLong(REWRITES);
+            // the cycles of an older copy are never overwritten as it can still be in use.
+            final int from;
+            int[] array;
+            if (rewrites == cycles.rewrites && count >= cycles.count && count <= cycles.array.length) {
+                from = cycles.count;
+                array = cycles.array;
+            } else {
+                from = rewrites == cycles.rewrites && count >= cycles.count ? cycles.count : 0;
+                array = Arrays.copyOf(cycles.array, Math.max(16, Math.max(count, cycles.array.length * 2)));
+            }
+            for (int i = from; i < count; i++)
+                array[i] = bytes.readInt(offset(i));
+            if (bytes.readVolatileLong(VERSION) != version)
+                continue;
+            this.cycles = cycles = new Cycles(version, rewrites, array, count);
+        }
+    }
+
+    boolean contains(int cycle) {
+        return cycles().contains(cycle);
+    }
+
+    /**
+     * Adds a cycle, the caller holds the lock of the directory listing.
+     */
+    synchronized void add(int cycle) {
+        final Cycles cycles = cycles();
+        final int i = Arrays.binarySearch(cycles.array, 0, cycles.count, cycle);
+        if (i >= 0)
+            return;
+        final int at = -1 - i;
+        final long version = beginChange();
+        for (int j = cycles.count; j > at; j--)
+            bytes.writeInt(offset(j), cycles.array[j - 1]);
+        bytes.writeInt(offset(at), cycle);
+        if (at < cycles.count)
+            bytes.writeOrderedLong(REWRITES, cycles.rewrites + 1);
+        bytes.writeOrderedLong(COUNT, cycles.count + 1);
+        bytes.writeOrderedLong(VERSION, version + 2);
+    }
+
+    /**
+     * Removes a cycle, the caller holds the lock of the directory listing.
+     */
+    synchronized void remove(int cycle) {
+        final Cycles cycles = cycles();
+        final int at = Arrays.binarySearch(cycles.array, 0, cycles.count, cycle);
+        if (at < 0)
+            return;
+        final long version = beginChange();
+        for (int j = at; j < cycles.count - 1; j++)
+            bytes.writeInt(offset(j), cycles.array[j + 1]);
+        bytes.writeOrderedLong(REWRITES, cycles.rewrites + 1);
+        bytes.writeOrderedLong(COUNT, cycles.count - 1);
+        bytes.writeOrderedLong(VERSION, version + 2);
+    }
+
+    /**
+     * Replaces the cycles with those of the directory if they differ, the caller holds the lock of
+     * the directory listing.
+     *
+     * @param sorted the cycles of the directory in ascending order
+     */
+    synchronized void replaceAll(@NotNull int[] sorted) {
+        final Cycles cycles = cycles();
+        if (cycles.sameAs(sorted))
+            return;
+        final long version = beginChange();
+        for (int i = 0; i < sorted.length; i++)
+            bytes.writeInt(offset(i), sorted[i]);
+        bytes.writeOrderedLong(REWRITES, cycles.rewrites + 1);
+        bytes.writeOrderedLong(COUNT, sorted.length);
+        bytes.writeOrderedLong(VERSION, version + 2);
+    }
+
+    /**
+     * @return the version before the change
+     */
+    private long beginChange() {
+        final long version = bytes.readVolatileLong(VERSION);
+        // only odd if a process died during a change, which is finished by this one.
+        final long even = version & ~1L;
+        bytes.writeOrderedLong(VERSION, even + 1);
+        return even;
+    }
+
+    @Override
+    public void close() {
+        bytes.release();
+    }
+
+    /**
+     * A copy of the cycles, which doesn't change.
+     */
+    static final class Cycles {
+        private final long version;
+        private final long rewrites;
+        @NotNull
+        private final int[] array;
+        private final int count;
+
+        Cycles(long version, long rewrites, @NotNull int[] array, int count) {
+            this.version = version;
+            this.rewrites = rewrites;
+            this.array = array;
+            this.count = count;
+        }
+
+        boolean contains(int cycle) {
+            return Arrays.binarySearch(array, 0, count, cycle) >= 0;
+        }
+
+        /**
+         * @return the first cycle after a cycle, or -1 if there isn't one
+         */
+        int higher(int cycle) {
+            final int i = Arrays.binarySearch(array, 0, count, cycle);
+            final int next = i >= 0 ? i + 1 : -1 - i;
+            return next < count ? array[next] : -1;
+        }
+
+        /**
+         * @return the last cycle before a cycle, or -1 if there isn't one
+         */
+        int lower(int cycle) {
+            final int i = Arrays.binarySearch(array, 0, count, cycle);
+            final int previous = i >= 0 ? i - 1 : -2 - i;
+            return previous >= 0 ? array[previous] : -1;
+        }
+
+        /**
+         * @return the cycles between two cycles inclusive
+         */
+        @NotNull
+        NavigableSet<Long> between(int lowerCycle, int upperCycle) {
+            final NavigableSet<Long> set = new TreeSet<>();
+            int i = Arrays.binarySearch(array, 0, count, lowerCycle);
+            for (i = i >= 0 ? i : -1 - i; i < count && array[i] <= upperCycle; i++)
+                set.add((long) array[i]);
+            return set;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        /**
+         * @return the first cycle, or -1 if there isn't one
+         */
+        int first() {
+            return count == 0 ? -1 : array[0];
+        }
+
+        boolean sameAs(@NotNull int[] sorted) {
+            if (count != sorted.length)
+                return false;
+            for (int i = 0; i < count; i++)
+                if (array[i] != sorted[i])
+                    return false;
+            return true;
+        }
+    }
+}
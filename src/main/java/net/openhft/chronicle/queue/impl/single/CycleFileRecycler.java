@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.threads.EventGroup;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a few spare files in the directory of a queue, each allocated and zeroed for the first
+ * block of a cycle, so a new cycle file can be given the name of a spare rather than created, and
+ * its blocks don't have to be allocated nor its pages zeroed as the first excerpts are written.
+ * <p>
+ * Spares are made from new files by a background thread, and a spare is only named
+ * {@link #SPARE_SUFFIX} once it has been zeroed. Cycle files which are no longer needed are never
+ * made into spares, as another process can still have them mapped, and truncating or zeroing a
+ * mapped file can crash or corrupt it. They can only be safely deleted.
+ * <p>
+ * Every process lists the spares in the directory, so a spare is first claimed by renaming it to
+ * a name unique to this process, which fails if another process has claimed it. The claimed file
+ * is then given a cycle file name with a link, which fails if another appender has created the
+ * cycle file in the meantime, so as with a pre-created file the header is written once it has its
+ * name.
+ */
+final class CycleFileRecycler implements EventHandler {
+    static final String SPARE_SUFFIX = ".cq4.spare";
+    private static final Logger LOG = LoggerFactory.getLogger(CycleFileRecycler.class);
+    private static final String ZEROING_SUFFIX = ".zeroing";
+    private static final String CLAIMED_SUFFIX = ".claimed-";
+    private static final AtomicLong CLAIM_COUNTER = new AtomicLong();
+    private static final int ZERO_BUFFER_SIZE = 1 << 20;
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final File dir;
+    private final int spareCount;
+    private final long spareSize;
+    // spares made or found by this process, another process can take them first
+    private final Deque<File> spares = new ConcurrentLinkedDeque<>();
+    @NotNull
+    private final EventLoop eventLoop;
+    private final boolean createdEventLoop;
+    private volatile boolean closed = false;
+
+    CycleFileRecycler(@NotNull SingleChronicleQueue queue, int spareCount) {
+        this.queue = queue;
+        this.dir = queue.file();
+        this.spareCount = spareCount;
+        this.spareSize = OS.pageAlign(queue.blockSize()) + OS.pageAlign(queue.blockSize() / 4);
+
+        final File[] found = dir.listFiles((d, n) -> n.endsWith(SPARE_SUFFIX));
+        if (found != null)
+            for (File spare : found)
+                spares.add(spare);
+
+        EventLoop eventLoop = queue.eventLoop();
+        this.createdEventLoop = eventLoop == null;
+        if (createdEventLoop)
+            eventLoop = new EventGroup(true);
+        this.eventLoop = eventLoop;
+        eventLoop.addHandler(this);
+        if (createdEventLoop)
+            eventLoop.start();
+    }
+
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed || queue.isClosed())
+            throw new InvalidEventHandlerException();
+        return execute();
+    }
+
+    /**
+     * Make one spare if there are fewer than wanted.
+     *
+     * @return true if there was anything to do
+     */
+    boolean execute() {
+        if (spares.size() >= spareCount)
+            return false;
+        try {
+            spares.add(makeSpare());
+        } catch (IOException e) {
+            LOG.warn("Unable to make a spare cycle file in " + dir, e);
+        }
+        return true;
+    }
+
+    /**
+     * Give a spare a cycle file name, or the name of a file for a cycle being pre-created.
+     *
+     * @return true if a spare now has the name, false if there are no spares or the file exists
+     */
+    boolean adopt(@NotNull File file) {
+        for (File spare; (spare = spares.poll()) != null; ) {
+            final Path claimed;
+            try {
+                claimed = claim(spare.toPath());
+            } catch (NoSuchFileException e) {
+                // claimed by another process
+                continue;
+            } catch (IOException e) {
+                spares.addFirst(spare);
+                LOG.debug("Unable to claim {} {}", spare, e);
+                return false;
+            }
+            try {
+                Files.createLink(file.toPath(), claimed);
+            } catch (IOException | UnsupportedOperationException e) {
+                unclaim(claimed, spare);
+                LOG.debug("Unable to use {} for {} {}", spare, file, e);
+                return false;
+            }
+            try {
+                Files.delete(claimed);
+            } catch (IOException e) {
+                LOG.debug("Unable to delete {} {}", claimed, e);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Rename a spare to a name no other process uses, so only this process can link it.
+     *
+     * @return the new name of the spare
+     * @throws NoSuchFileException if another process has claimed the spare
+     */
+    @NotNull
+    private static Path claim(@NotNull Path spare) throws IOException {
+        final Path claimed = spare.resolveSibling(spare.getFileName() + CLAIMED_SUFFIX
+                + Jvm.getProcessId() + "-" + CLAIM_COUNTER.incrementAndGet());
+        Files.move(spare, claimed, StandardCopyOption.ATOMIC_MOVE);
+        return claimed;
+    }
+
+    private void unclaim(@NotNull Path claimed, @NotNull File spare) {
+        try {
+            Files.move(claimed, spare.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            spares.addFirst(spare);
+        } catch (IOException e) {
+            LOG.debug("Unable to return {} as a spare {}", claimed, e);
+            try {
+                Files.deleteIfExists(claimed);
+            } catch (IOException e2) {
+                LOG.debug("Unable to delete {} {}", claimed, e2);
+            }
+        }
+    }
+
+    int spares() {
+        return spares.size();
+    }
+
+    /**
+     * @return a new spare
+     */
+    @NotNull
+    private File makeSpare() throws IOException {
+        final Path zeroing = Files.createTempFile(dir.toPath(), "spare-", SPARE_SUFFIX + ZEROING_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(zeroing, StandardOpenOption.WRITE)) {
+                // the blocks are written rather than the file extended so they are allocated
+                channel.truncate(spareSize);
+                final ByteBuffer zeros = ByteBuffer.allocateDirect(ZERO_BUFFER_SIZE);
+                for (long position = 0; position < spareSize; ) {
+                    zeros.clear().limit((int) Math.min(ZERO_BUFFER_SIZE, spareSize - position));
+                    position += channel.write(zeros, position);
+                }
+            }
+            final String name = zeroing.getFileName().toString();
+            final Path spare = zeroing.resolveSibling(name.substring(0, name.length() - ZEROING_SUFFIX.length()));
+            Files.move(zeroing, spare, StandardCopyOption.ATOMIC_MOVE);
+            return spare.toFile();
+        } catch (IOException e) {
+            Files.deleteIfExists(zeroing);
+            throw e;
+        }
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.MONITOR;
+    }
+
+    void close() {
+        closed = true;
+        if (createdEventLoop)
+            eventLoop.close();
+    }
+}
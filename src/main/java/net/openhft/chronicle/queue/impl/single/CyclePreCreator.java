@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.threads.EventGroup;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Creates the file for the next cycle of a queue shortly before the cycle starts, so the first
+ * appender to roll doesn't pay for creating the file, writing its header and faulting in its
+ * pages.
+ * <p>
+ * The file is created under a temporary name and only given its cycle file name when the cycle
+ * is first written, so tailers don't move to a cycle before it has started.
+ */
+final class CyclePreCreator implements EventHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(CyclePreCreator.class);
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    private final long preCreateMS;
+    @NotNull
+    private final EventLoop eventLoop;
+    private final boolean createdEventLoop;
+    private volatile boolean closed = false;
+    private int preCreatedCycle = Integer.MIN_VALUE;
+
+    CyclePreCreator(@NotNull SingleChronicleQueue queue, long preCreateMS) {
+        this.queue = queue;
+        this.preCreateMS = preCreateMS;
+
+        EventLoop eventLoop = queue.eventLoop();
+        this.createdEventLoop = eventLoop == null;
+        if (createdEventLoop)
+            eventLoop = new EventGroup(true);
+        this.eventLoop = eventLoop;
+        eventLoop.addHandler(this);
+        if (createdEventLoop)
+            eventLoop.start();
+    }
+
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed || queue.isClosed())
+            throw new InvalidEventHandlerException();
+        return execute();
+    }
+
+    /**
+     * Create the file for the next cycle if the current cycle ends within the pre-create time.
+     *
+     * @return true if a file was created
+     */
+    boolean execute() {
+        int cycle = queue.cycle();
+        if (preCreatedCycle > cycle)
+            return false;
+        long nextCycleMS = (cycle + 1L) * queue.rollCycle().length() + queue.epoch();
+        if (nextCycleMS - queue.time().currentTimeMillis() > preCreateMS)
+            return false;
+
+        // a cycle which passed without a message being written
+        if (preCreatedCycle != Integer.MIN_VALUE)
+            queue.discardPreCreatedCycle(preCreatedCycle);
+        preCreatedCycle = cycle + 1;
+        try {
+            return queue.preCreateCycle(preCreatedCycle);
+        } catch (IOException e) {
+            LOG.warn("Unable to pre-create cycle " + preCreatedCycle, e);
+            return false;
+        }
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.MONITOR;
+    }
+
+    void close() {
+        closed = true;
+        if (createdEventLoop)
+            eventLoop.close();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a task for each cycle of a queue, or each of a list of files, concurrently on a fork/join
+ * pool and passes the results on in order, so a scan of the whole history of a queue scales with
+ * the number of cores rather than being limited to one thread.
+ * <p>
+ * At most twice the parallelism of the pool is run ahead of the result being waited for, so the
+ * results waiting to be passed on are bounded.
+ */
+public final class CycleScanner {
+    @NotNull
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+
+    public CycleScanner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public CycleScanner(@NotNull ForkJoinPool pool) {
+        this.pool = pool;
+        this.maxInFlight = Math.max(2, pool.getParallelism() * 2);
+    }
+
+    /**
+     * Run a task for each cycle of the queue with excerpts.
+     *
+     * @param queue    to scan
+     * @param task     run for each cycle, with a tailer of its own which reads only that cycle
+     * @param onResult called with the result for each cycle in cycle order, on the calling thread.
+     *                 Null results are skipped.
+     */
+    public <R> void scanCycles(@NotNull SingleChronicleQueue queue,
+                               @NotNull CycleTask<? extends R> task,
+                               @NotNull Consumer<? super R> onResult) {
+        scan(cycles(queue), cycle -> scanCycle(queue, cycle.intValue(), task), onResult);
+    }
+
+    @Nullable
+    private static <R> R scanCycle(@NotNull SingleChronicleQueue queue, int cycle,
+                                   @NotNull CycleTask<? extends R> task) {
+        final RollCycle rollCycle = queue.rollCycle();
+        final SingleChronicleQueueExcerpts.StoreTailer tailer =
+                (SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer();
+        try {
+            tailer.lastCycleToRead(cycle);
+            // the cycle may have been removed since it was listed.
+            if (!tailer.moveToIndex(rollCycle.toIndex(cycle, 0)) && tailer.cycle() != cycle)
+                return null;
+            return task.scanCycle(cycle, tailer);
+        } finally {
+            tailer.releaseResources();
+        }
+    }
+
+    /**
+     * Run a task for each item concurrently.
+     *
+     * @param items    to run the task for
+     * @param task     to run
+     * @param onResult called with the result for each item in the order of the items, on the
+     *                 calling thread. Null results are skipped.
+     */
+    public <T, R> void scan(@NotNull Iterable<T> items,
+                            @NotNull Function<? super T, ? extends R> task,
+                            @NotNull Consumer<? super R> onResult) {
+        final Deque<ForkJoinTask<? extends R>> inFlight = new ArrayDeque<>();
+        final Iterator<T> iterator = items.iterator();
+        try {
+            while (true) {
+                while (inFlight.size() < maxInFlight && iterator.hasNext()) {
+                    T item = iterator.next();
+                    inFlight.add(pool.submit(() -> task.apply(item)));
+                }
+                if (inFlight.isEmpty())
+                    return;
+                R result = inFlight.poll().join();
+                if (result != null)
+                    onResult.accept(result);
+            }
+        } finally {
+            for (ForkJoinTask<? extends R> forkJoinTask : inFlight)
+                forkJoinTask.cancel(false);
+        }
+    }
+
+    @NotNull
+    private static NavigableSet<Long> cycles(@NotNull SingleChronicleQueue queue) {
+        int firstCycle = queue.firstCycle();
+        int lastCycle = queue.lastCycle();
+        if (firstCycle > lastCycle)
+            return Collections.emptyNavigableSet();
+        try {
+            return queue.listCyclesBetween(firstCycle, lastCycle);
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface CycleTask<R> {
+        /**
+         * @param cycle  to scan
+         * @param tailer at the start of the cycle, which doesn't read past the end of it.
+         * @return the result for this cycle, or null if there isn't one
+         */
+        @Nullable
+        R scanCycle(int cycle, @NotNull ExcerptTailer tailer);
+    }
+}
@@ -1,8 +1,10 @@
 package net.openhft.chronicle.queue.impl.single;
 
 import net.openhft.chronicle.queue.impl.table.SingleTableBuilder;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.NavigableSet;
 
 public interface DirectoryListing {
     String DIRECTORY_LISTING_FILE = "directory-listing" + SingleTableBuilder.SUFFIX;
@@ -13,9 +15,25 @@ public interface DirectoryListing {
 
     void onFileCreated(File file, int cycle);
 
+    /**
+     * Called before the file of a cycle is deleted or moved out of the directory.
+     */
+    default void onFileDeleted(File file, int cycle) {
+        // no-op
+    }
+
     int getMaxCreatedCycle();
 
     int getMinCreatedCycle();
 
     long modCount();
+
+    /**
+     * @return the cycles in the directory, kept up to date without it being listed, or null if
+     * this listing doesn't keep them
+     */
+    @Nullable
+    default NavigableSet<Integer> cycles() {
+        return null;
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches queue directories for cycle files being created or deleted with one {@link WatchService}
+ * and daemon thread for the process, and passes the events to every listing of each directory.
+ * <p>
+ * It is only used where the {@link WatchService} of the platform is told of changes by the OS, as
+ * the polling one of the JDK can take seconds to notice a new file.
+ */
+enum DirectoryWatcher {
+    ;
+    public static final String THREAD_NAME = "queue-directory-watcher-daemon";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryWatcher.class);
+    private static final boolean WATCH_DIRECTORIES =
+            Boolean.valueOf(System.getProperty("chronicle.queue.watchDirectories", Boolean.TRUE.toString()));
+    private static final Map<Path, Watched> WATCHED = new HashMap<>();
+    @Nullable
+    private static WatchService watchService;
+
+    /**
+     * @return true if directories can be watched without the OS being polled
+     */
+    static boolean isAvailable() {
+        return WATCH_DIRECTORIES && watchService() != null;
+    }
+
+    @Nullable
+    private static synchronized WatchService watchService() {
+        if (watchService == null) {
+            try {
+                final WatchService service = FileSystems.getDefault().newWatchService();
+                if (service.getClass().getName().endsWith("PollingWatchService")) {
+                    service.close();
+                    return null;
+                }
+                watchService = service;
+                final Thread thread = new Thread(() -> run(service));
+                thread.setDaemon(true);
+                thread.setName(THREAD_NAME);
+                thread.start();
+            } catch (IOException | UnsupportedOperationException e) {
+                LOGGER.debug("Unable to watch directories", e);
+                return null;
+            }
+        }
+        return watchService;
+    }
+
+    /**
+     * Passes the events of a directory to a listing until it is unregistered.
+     *
+     * @throws IOException if the directory can't be watched
+     */
+    static synchronized void register(@NotNull Path dir, @NotNull WatchingDirectoryListing listing) throws IOException {
+        final WatchService service = watchService();
+        if (service == null)
+            throw new IOException("Directories can't be watched");
+        final Path key = dir.toAbsolutePath().normalize();
+        Watched watched = WATCHED.get(key);
+        if (watched == null || !watched.watchKey.isValid()) {
+            watched = new Watched(key.register(service, ENTRY_CREATE, ENTRY_DELETE));
+            WATCHED.put(key, watched);
+        }
+        watched.listings.add(listing);
+    }
+
+    static synchronized void unregister(@NotNull Path dir, @NotNull WatchingDirectoryListing listing) {
+        final Path key = dir.toAbsolutePath().normalize();
+        final Watched watched = WATCHED.get(key);
+        if (watched == null || !watched.listings.remove(listing) || !watched.listings.isEmpty())
+            return;
+        watched.watchKey.cancel();
+        WATCHED.remove(key);
+    }
+
+    @Nullable
+    private static synchronized List<WatchingDirectoryListing> listingsFor(@NotNull WatchKey watchKey) {
+        final Watched watched = WATCHED.get((Path) watchKey.watchable());
+        return watched == null || watched.watchKey != watchKey ? null : watched.listings;
+    }
+
+    private static void run(@NotNull WatchService service) {
+        while (!Thread.currentThread().isInterrupted()) {
+            final WatchKey watchKey;
+            try {
+                watchKey = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            final Path dir = (Path) watchKey.watchable();
+            final List<WatchingDirectoryListing> listings = listingsFor(watchKey);
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (listings == null)
+                    continue;
+                try {
+                    if (event.kind() == OVERFLOW) {
+                        listings.forEach(WatchingDirectoryListing::onOverflow);
+                        continue;
+                    }
+                    final Path file = dir.resolve((Path) event.context());
+                    if (!file.toString().endsWith(SingleChronicleQueue.SUFFIX))
+                        continue;
+                    final boolean created = event.kind() == ENTRY_CREATE;
+                    for (WatchingDirectoryListing listing : listings)
+                        listing.onEvent(file.toFile(), created);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to pass on an event for " + dir, e);
+                }
+            }
+            watchKey.reset();
+        }
+    }
+
+    private static final class Watched {
+        @NotNull
+        private final WatchKey watchKey;
+        private final List<WatchingDirectoryListing> listings = new CopyOnWriteArrayList<>();
+
+        Watched(@NotNull WatchKey watchKey) {
+            this.watchKey = watchKey;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.core.Memory;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+
+import static net.openhft.chronicle.wire.Wires.NOT_INITIALIZED;
+import static net.openhft.chronicle.wire.Wires.SPB_HEADER_SIZE;
+
+/**
+ * Walks over the complete excerpts of a store reading their headers from the mapped memory, with
+ * the position of the next header worked out from the length alone, rather than through a Wire.
+ * The linear scans of the index use it to get close to where they are going, then finish with the
+ * Wire, so the header they stop at is checked as before.
+ */
+final class HeaderWalker {
+    // below this, a mapping can't be relied on to hold a whole header past the end of a chunk.
+    private static final long MIN_WINDOW = 64;
+
+    private HeaderWalker() {
+    }
+
+    /**
+     * Walks from the header at a position over complete excerpts, meta data included, until it
+     * has passed a number of data excerpts, reached a position, or reached a header which isn't
+     * complete. Leaves the read position at the header it stopped at.
+     *
+     * @param maxData    the number of data excerpts to pass
+     * @param toPosition not to walk past the header at or after this position
+     * @return the number of data excerpts passed
+     */
+    static long walk(@NotNull Bytes<?> bytes, long position, long maxData, long toPosition) {
+        bytes.readPositionUnlimited(position);
+        final long window = bytes instanceof MappedBytes ? ((MappedBytes) bytes).mappedFile().overlapSize() : 0;
+        return window >= MIN_WINDOW
+                ? walkMapped(bytes, position, maxData, toPosition, window)
+                : walkBytes(bytes, position, maxData, toPosition);
+    }
+
+    private static long walkMapped(@NotNull Bytes<?> bytes, long position, long maxData, long toPosition, long window) {
+        final Memory memory = OS.memory();
+        long data = 0;
+        // the memory from the address of a position is contiguous for at least the overlap size
+        long base = position;
+        long address = bytes.addressForRead(position);
+        while (data < maxData && position < toPosition) {
+            if (position + SPB_HEADER_SIZE > base + window) {
+                base = position;
+                address = bytes.addressForRead(position);
+            }
+            final int header = memory.readVolatileInt(address + position - base);
+            if (header == NOT_INITIALIZED || Wires.isNotComplete(header))
+                break;
+            if (Wires.isData(header))
+                data++;
+            position += SPB_HEADER_SIZE + Wires.lengthOf(header);
+        }
+        bytes.readPositionUnlimited(position);
+        return data;
+    }
+
+    private static long walkBytes(@NotNull Bytes<?> bytes, long position, long maxData, long toPosition) {
+        long data = 0;
+        while (data < maxData && position < toPosition) {
+            final int header = bytes.readVolatileInt(position);
+            if (header == NOT_INITIALIZED || Wires.isNotComplete(header))
+                break;
+            if (Wires.isData(header))
+                data++;
+            position += SPB_HEADER_SIZE + Wires.lengthOf(header);
+        }
+        bytes.readPositionUnlimited(position);
+        return data;
+    }
+}
@@ -0,0 +1,103 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.UnrecoverableTimeoutException;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.StreamCorruptedException;
+
+import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
+
+/**
+ * A class designed to be called from a long-lived thread.
+ *
+ * Upon invocation of the {@code execute()} method, this object will follow the excerpts written to
+ * the supplied queue and add them to the index of each cycle, so cycles written by appenders with
+ * lazy indexing can be read by index without a linear scan.
+ *
+ * Cycles which are already indexed are skipped over using their index.
+ *
+ * Resources held by this object will be released when the underlying queue is closed.
+ */
+public final class Indexer {
+    private static final int MAX_EXCERPTS_PER_EXECUTE = 1024;
+
+    @NotNull
+    private final StoreTailer tailer;
+    @NotNull
+    private final RollCycle rollCycle;
+    private final int indexSpacingMask;
+    private int currentCycle = Integer.MIN_VALUE;
+
+    public Indexer(@NotNull final SingleChronicleQueue queue) {
+        this.tailer = (StoreTailer) queue.createTailer();
+        this.rollCycle = queue.rollCycle();
+        this.indexSpacingMask = queue.indexSpacing() - 1;
+    }
+
+    /**
+     * Index the excerpts written since the last call, up to a limit.
+     *
+     * @return true if any excerpts were read.
+     */
+    public boolean execute() {
+        int count = 0;
+        while (count < MAX_EXCERPTS_PER_EXECUTE && indexNext())
+            count++;
+        return count > 0;
+    }
+
+    private boolean indexNext() {
+        final long index;
+        final long position;
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent())
+                return false;
+            index = dc.index();
+            position = dc.wire().bytes().readPosition() - Wires.SPB_HEADER_SIZE;
+        }
+
+        final WireStore store = tailer.store;
+        final int cycle = rollCycle.toCycle(index);
+        final long sequenceNumber = rollCycle.toSequenceNumber(index);
+        if (cycle != currentCycle) {
+            currentCycle = cycle;
+            if (skipIndexed(store, cycle, sequenceNumber))
+                return true;
+        }
+
+        if ((sequenceNumber & indexSpacingMask) != 0 || store == null)
+            return true;
+        try {
+            store.setPositionForSequenceNumber(tailer, sequenceNumber, position);
+        } catch (UnrecoverableTimeoutException | StreamCorruptedException e) {
+            Jvm.warn().on(getClass(), "Unable to index " + Long.toHexString(index), e);
+        }
+        return true;
+    }
+
+    /**
+     * Move past the part of a cycle which has already been indexed.
+     *
+     * @return true if the tailer was moved.
+     */
+    private boolean skipIndexed(WireStore store, int cycle, long sequenceNumber) {
+        if (!(store instanceof SingleChronicleQueueStore))
+            return false;
+        long lastIndexed = ((SingleChronicleQueueStore) store).nextEntryToBeIndexed() - (indexSpacingMask + 1);
+        if (lastIndexed <= sequenceNumber)
+            return false;
+        return tailer.moveToIndex(rollCycle.toIndex(cycle, lastIndexed));
+    }
+
+    /**
+     * @return the index of the next excerpt to be indexed.
+     */
+    public long index() {
+        return tailer.index();
+    }
+}
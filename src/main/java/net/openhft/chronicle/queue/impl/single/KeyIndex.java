@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.OS;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+
+/**
+ * An index of the excerpts of a cycle by a user defined key, kept in a file next to the cycle
+ * file. The file holds an open addressing hash table of (index, key) entries with linear probing,
+ * one entry per excerpt, so the excerpts of a key are found by probing from the slot of the key
+ * until an empty entry.
+ * <p>
+ * An entry is claimed with a CAS, so several appenders can add to the same file. Once the table
+ * is three quarters full no more entries are added and it is marked incomplete, a lookup of the
+ * cycle then has to scan it until the index is rebuilt with a larger capacity.
+ */
+final class KeyIndex implements Closeable {
+    static final String SUFFIX = ".keys";
+    private static final long CHUNK_SIZE = 1 << 20;
+    private static final int CAPACITY = 0;
+    private static final int COUNT = 8;
+    private static final int INCOMPLETE = 16;
+    private static final int HEADER_SIZE = 64;
+    private static final int ENTRY_SIZE = 16;
+    // an entry being written, the index is stored plus one so 0 is an empty entry
+    private static final long CLAIMED = -1;
+
+    @NotNull
+    private final MappedBytes bytes;
+    private final long capacity;
+    private final int shift;
+
+    private KeyIndex(@NotNull MappedBytes bytes, long capacity) {
+        this.bytes = bytes;
+        this.capacity = capacity;
+        this.shift = 64 - Maths.intLog2(capacity);
+    }
+
+    @NotNull
+    static File fileFor(@NotNull File cycleFile) {
+        return new File(cycleFile.getParentFile(), cycleFile.getName() + SUFFIX);
+    }
+
+    /**
+     * @param file     of the index
+     * @param capacity the number of entries, a power of 2, unless the file already has one
+     */
+    @NotNull
+    static KeyIndex forAppending(@NotNull File file, int capacity) throws FileNotFoundException {
+        MappedBytes bytes = MappedBytes.mappedBytes(file, CHUNK_SIZE);
+        if (bytes.compareAndSwapLong(CAPACITY, 0L, capacity))
+            // size the file for the whole table so it can be mapped read only
+            bytes.compareAndSwapLong(offset(capacity - 1), 0L, 0L);
+        return new KeyIndex(bytes, bytes.readVolatileLong(CAPACITY));
+    }
+
+    /**
+     * @return the key index of the cycle, or null if the cycle doesn't have a usable one
+     */
+    @Nullable
+    static KeyIndex forReading(@NotNull File cycleFile) throws FileNotFoundException {
+        File file = fileFor(cycleFile);
+        if (file.length() < HEADER_SIZE)
+            return null;
+        MappedBytes bytes = MappedBytes.mappedBytes(file, CHUNK_SIZE, OS.pageSize(), !OS.isWindows());
+        long capacity = bytes.readVolatileLong(CAPACITY);
+        if (capacity <= 0 || file.length() < offset(capacity)) {
+            bytes.release();
+            return null;
+        }
+        return new KeyIndex(bytes, capacity);
+    }
+
+    private static long offset(long slot) {
+        return HEADER_SIZE + slot * ENTRY_SIZE;
+    }
+
+    private long slot(long key) {
+        return (key * 0x9E3779B97F4A7C15L) >>> shift;
+    }
+
+    /**
+     * Adds an excerpt to the index, unless it is already there.
+     *
+     * @return false if the index is full or incomplete, so the excerpt wasn't added
+     */
+    boolean put(long key, long index) {
+        if (!isComplete())
+            return false;
+        if (bytes.readVolatileLong(COUNT) >= capacity - (capacity >> 2)) {
+            markIncomplete();
+            return false;
+        }
+        final long entry = index + 1;
+        long slot = slot(key);
+        while (true) {
+            final long offset = offset(slot);
+            final long value = bytes.readVolatileLong(offset);
+            if (value == 0) {
+                if (!bytes.compareAndSwapLong(offset, 0L, CLAIMED))
+                    continue;
+                bytes.writeLong(offset + 8, key);
+                bytes.writeOrderedLong(offset, entry);
+                incrementCount();
+                return true;
+            }
+            if (value == entry && bytes.readVolatileLong(offset + 8) == key)
+                return true;
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    private void incrementCount() {
+        long count;
+        do {
+            count = bytes.readVolatileLong(COUNT);
+        } while (!bytes.compareAndSwapLong(COUNT, count, count + 1));
+    }
+
+    /**
+     * @return the indexes of the excerpts with this key, in order
+     */
+    @NotNull
+    long[] indexes(long key) {
+        long[] indexes = new long[4];
+        int count = 0;
+        long slot = slot(key);
+        for (long i = 0; i < capacity; i++, slot = (slot + 1) & (capacity - 1)) {
+            final long offset = offset(slot);
+            final long value = bytes.readVolatileLong(offset);
+            if (value == 0)
+                break;
+            if (value == CLAIMED || bytes.readVolatileLong(offset + 8) != key)
+                continue;
+            if (count == indexes.length)
+                indexes = Arrays.copyOf(indexes, count * 2);
+            indexes[count++] = value - 1;
+        }
+        indexes = Arrays.copyOf(indexes, count);
+        // concurrent appenders can add entries out of order
+        Arrays.sort(indexes);
+        return indexes;
+    }
+
+    long count() {
+        return bytes.readVolatileLong(COUNT);
+    }
+
+    /**
+     * @return false if an excerpt of the cycle may be missing from the index
+     */
+    boolean isComplete() {
+        return bytes.readVolatileLong(INCOMPLETE) == 0;
+    }
+
+    void markIncomplete() {
+        bytes.writeOrderedLong(INCOMPLETE, 1L);
+    }
+
+    @Override
+    public void close() {
+        bytes.release();
+    }
+}
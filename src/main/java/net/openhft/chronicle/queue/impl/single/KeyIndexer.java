@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.queue.KeyExtractor;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.FileNotFoundException;
+
+import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
+
+/**
+ * A class designed to be called from a long-lived thread.
+ *
+ * Upon invocation of the {@code execute()} method, this object will follow the excerpts written to
+ * the supplied queue and add them to the key index of each cycle, so a queue written by appenders
+ * without a key extractor can be looked up by key. Excerpts already in a key index are skipped.
+ *
+ * Resources held by this object will be released when the underlying queue is closed.
+ */
+public final class KeyIndexer {
+    private static final int MAX_EXCERPTS_PER_EXECUTE = 1024;
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final KeyExtractor keyExtractor;
+    @NotNull
+    private final StoreTailer tailer;
+    @NotNull
+    private final RollCycle rollCycle;
+    @Nullable
+    private KeyIndex keyIndex;
+    private int keyIndexCycle = Integer.MIN_VALUE;
+
+    public KeyIndexer(@NotNull final SingleChronicleQueue queue) {
+        final KeyExtractor keyExtractor = queue.keyExtractor();
+        if (keyExtractor == null)
+            throw new IllegalArgumentException("The queue has no key extractor");
+        this.queue = queue;
+        this.keyExtractor = keyExtractor;
+        this.tailer = (StoreTailer) queue.createTailer();
+        this.rollCycle = queue.rollCycle();
+        queue.addCloseListener(this, KeyIndexer::close);
+    }
+
+    /**
+     * Index the excerpts written since the last call, up to a limit.
+     *
+     * @return true if any excerpts were read.
+     */
+    public boolean execute() {
+        int count = 0;
+        while (count < MAX_EXCERPTS_PER_EXECUTE && indexNext())
+            count++;
+        return count > 0;
+    }
+
+    private boolean indexNext() {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent())
+                return false;
+            final long index = dc.index();
+            final KeyIndex keyIndex = keyIndexFor(rollCycle.toCycle(index));
+            final long key;
+            try {
+                key = keyExtractor.key(dc.wire());
+            } catch (RuntimeException e) {
+                Jvm.warn().on(getClass(), "Unable to extract the key of " + Long.toHexString(index), e);
+                keyIndex.markIncomplete();
+                return true;
+            }
+            if (key != KeyExtractor.NO_KEY)
+                keyIndex.put(key, index);
+        }
+        return true;
+    }
+
+    @NotNull
+    private KeyIndex keyIndexFor(int cycle) {
+        if (keyIndex == null || keyIndexCycle != cycle) {
+            close();
+            try {
+                keyIndex = KeyIndex.forAppending(KeyIndex.fileFor(queue.fileForCycle(cycle)), queue.keyIndexCapacity());
+            } catch (FileNotFoundException e) {
+                throw new IORuntimeException(e);
+            }
+            keyIndexCycle = cycle;
+        }
+        return keyIndex;
+    }
+
+    /**
+     * @return the index of the next excerpt to be indexed.
+     */
+    public long index() {
+        return tailer.index();
+    }
+
+    private void close() {
+        KeyIndex k = keyIndex;
+        keyIndex = null;
+        keyIndexCycle = Integer.MIN_VALUE;
+        if (k != null)
+            k.close();
+    }
+}
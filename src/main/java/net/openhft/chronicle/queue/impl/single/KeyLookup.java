@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.KeyExtractor;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FileNotFoundException;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+
+/**
+ * Iterates over the indexes of the excerpts with a key, a cycle at a time, using the key index of
+ * each cycle or scanning the cycle if it doesn't have a complete one.
+ */
+final class KeyLookup implements PrimitiveIterator.OfLong {
+    private static final long[] NO_INDEXES = {};
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final KeyExtractor keyExtractor;
+    private final long key;
+    @NotNull
+    private final Iterator<Long> cycles;
+    private long[] indexes = NO_INDEXES;
+    private int next = 0;
+
+    KeyLookup(@NotNull SingleChronicleQueue queue, @NotNull KeyExtractor keyExtractor, long key) {
+        this.queue = queue;
+        this.keyExtractor = keyExtractor;
+        this.key = key;
+        final int firstCycle = queue.firstCycle();
+        if (firstCycle == Integer.MAX_VALUE) {
+            this.cycles = Collections.emptyIterator();
+            return;
+        }
+        try {
+            this.cycles = queue.listCyclesBetween(firstCycle, queue.lastCycle()).iterator();
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the excerpts of a cycle, passing those with a key to the consumer until it returns
+     * false.
+     */
+    static void scanCycle(@NotNull SingleChronicleQueue queue, @NotNull KeyExtractor keyExtractor,
+                          int cycle, @NotNull KeyedIndexConsumer consumer) {
+        final RollCycle rollCycle = queue.rollCycle();
+        final SingleChronicleQueueExcerpts.StoreTailer tailer =
+                (SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer();
+        try {
+            tailer.lastCycleToRead(cycle);
+            if (!tailer.moveToIndex(rollCycle.toIndex(cycle, 0)))
+                return;
+            while (true) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        return;
+                    final long key = keyExtractor.key(dc.wire());
+                    if (key != KeyExtractor.NO_KEY && !consumer.accept(key, dc.index()))
+                        return;
+                }
+            }
+        } finally {
+            tailer.releaseResources();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == indexes.length) {
+            if (!cycles.hasNext())
+                return false;
+            indexes = indexesForCycle(cycles.next().intValue());
+            next = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public long nextLong() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return indexes[next++];
+    }
+
+    @NotNull
+    private long[] indexesForCycle(int cycle) {
+        try (KeyIndex keyIndex = KeyIndex.forReading(queue.fileForCycle(cycle))) {
+            if (keyIndex != null && keyIndex.isComplete())
+                return keyIndex.indexes(key);
+        } catch (FileNotFoundException e) {
+            // removed since it was checked, scan the cycle instead
+        }
+
+        final LongStream.Builder found = LongStream.builder();
+        scanCycle(queue, keyExtractor, cycle, (key, index) -> {
+            if (key == this.key)
+                found.add(index);
+            return true;
+        });
+        return found.build().toArray();
+    }
+
+    @FunctionalInterface
+    interface KeyedIndexConsumer {
+        /**
+         * @return false to stop scanning
+         */
+        boolean accept(long key, long index);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Maths;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the positions of excerpts by index, consulted by a tailer before the index of
+ * the store, so repeated seeks to an index, and seeks just after one, don't need an index lookup
+ * and linear scan.
+ * <p>
+ * The cache is direct mapped, a new entry replaces any other in its slot. Each index block of
+ * {@link #BLOCK_SIZE} excerpts also keeps the earliest index of it seen, so a seek to an index
+ * which hasn't been seen only scans from there. The index and position of a slot are held in a
+ * primitive array with a version which is odd while the slot is written, so a cache can be shared
+ * between the tailers of a queue without locking, and a lookup or put doesn't allocate. A reader
+ * which sees the version change treats the slot as a miss, and a writer which finds a slot being
+ * written skips it.
+ */
+public final class PositionCache {
+    static final int BLOCK_SIZE = 16;
+    private static final int BLOCK_BITS = Maths.intLog2(BLOCK_SIZE);
+    // the longs of a slot
+    private static final int VERSION = 0;
+    private static final int INDEX = 1;
+    private static final int POSITION = 2;
+    private static final int SLOT_SIZE = 3;
+    private static final long NO_INDEX = -1;
+
+    private final AtomicLongArray entries;
+    private final AtomicLongArray blocks;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PositionCache(int capacity) {
+        int size = Maths.nextPower2(capacity, 16);
+        this.entries = new AtomicLongArray(size * SLOT_SIZE);
+        this.blocks = new AtomicLongArray(size * SLOT_SIZE);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            entries.set(i * SLOT_SIZE + INDEX, NO_INDEX);
+            blocks.set(i * SLOT_SIZE + INDEX, NO_INDEX);
+        }
+    }
+
+    private int offset(long key) {
+        return ((int) (key ^ (key >>> 32)) * 0x9E3779B9 & mask) * SLOT_SIZE;
+    }
+
+    /**
+     * @return the position of the excerpt at this index, or -1 if it is not cached
+     */
+    long position(long index) {
+        final int offset = offset(index);
+        final long version = entries.get(offset + VERSION);
+        if ((version & 1) == 0 && entries.get(offset + INDEX) == index) {
+            final long position = entries.get(offset + POSITION);
+            if (entries.get(offset + VERSION) == version) {
+                hits.increment();
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the earliest cached excerpt in the same index block before this index.
+     *
+     * @param entry set to the index and position of the excerpt found
+     * @return true if there is one
+     */
+    boolean before(long index, @NotNull Entry entry) {
+        final long block = index >> BLOCK_BITS;
+        final int offset = offset(block);
+        final long version = blocks.get(offset + VERSION);
+        if ((version & 1) == 0) {
+            final long blockIndex = blocks.get(offset + INDEX);
+            final long position = blocks.get(offset + POSITION);
+            if (blocks.get(offset + VERSION) == version
+                    && blockIndex != NO_INDEX && blockIndex < index && blockIndex >> BLOCK_BITS == block) {
+                nearHits.increment();
+                entry.index = blockIndex;
+                entry.position = position;
+                return true;
+            }
+        }
+        misses.increment();
+        return false;
+    }
+
+    void put(long index, long position) {
+        write(entries, offset(index), index, position);
+
+        final long block = index >> BLOCK_BITS;
+        final int blockOffset = offset(block);
+        // an unlocked check, the block may be replaced by a later index of it if it races
+        final long blockIndex = blocks.get(blockOffset + INDEX);
+        if (blockIndex == NO_INDEX || blockIndex >> BLOCK_BITS != block || blockIndex > index)
+            write(blocks, blockOffset, index, position);
+    }
+
+    private static void write(@NotNull AtomicLongArray slots, int offset, long index, long position) {
+        final long version = slots.get(offset + VERSION);
+        // another thread is writing this slot.
+        if ((version & 1) != 0 || !slots.compareAndSet(offset + VERSION, version, version + 1))
+            return;
+        slots.set(offset + INDEX, index);
+        slots.set(offset + POSITION, position);
+        slots.set(offset + VERSION, version + 2);
+    }
+
+    public void clear() {
+        for (int offset = 0; offset < entries.length(); offset += SLOT_SIZE) {
+            write(entries, offset, NO_INDEX, -1);
+            write(blocks, offset, NO_INDEX, -1);
+        }
+    }
+
+    public int capacity() {
+        return entries.length() / SLOT_SIZE;
+    }
+
+    /**
+     * @return the number of seeks to an index found in the cache.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of seeks which scanned from an earlier index found in the cache.
+     */
+    public long nearHits() {
+        return nearHits.sum();
+    }
+
+    /**
+     * @return the number of seeks which used the index of the store.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "PositionCache{" +
+                "capacity=" + capacity() +
+                ", hits=" + hits() +
+                ", nearHits=" + nearHits() +
+                ", misses=" + misses() +
+                '}';
+    }
+
+    /**
+     * The index and position of a cached excerpt, reused by a tailer for each lookup.
+     */
+    static final class Entry {
+        long index;
+        long position;
+    }
+}
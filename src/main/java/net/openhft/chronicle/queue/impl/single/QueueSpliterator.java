@@ -0,0 +1,234 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.WireIn;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
+
+/**
+ * Reads the excerpts in a range of indices, splitting the range first on cycle boundaries and then
+ * on sequence numbers within a cycle. Each part reads with its own tailer, which moves to the
+ * start of its part using the index of the cycle.
+ * <p>
+ * The tailers are released as each part is read to the end. A part which isn't, as the stream was
+ * short-circuited, keeps its tailer until the spliterator it was split from is closed.
+ */
+final class QueueSpliterator<T> implements Spliterator<T>, AutoCloseable {
+    // the smallest number of excerpts in a cycle worth splitting
+    private static final long MIN_SPLIT = 1024;
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final RollCycle rollCycle;
+    @NotNull
+    private final Function<? super WireIn, ? extends T> decoder;
+    // the tailers of this spliterator and those split from it which haven't been released
+    @NotNull
+    private final Set<StoreTailer> openTailers;
+    // the next index to read, and the last index to read
+    private long fromIndex, toIndex;
+    // the number of excerpts in the cycle of toIndex when known
+    private long excerptsInCycle = -1;
+    @Nullable
+    private StoreTailer tailer;
+    private boolean done = false;
+
+    QueueSpliterator(@NotNull SingleChronicleQueue queue, @NotNull Function<? super WireIn, ? extends T> decoder,
+                     long fromIndex, long toIndex) {
+        this(queue, decoder, fromIndex, toIndex, ConcurrentHashMap.newKeySet());
+    }
+
+    private QueueSpliterator(@NotNull SingleChronicleQueue queue, @NotNull Function<? super WireIn, ? extends T> decoder,
+                             long fromIndex, long toIndex, @NotNull Set<StoreTailer> openTailers) {
+        this.queue = queue;
+        this.rollCycle = queue.rollCycle();
+        this.decoder = decoder;
+        this.openTailers = openTailers;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    @Override
+    public boolean tryAdvance(@NotNull Consumer<? super T> action) {
+        if (done)
+            return false;
+        StoreTailer tailer = tailer();
+        if (tailer != null) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (dc.isPresent() && dc.index() <= toIndex) {
+                    fromIndex = dc.index() + 1;
+                    action.accept(decoder.apply(dc.wire()));
+                    return true;
+                }
+            }
+        }
+        finish();
+        return false;
+    }
+
+    @Nullable
+    private StoreTailer tailer() {
+        if (tailer == null) {
+            // start from the first cycle in the range which exists
+            NavigableSet<Long> cycles = cycles();
+            if (cycles.isEmpty())
+                return null;
+            int firstCycle = cycles.first().intValue();
+            if (firstCycle > rollCycle.toCycle(fromIndex))
+                fromIndex = rollCycle.toIndex(firstCycle, 0);
+            StoreTailer tailer = (StoreTailer) queue.createTailer();
+            this.tailer = tailer;
+            openTailers.add(tailer);
+            // fromIndex is past the end of its cycle, so read from the next cycle in the range
+            while (!tailer.moveToIndex(fromIndex)) {
+                Long next = cycles.higher((long) rollCycle.toCycle(fromIndex));
+                if (next == null)
+                    return null;
+                fromIndex = rollCycle.toIndex(next.intValue(), 0);
+            }
+        }
+        return tailer;
+    }
+
+    private void finish() {
+        done = true;
+        if (tailer != null) {
+            if (openTailers.remove(tailer))
+                tailer.releaseResources();
+            tailer = null;
+        }
+    }
+
+    /**
+     * Releases the tailers of this spliterator and of those split from it which have not been read
+     * to the end.
+     */
+    @Override
+    public void close() {
+        done = true;
+        tailer = null;
+        for (StoreTailer openTailer : openTailers) {
+            if (openTailers.remove(openTailer))
+                openTailer.releaseResources();
+        }
+    }
+
+    @Nullable
+    @Override
+    public Spliterator<T> trySplit() {
+        if (done || fromIndex >= toIndex)
+            return null;
+        int fromCycle = rollCycle.toCycle(fromIndex);
+        int toCycle = rollCycle.toCycle(toIndex);
+        if (fromCycle < toCycle) {
+            NavigableSet<Long> cycles = cycles();
+            if (cycles.size() > 1)
+                return split(rollCycle.toIndex(middle(cycles), 0));
+            if (cycles.isEmpty())
+                return null;
+            // only one cycle has excerpts in the range, so split its sequence numbers
+            int cycle = cycles.first().intValue();
+            if (cycle > fromCycle)
+                fromIndex = rollCycle.toIndex(cycle, 0);
+            if (cycle < toCycle) {
+                toIndex = rollCycle.toIndex(cycle + 1, 0) - 1;
+                excerptsInCycle = -1;
+            }
+        }
+
+        long fromSequence = rollCycle.toSequenceNumber(fromIndex);
+        long toSequence = lastSequence();
+        if (toSequence - fromSequence < MIN_SPLIT * 2)
+            return null;
+        return split(rollCycle.toIndex(rollCycle.toCycle(fromIndex), fromSequence + (toSequence - fromSequence + 1) / 2));
+    }
+
+    @NotNull
+    private Spliterator<T> split(long index) {
+        QueueSpliterator<T> upper = new QueueSpliterator<>(queue, decoder, index, toIndex, openTailers);
+        upper.excerptsInCycle = excerptsInCycle;
+        toIndex = index - 1;
+        excerptsInCycle = -1;
+        return upper;
+    }
+
+    /**
+     * @return the last sequence number to read in the cycle of fromIndex, which must also be the
+     * cycle of toIndex
+     */
+    private long lastSequence() {
+        if (excerptsInCycle < 0)
+            excerptsInCycle = queue.exceptsPerCycle(rollCycle.toCycle(toIndex));
+        return Math.min(rollCycle.toSequenceNumber(toIndex), excerptsInCycle - 1);
+    }
+
+    private static int middle(@NotNull NavigableSet<Long> cycles) {
+        Iterator<Long> iterator = cycles.iterator();
+        for (int i = 0; i < cycles.size() / 2; i++)
+            iterator.next();
+        return iterator.next().intValue();
+    }
+
+    /**
+     * @return the cycles in the range which have a file. Either end of the range may be a cycle
+     * without one, so the cycles are listed between the first and last cycles of the queue.
+     */
+    @NotNull
+    private NavigableSet<Long> cycles() {
+        int queueFirstCycle = queue.firstCycle();
+        int queueLastCycle = queue.lastCycle();
+        int firstCycle = Math.max(queueFirstCycle, rollCycle.toCycle(fromIndex));
+        int lastCycle = Math.min(queueLastCycle, rollCycle.toCycle(toIndex));
+        if (firstCycle > lastCycle)
+            return Collections.emptyNavigableSet();
+        try {
+            return queue.listCyclesBetween(queueFirstCycle, queueLastCycle)
+                    .subSet((long) firstCycle, true, (long) lastCycle, true);
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        if (done)
+            return 0;
+        if (rollCycle.toCycle(fromIndex) != rollCycle.toCycle(toIndex))
+            return Long.MAX_VALUE;
+        return Math.max(0, lastSequence() - rollCycle.toSequenceNumber(fromIndex) + 1);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.queue.SyncPolicy;
+import net.openhft.chronicle.threads.EventGroup;
+import net.openhft.chronicle.wire.UnrecoverableTimeoutException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.NavigableSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Forces the cycle files written by the appenders of a queue to disk according to its {@link
+ * SyncPolicy}, and publishes the index up to which the messages are durable.
+ * <p>
+ * The mapped pages are written with an fsync of the cycle file, which only writes the pages
+ * which are dirty.
+ * <p>
+ * Each group commit forces the whole cycle file with {@link FileChannel#force(boolean)}, not just
+ * the range written since the last durable index, as a FileChannel has no way to force a range
+ * and the mapping of the file isn't held here to msync part of it. The cost of a commit therefore
+ * depends on how many pages of the file are dirty, not on the messages it makes durable. A
+ * commit covers the messages appended before it starts; any appended while it runs wait for the
+ * next one.
+ */
+final class QueueSyncer implements EventHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(QueueSyncer.class);
+    private static final long IDLE_PARK_NS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final SyncPolicy policy;
+    private final AtomicInteger appendedCycle = new AtomicInteger(Integer.MIN_VALUE);
+    private final AtomicLong appendedIndex = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong appendedCount = new AtomicLong();
+    @NotNull
+    private final EventLoop eventLoop;
+    private final boolean createdEventLoop;
+    private volatile long syncedCount = 0;
+    private volatile long durableIndex = Long.MIN_VALUE;
+    private volatile Thread syncThread;
+    private volatile boolean closed = false;
+    private long lastSyncNS = System.nanoTime();
+    private int channelCycle = Integer.MIN_VALUE;
+    @Nullable
+    private FileChannel channel;
+
+    QueueSyncer(@NotNull SingleChronicleQueue queue, @NotNull SyncPolicy policy) {
+        this.queue = queue;
+        this.policy = policy;
+
+        EventLoop eventLoop = queue.eventLoop();
+        this.createdEventLoop = eventLoop == null;
+        if (createdEventLoop)
+            eventLoop = new EventGroup(true);
+        this.eventLoop = eventLoop;
+        eventLoop.addHandler(this);
+        if (createdEventLoop)
+            eventLoop.start();
+    }
+
+    boolean isPerMessage() {
+        return policy.isPerMessage();
+    }
+
+    /**
+     * Called by an appender after messages have been written.
+     *
+     * @param index    of the last message or Long.MIN_VALUE if not known as it was lazily indexed
+     * @param messages the number of messages written
+     * @return a count to wait for with {@link #awaitSynced(long, long)}
+     */
+    long appended(int cycle, long index, int messages) {
+        appendedCycle.accumulateAndGet(cycle, Math::max);
+        if (index != Long.MIN_VALUE)
+            appendedIndex.accumulateAndGet(index, Math::max);
+        long count = appendedCount.addAndGet(messages);
+        if (policy.isPerMessage()) {
+            Thread syncThread = this.syncThread;
+            if (syncThread != null)
+                LockSupport.unpark(syncThread);
+        }
+        return count;
+    }
+
+    /**
+     * @return the highest index written by this process which is known to be on disk, or
+     * Long.MIN_VALUE if there isn't one. Lazily indexed messages don't advance it.
+     */
+    long durableIndex() {
+        return durableIndex;
+    }
+
+    /**
+     * Wait until the messages counted by {@link #appended(int, long, int)} have been synced.
+     */
+    void awaitSynced(long count, long timeoutMS) throws UnrecoverableTimeoutException {
+        if (syncedCount >= count)
+            return;
+        long end = System.currentTimeMillis() + timeoutMS;
+        while (syncedCount < count) {
+            if (closed)
+                throw new IllegalStateException("Queue is closed");
+            if (System.currentTimeMillis() > end)
+                throw new UnrecoverableTimeoutException(new TimeoutException("Message not synced after " + timeoutMS + " ms"));
+            LockSupport.parkNanos(this, IDLE_PARK_NS / 10);
+        }
+    }
+
+    /**
+     * Wait until the message at {@code index} is durable.
+     *
+     * @return true if it is durable, false if it timed out.
+     */
+    boolean awaitDurable(long index, long timeout, @NotNull TimeUnit unit) {
+        long end = System.nanoTime() + unit.toNanos(timeout);
+        while (durableIndex < index) {
+            if (closed || System.nanoTime() > end)
+                return durableIndex >= index;
+            LockSupport.parkNanos(this, IDLE_PARK_NS / 10);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed)
+            throw new InvalidEventHandlerException();
+        syncThread = Thread.currentThread();
+
+        if (syncIfDue())
+            return true;
+        // this runs on its own thread, so wait for more messages or an unpark.
+        LockSupport.parkNanos(this, parkNanos());
+        return false;
+    }
+
+    private long parkNanos() {
+        long intervalNanos = policy.intervalNanos();
+        if (intervalNanos == 0)
+            return IDLE_PARK_NS;
+        return Math.max(1, Math.min(IDLE_PARK_NS, lastSyncNS + intervalNanos - System.nanoTime()));
+    }
+
+    private boolean syncIfDue() {
+        long count = appendedCount.get();
+        if (count == syncedCount)
+            return false;
+        long now = System.nanoTime();
+        boolean due;
+        if (policy.messages() > 0)
+            due = count - syncedCount >= policy.messages();
+        else if (policy.intervalNanos() > 0)
+            due = now - lastSyncNS >= policy.intervalNanos();
+        else
+            due = true;
+        if (due)
+            sync();
+        return due;
+    }
+
+    private synchronized void sync() {
+        // read these before the sync, so every message they include has been written.
+        final long count = appendedCount.get();
+        final long index = appendedIndex.get();
+        final int cycle = appendedCycle.get();
+        if (count == syncedCount)
+            return;
+        try {
+            force(cycle);
+        } catch (IOException e) {
+            LOG.warn("Unable to sync cycle " + cycle, e);
+            return;
+        }
+        lastSyncNS = System.nanoTime();
+        if (index > durableIndex)
+            durableIndex = index;
+        syncedCount = count;
+    }
+
+    private void force(int cycle) throws IOException {
+        if (cycle != channelCycle) {
+            // finish the previous cycles, before moving to the next.
+            int previousCycle = channelCycle;
+            closeChannel();
+            if (previousCycle != Integer.MIN_VALUE && previousCycle + 1 < cycle)
+                forceCyclesBetween(previousCycle + 1, cycle - 1);
+            channel = FileChannel.open(queue.fileForCycle(cycle).toPath(), StandardOpenOption.WRITE);
+            channelCycle = cycle;
+        }
+        assert channel != null;
+        channel.force(false);
+    }
+
+    private void forceCyclesBetween(int lowerCycle, int upperCycle) throws IOException {
+        final NavigableSet<Long> cycles;
+        try {
+            cycles = queue.listCyclesBetween(lowerCycle, upperCycle);
+        } catch (ParseException e) {
+            throw new IOException(e);
+        }
+        for (Long c : cycles) {
+            try (FileChannel fc = FileChannel.open(queue.fileForCycle(c.intValue()).toPath(), StandardOpenOption.WRITE)) {
+                fc.force(false);
+            }
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        FileChannel channel = this.channel;
+        if (channel == null)
+            return;
+        this.channel = null;
+        channelCycle = Integer.MIN_VALUE;
+        try {
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.BLOCKING;
+    }
+
+    /**
+     * Sync the messages written so far and stop.
+     */
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+        Thread syncThread = this.syncThread;
+        if (syncThread != null)
+            LockSupport.unpark(syncThread);
+        if (createdEventLoop)
+            eventLoop.close();
+
+        synchronized (this) {
+            sync();
+            try {
+                closeChannel();
+            } catch (IOException e) {
+                LOG.warn("Unable to sync cycle on close", e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QueueSyncer{" +
+                "policy=" + policy +
+                ", durableIndex=" + Long.toHexString(durableIndex) +
+                ", syncedCount=" + syncedCount +
+                '}';
+    }
+}
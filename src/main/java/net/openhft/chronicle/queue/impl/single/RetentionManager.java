@@ -0,0 +1,325 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.queue.RollCycle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class designed to be called from a long-lived thread.
+ *
+ * Upon invocation of the {@code execute()} method, this object will remove the oldest cycles of
+ * the supplied queue while any of its rules is broken, by deleting their files, or moving them to
+ * an archive directory. The rules are checked at most once per check interval.
+ *
+ * The current cycle is never removed, nor a cycle held by an appender or tailer of the queue, nor
+ * one at or after the persisted index of a protected named tailer. Cycles are removed oldest first
+ * and removal stops at the first cycle which has to be kept, so no gaps are left. A cycle is taken
+ * out of the directory listing before its file is removed, so tailers moving to the start go to
+ * the next cycle.
+ *
+ * Optionally, the files of sealed cycles which are kept are truncated after their EOF.
+ *
+ * Tailers of other processes are only protected by naming them with {@link #protectTailers}.
+ * Files are never reused, as another process can still have them mapped, only unlinked or moved.
+ */
+public final class RetentionManager {
+    private static final Logger LOG = LoggerFactory.getLogger(RetentionManager.class);
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final RollCycle rollCycle;
+    private int maxCycles = 0;
+    private long maxAgeMS = 0;
+    private long maxBytes = 0;
+    private long minFreeBytes = 0;
+    private long checkIntervalMS = 1_000;
+    @NotNull
+    private List<String> protectedTailers = Collections.emptyList();
+    @Nullable
+    private File archiveDir;
+    // protected tailers which haven't read anything, warned of once each
+    private final Set<String> warnedTailers = new HashSet<>();
+    private boolean truncateSealedCycles = false;
+    private long lastCheckMS = Long.MIN_VALUE;
+    // the cycles before this have been truncated, if they were sealed
+    private int truncatedToCycle = Integer.MIN_VALUE;
+
+    private final AtomicLong removedCycles = new AtomicLong();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+    private final AtomicLong keptCycles = new AtomicLong();
+
+    public RetentionManager(@NotNull final SingleChronicleQueue queue) {
+        if (queue.isReadOnly())
+            throw new IllegalArgumentException("Can't remove cycles of a read-only chronicle");
+        this.queue = queue;
+        this.rollCycle = queue.rollCycle();
+    }
+
+    /**
+     * @param maxCycles the number of cycles to keep, or 0 for no limit
+     * @return this
+     */
+    public RetentionManager maxCycles(int maxCycles) {
+        this.maxCycles = Math.max(0, maxCycles);
+        return this;
+    }
+
+    /**
+     * @param maxAgeMS how long after the end of a cycle it is kept, or 0 for no limit
+     * @return this
+     */
+    public RetentionManager maxAgeMS(long maxAgeMS) {
+        this.maxAgeMS = Math.max(0, maxAgeMS);
+        return this;
+    }
+
+    /**
+     * @param maxBytes the total size of the cycle files to keep, or 0 for no limit
+     * @return this
+     */
+    public RetentionManager maxBytes(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        return this;
+    }
+
+    /**
+     * @param minFreeBytes the space to keep free on the disk of the queue, or 0 for no limit
+     * @return this
+     */
+    public RetentionManager minFreeBytes(long minFreeBytes) {
+        this.minFreeBytes = Math.max(0, minFreeBytes);
+        return this;
+    }
+
+    /**
+     * @param checkIntervalMS the minimum time between checks of the rules
+     * @return this
+     */
+    public RetentionManager checkIntervalMS(long checkIntervalMS) {
+        this.checkIntervalMS = checkIntervalMS;
+        return this;
+    }
+
+    /**
+     * @param tailerIds named tailers which haven't read a cycle yet, possibly in another process,
+     *                  so it is kept. Until a tailer has read something, no cycles are removed.
+     * @return this
+     */
+    public RetentionManager protectTailers(@NotNull String... tailerIds) {
+        this.protectedTailers = new ArrayList<>();
+        Collections.addAll(protectedTailers, tailerIds);
+        warnedTailers.clear();
+        return this;
+    }
+
+    /**
+     * @param archiveDir the directory removed cycles are moved to, or null to delete them
+     * @return this
+     */
+    public RetentionManager archiveDir(@Nullable File archiveDir) {
+        this.archiveDir = archiveDir;
+        return this;
+    }
+
+    /**
+     * @param truncateSealedCycles if true the files of sealed cycles are truncated after their EOF,
+     *                             once the next cycle has rolled too, so no appender can still be
+     *                             writing to them, see {@link SingleChronicleQueueBuilder#sealCycles(boolean)}
+     * @return this
+     */
+    public RetentionManager truncateSealedCycles(boolean truncateSealedCycles) {
+        this.truncateSealedCycles = truncateSealedCycles;
+        return this;
+    }
+
+    /**
+     * Remove cycles while any rule is broken, and truncate sealed cycles, if the check interval
+     * has passed.
+     *
+     * @return true if any cycles were removed
+     */
+    public boolean execute() {
+        final long now = queue.time().currentTimeMillis();
+        if (lastCheckMS != Long.MIN_VALUE && now - lastCheckMS < checkIntervalMS)
+            return false;
+        lastCheckMS = now;
+        if (queue.isClosed())
+            return false;
+
+        final int firstCycle = queue.firstCycle();
+        final int lastCycle = queue.lastCycle();
+        if (firstCycle >= lastCycle)
+            return false;
+        final NavigableSet<Long> cycles;
+        try {
+            cycles = queue.listCyclesBetween(firstCycle, lastCycle);
+        } catch (ParseException | IllegalStateException e) {
+            // a cycle was removed in the meantime
+            Jvm.debug().on(getClass(), "Unable to list the cycles " + e);
+            return false;
+        }
+
+        long totalBytes = 0;
+        if (maxBytes > 0)
+            for (Long cycle : cycles)
+                totalBytes += queue.fileForCycle(cycle.intValue()).length();
+        long freeBytes = minFreeBytes > 0 ? queue.file().getUsableSpace() : Long.MAX_VALUE;
+        final int protectedFrom = protectedFromCycle();
+
+        int remaining = cycles.size();
+        boolean removed = false;
+        for (Long cycleL : cycles) {
+            final int cycle = cycleL.intValue();
+            if (cycle >= lastCycle || !isExpired(cycle, now, remaining, totalBytes, freeBytes))
+                break;
+            if (cycle >= protectedFrom || queue.isCycleInUse(cycle)) {
+                keptCycles.incrementAndGet();
+                break;
+            }
+            final long bytes = remove(cycle);
+            totalBytes -= bytes;
+            freeBytes += bytes;
+            remaining--;
+            removed = true;
+        }
+        if (truncateSealedCycles)
+            truncateSealed(cycles, lastCycle);
+        return removed;
+    }
+
+    private void truncateSealed(@NotNull NavigableSet<Long> cycles, int lastCycle) {
+        // the cycle before the last can still have an appender finishing with it
+        final Long previousCycle = cycles.lower((long) lastCycle);
+        if (previousCycle == null)
+            return;
+        for (Long cycleL : cycles.tailSet((long) truncatedToCycle, true)) {
+            final int cycle = cycleL.intValue();
+            if (cycle >= previousCycle)
+                break;
+            if (!queue.fileForCycle(cycle).exists())
+                continue;
+            queue.truncateSealedCycle(cycle);
+            truncatedToCycle = cycle + 1;
+        }
+    }
+
+    private boolean isExpired(int cycle, long now, int remaining, long totalBytes, long freeBytes) {
+        if (maxCycles > 0 && remaining > maxCycles)
+            return true;
+        if (maxAgeMS > 0 && (cycle + 1L) * rollCycle.length() + queue.epoch() + maxAgeMS < now)
+            return true;
+        if (maxBytes > 0 && totalBytes > maxBytes)
+            return true;
+        return freeBytes < minFreeBytes;
+    }
+
+    /**
+     * @return the first cycle a protected tailer still has to read
+     */
+    private int protectedFromCycle() {
+        int from = Integer.MAX_VALUE;
+        for (String id : protectedTailers) {
+            final long index = queue.tailerIndex(id);
+            // hasn't read anything, so it starts from the first cycle. Or the id is wrong, and
+            // nothing would be removed until it is fixed
+            if (index == Long.MIN_VALUE) {
+                if (warnedTailers.add(id))
+                    LOG.warn("No cycles of {} are removed until the protected tailer {} has read an excerpt, " +
+                            "check the tailer has been created with this id", queue.file(), id);
+                return Integer.MIN_VALUE;
+            }
+            from = Math.min(from, rollCycle.toCycle(index));
+        }
+        return from;
+    }
+
+    /**
+     * @return the number of bytes reclaimed
+     */
+    private long remove(int cycle) {
+        final File file = queue.fileForCycle(cycle);
+        queue.onCycleRemoved(cycle);
+
+        long bytes = 0;
+        for (File sidecar : new File[]{TimeIndex.fileFor(file), KeyIndex.fileFor(file)})
+            bytes += removeFile(sidecar);
+        bytes += removeFile(file);
+        removedCycles.incrementAndGet();
+        reclaimedBytes.addAndGet(bytes);
+        LOG.debug("Removed cycle {} {} reclaiming {} bytes", cycle, file, bytes);
+        return bytes;
+    }
+
+    private long removeFile(@NotNull File file) {
+        final long length = file.length();
+        if (length == 0 && !file.exists())
+            return 0;
+        if (archiveDir != null) {
+            try {
+                archiveDir.mkdirs();
+                Files.move(file.toPath(), new File(archiveDir, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                LOG.warn("Unable to archive " + file, e);
+                return 0;
+            }
+        } else if (!file.delete() && file.exists()) {
+            LOG.warn("Unable to delete " + file);
+            return 0;
+        }
+        return length;
+    }
+
+    /**
+     * @return the number of cycles removed
+     */
+    public long removedCycles() {
+        return removedCycles.get();
+    }
+
+    /**
+     * @return the number of bytes of the files removed, or moved to the archive directory
+     */
+    public long reclaimedBytes() {
+        return reclaimedBytes.get();
+    }
+
+    /**
+     * @return the number of times a cycle which broke a rule was kept as it was in use or still
+     * had to be read by a protected tailer
+     */
+    public long keptCycles() {
+        return keptCycles.get();
+    }
+}
@@ -3,23 +3,107 @@ package net.openhft.chronicle.queue.impl.single;
 import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.values.LongValue;
 import net.openhft.chronicle.wire.Sequence;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.function.LongBinaryOperator;
 
+/**
+ * Holds the position of the last excerpt written to a store with its sequence number in one long,
+ * the position in the upper bits and the sequence number in the lower bits.
+ * <p>
+ * The sequence number takes as many bits as the index of the roll cycle can address, up to 31, and
+ * the position the rest of the 63 bits, so positions of at least 4 GB can be recorded. As every
+ * excerpt takes at least 4 bytes, the sequence number of an excerpt in the first 4 GB always fits.
+ * Pairs which don't fit aren't recorded and readers fall back to the index.
+ * <p>
+ * Stores written by earlier versions hold the excerpt header in place of the sequence number. Those
+ * values are only trusted if they are consistent with the write position of the store, and are
+ * replaced by the next appender to record a pair.
+ */
 class RollCycleEncodeSequence implements Sequence {
+    private static final int MAX_SEQUENCE_BITS = 31;
+
     private final LongValue sequenceValue;
-    private int cycleShift = 0;
-    private long sequenceMask = 0;
+    @Nullable
+    private final LongValue writePosition;
+    private final int cycleShift;
+    private final long sequenceMask;
+    private final long maxPosition;
 
     RollCycleEncodeSequence(LongValue sequenceValue, int indexCount, int indexSpacing) {
+        this(sequenceValue, null, indexCount, indexSpacing, SCQIndexing.TWO_LEVELS);
+    }
+
+    /**
+     * @param sequenceValue the value of the header the pair is held in, or null if there isn't one
+     * @param writePosition the write position of the store, if known pairs beyond it are replaced
+     */
+    RollCycleEncodeSequence(LongValue sequenceValue, @Nullable LongValue writePosition, int indexCount, int indexSpacing, int indexLevels) {
         this.sequenceValue = sequenceValue;
-        cycleShift = Math.max(32, Maths.intLog2(indexCount) * 2 + Maths.intLog2(indexSpacing));
+        this.writePosition = writePosition;
+        cycleShift = Math.min(MAX_SEQUENCE_BITS, Maths.intLog2(indexCount) * indexLevels + Maths.intLog2(indexSpacing));
         sequenceMask = (1L << cycleShift) - 1;
+        maxPosition = Long.MAX_VALUE >>> cycleShift;
     }
 
+    /**
+     * Records the sequence number of the excerpt at a write position. The pair is only replaced by
+     * one for a later excerpt, so an appender which is slow to publish can't replace the pair of
+     * another appender which has written after it.
+     *
+     * @param sequence the sequence number of the excerpt
+     * @param position the position of the excerpt
+     */
     @Override
     public void sequence(long sequence, long position) {
-        if (sequenceValue != null)
-            sequenceValue.setOrderedValue(toLongValue((int) sequence, position));
+        if (sequenceValue == null || !fits(position, sequence))
+            return;
+        final long value = toLongValue(position, sequence);
+        for (; ; ) {
+            final long current = sequenceValue.getVolatileValue();
+            if (isValid(current) && toPosition(current) >= position)
+                return;
+            if (sequenceValue.compareAndSwapValue(current, value))
+                return;
+        }
+    }
+
+    /**
+     * Records the sequence number of the excerpt at a write position when the appender doesn't know
+     * it, by counting the excerpts written since the pair recorded last.
+     *
+     * @param position        the position of the excerpt
+     * @param excerptsBetween the number of excerpts after the first position up to and including the
+     *                        second, or -1 if it can't be counted cheaply
+     */
+    void sequenceAfter(long position, LongBinaryOperator excerptsBetween) {
+        if (sequenceValue == null)
+            return;
+        for (; ; ) {
+            final long current = sequenceValue.getVolatileValue();
+            final long currentPosition;
+            final long currentSequence;
+            if (current == 0) {
+                // nothing recorded, count from the header of the store
+                currentPosition = 0;
+                currentSequence = -1;
+            } else if (isValid(current)) {
+                currentPosition = toPosition(current);
+                currentSequence = toSequenceNumber(current);
+            } else {
+                return;
+            }
+            if (currentPosition >= position)
+                return;
+            final long excerpts = excerptsBetween.applyAsLong(currentPosition, position);
+            if (excerpts <= 0)
+                return;
+            final long sequence = currentSequence + excerpts;
+            if (!fits(position, sequence))
+                return;
+            if (sequenceValue.compareAndSwapValue(current, toLongValue(position, sequence)))
+                return;
+        }
     }
 
     /**
@@ -34,25 +118,48 @@ class RollCycleEncodeSequence implements Sequence {
         if (sequenceValue == null)
             return -1;
 
-        // todo optimize the maths in the method below
-        final int lowerBitsOfWp = toLowerBitsWritePosition(toLongValue((int) writePosition, 0));
         final long sequenceValue = this.sequenceValue.getVolatileValue();
+        // nothing recorded, position 0 is the header of the store
+        if (sequenceValue == 0 || toPosition(sequenceValue) != writePosition)
+            return -1;
 
-        if (lowerBitsOfWp == toLowerBitsWritePosition(sequenceValue))
-            return toSequenceNumber(sequenceValue);
+        final long sequenceNumber = toSequenceNumber(sequenceValue);
+        return isPlausible(writePosition, sequenceNumber) ? sequenceNumber : -1;
+    }
 
-        return -1;
+    private boolean fits(long position, long sequenceNumber) {
+        return position > 0 && position <= maxPosition
+                && sequenceNumber >= 0 && sequenceNumber <= sequenceMask;
+    }
+
+    // every excerpt before the one at this position takes at least 4 bytes
+    private static boolean isPlausible(long position, long sequenceNumber) {
+        return sequenceNumber < (position >>> 2);
+    }
+
+    /**
+     * @return false if nothing is recorded, or the value can't be a pair recorded by this class as it
+     * is beyond the write position of the store or its sequence number is too high for its position.
+     */
+    private boolean isValid(long value) {
+        if (value <= 0)
+            return false;
+        final long position = toPosition(value);
+        if (!isPlausible(position, toSequenceNumber(value)))
+            return false;
+        // the write position is always moved on before the pair is recorded
+        return writePosition == null || position <= writePosition.getVolatileValue();
     }
 
-    private long toLongValue(int cycle, long sequenceNumber) {
-        return ((long) cycle << cycleShift) + (sequenceNumber & sequenceMask);
+    private long toLongValue(long position, long sequenceNumber) {
+        return (position << cycleShift) | sequenceNumber;
     }
 
-    private long toSequenceNumber(long index) {
-        return index & sequenceMask;
+    private long toSequenceNumber(long value) {
+        return value & sequenceMask;
     }
 
-    private int toLowerBitsWritePosition(long index) {
-        return Maths.toUInt31(index >> cycleShift);
+    private long toPosition(long value) {
+        return value >>> cycleShift;
     }
 }
@@ -47,8 +47,12 @@ import static net.openhft.chronicle.wire.Wires.NOT_INITIALIZED;
  * Created by Peter Lawrey on 22/05/16.
  */
 class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
+    static final int TWO_LEVELS = 2;
+    static final int THREE_LEVELS = 3;
+
     private final int indexCount, indexCountBits;
     private final int indexSpacing, indexSpacingBits;
+    private final int indexLevels;
     private final LongValue index2Index;
     private final LongValue nextEntryToBeIndexed;
     private final Supplier<LongArrayValues> longArraySupplier;
@@ -57,6 +61,15 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
     @NotNull
     private final ThreadLocal<WeakReference<LongArrayValuesHolder>> indexArray;
     @NotNull
+    private final ThreadLocal<WeakReference<LongArrayValuesHolder>> midIndexArray;
+    @NotNull
+    private final SealedIndexArrays sealedIndexArrays;
+    @NotNull
+    private final SealedIndexArrays sealedMidIndexArrays;
+    // bound once by the first thread to read it, as it never moves
+    @Nullable
+    private volatile LongArrayValues sharedIndex2indexArray;
+    @NotNull
     private final WriteMarshallable index2IndexTemplate;
     @NotNull
     private final WriteMarshallable indexTemplate;
@@ -74,23 +87,43 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
                 wire.read(IndexingFields.indexSpacing).int32(),
                 wire.read(IndexingFields.index2Index).int64ForBinding(wire.newLongReference()),
                 wire.read(IndexingFields.lastIndex).int64ForBinding(wire.newLongReference()),
-                wire::newLongArrayReference);
+                wire::newLongArrayReference,
+                readIndexLevels(wire));
     }
 
     SCQIndexing(@NotNull WireType wireType, int indexCount, int indexSpacing) {
-        this(indexCount, indexSpacing, wireType.newLongReference().get(), wireType.newLongReference().get(), wireType.newLongArrayReference());
+        this(wireType, indexCount, indexSpacing, TWO_LEVELS);
+    }
+
+    SCQIndexing(@NotNull WireType wireType, int indexCount, int indexSpacing, int indexLevels) {
+        this(indexCount, indexSpacing, wireType.newLongReference().get(), wireType.newLongReference().get(), wireType.newLongArrayReference(), indexLevels);
     }
 
     public SCQIndexing(int indexCount, int indexSpacing, LongValue index2Index, LongValue nextEntryToBeIndexed, Supplier<LongArrayValues> longArraySupplier) {
+        this(indexCount, indexSpacing, index2Index, nextEntryToBeIndexed, longArraySupplier, TWO_LEVELS);
+    }
+
+    /**
+     * With two levels, the index2index holds the addresses of the index arrays. With three levels,
+     * it holds the addresses of further index2index arrays, which hold the addresses of the index
+     * arrays, so the arrays can be much smaller for the same number of excerpts.
+     */
+    SCQIndexing(int indexCount, int indexSpacing, LongValue index2Index, LongValue nextEntryToBeIndexed, Supplier<LongArrayValues> longArraySupplier, int indexLevels) {
+        if (indexLevels != TWO_LEVELS && indexLevels != THREE_LEVELS)
+            throw new IllegalArgumentException("indexLevels: " + indexLevels);
         this.indexCount = indexCount;
         this.indexCountBits = Maths.intLog2(indexCount);
         this.indexSpacing = indexSpacing;
         this.indexSpacingBits = Maths.intLog2(indexSpacing);
+        this.indexLevels = indexLevels;
         this.index2Index = index2Index;
         this.nextEntryToBeIndexed = nextEntryToBeIndexed;
         this.longArraySupplier = longArraySupplier;
         this.index2indexArray = new ThreadLocal<>();
         this.indexArray = new ThreadLocal<>();
+        this.midIndexArray = new ThreadLocal<>();
+        this.sealedIndexArrays = new SealedIndexArrays(leafCount(), indexCountBits);
+        this.sealedMidIndexArrays = new SealedIndexArrays(indexCount, indexCountBits);
         this.index2IndexTemplate = w -> w.writeEventName(() -> "index2index").int64array(indexCount);
         this.indexTemplate = w -> w.writeEventName(() -> "index").int64array(indexCount);
     }
@@ -105,6 +138,27 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         return ThreadLocalHelper.getTL(indexArray, longArraySupplier, las -> new LongArrayValuesHolder(las.get()));
     }
 
+    @Nullable
+    private LongArrayValuesHolder getMidIndexArray() {
+        return ThreadLocalHelper.getTL(midIndexArray, longArraySupplier, las -> new LongArrayValuesHolder(las.get()));
+    }
+
+    private static int readIndexLevels(@NotNull WireIn wire) {
+        // stores written before there was a choice have two levels.
+        if (wire.bytes().readRemaining() > 0)
+            return wire.read(IndexingFields.indexLevels).int32();
+        return TWO_LEVELS;
+    }
+
+    /**
+     * @param indexCount the number of entries in each index array of a two level index
+     * @return the number of entries in each array of a three level index which indexes at least
+     * as many excerpts.
+     */
+    static int threeLevelIndexCount(int indexCount) {
+        return 1 << ((2 * Maths.intLog2(indexCount) + 2) / 3);
+    }
+
     public long toAddress0(long index) {
         long siftedIndex = index >> (indexSpacingBits + indexCountBits);
         long mask = indexCount - 1L;
@@ -112,6 +166,57 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         return mask & siftedIndex;
     }
 
+    /**
+     * @return the number of the index array which holds the position of this sequence number
+     */
+    private long toLeaf(long sequenceNumber) {
+        return sequenceNumber >>> (indexCountBits + indexSpacingBits);
+    }
+
+    private long leafCount() {
+        return indexLevels == THREE_LEVELS ? (long) indexCount << indexCountBits : indexCount;
+    }
+
+    /**
+     * @return the address of an index array, or 0 if it hasn't been created.
+     */
+    private long leafAddress(@NotNull Wire wire, @NotNull LongArrayValues index2indexArr, long leaf) {
+        if (indexLevels == TWO_LEVELS)
+            return index2indexArr.getValueAt(leaf);
+        long midAddress = index2indexArr.getValueAt(leaf >>> indexCountBits);
+        if (midAddress <= 0)
+            return 0;
+        return midArrayForAddress(wire, leaf >>> indexCountBits, midAddress).getValueAt(leaf & (indexCount - 1));
+    }
+
+    /**
+     * @return the address of an index array, creating it and any index2index array above it if
+     * need be.
+     */
+    private long acquireLeafAddress(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, long timeoutMS, @NotNull LongArrayValues index2indexArr, long leaf)
+            throws EOFException, UnrecoverableTimeoutException, StreamCorruptedException {
+        if (indexLevels == TWO_LEVELS)
+            return getSecondaryAddress(recovery, ec, timeoutMS, index2indexArr, (int) leaf, false);
+        long midAddress = getSecondaryAddress(recovery, ec, timeoutMS, index2indexArr, (int) (leaf >>> indexCountBits), true);
+        if (midAddress <= 0)
+            return midAddress;
+        LongArrayValues midArr = midArrayForAddress(ec.wireForIndex(), leaf >>> indexCountBits, midAddress);
+        return getSecondaryAddress(recovery, ec, timeoutMS, midArr, (int) (leaf & (indexCount - 1)), false);
+    }
+
+    /**
+     * @return the number of the last index array created, or -1 if there isn't one.
+     */
+    private long lastLeaf(@NotNull Wire wire, @NotNull LongArrayValues index2indexArr, int used2) {
+        if (indexLevels == TWO_LEVELS || used2 == 0)
+            return used2 - 1;
+        long firstLeaf = (long) (used2 - 1) << indexCountBits;
+        long midAddress = index2indexArr.getVolatileValueAt(used2 - 1);
+        if (midAddress <= 0)
+            return firstLeaf - 1;
+        return firstLeaf + Maths.toUInt31(midArrayForAddress(wire, used2 - 1, midAddress).getUsed()) - 1;
+    }
+
     long toAddress1(long index) {
         long siftedIndex = index >> indexSpacingBits;
         long mask = indexCount - 1L;
@@ -129,6 +234,8 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
                 .write(IndexingFields.indexSpacing).int64(indexSpacing)
                 .write(IndexingFields.index2Index).int64forBinding(0L, index2Index)
                 .write(IndexingFields.lastIndex).int64forBinding(0L, nextEntryToBeIndexed);
+        if (indexLevels != TWO_LEVELS)
+            wire.write(IndexingFields.indexLevels).int32(indexLevels);
         // todo add later.
 //                .writeComment("the NEXT number to be indexed");
     }
@@ -190,15 +297,57 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         throw new TimeoutException("index2index NOT_COMPLETE for too long.");
     }
 
+    /**
+     * @param leaf             the number of the index array
+     * @param secondaryAddress the address of the index array
+     */
     @NotNull
-    private LongArrayValues arrayForAddress(@NotNull Wire wire, long secondaryAddress) {
+    private LongArrayValues arrayForAddress(@NotNull Wire wire, long leaf, long secondaryAddress) {
+        LongArrayValues sealed = sealedIndexArrays.get(leaf);
+        if (sealed != null)
+            return sealed;
         LongArrayValuesHolder holder = getIndexArray();
-        if (holder.address == secondaryAddress)
-            return holder.values;
-        holder.address = secondaryAddress;
-        wire.bytes().readPositionRemaining(secondaryAddress, 4); // to read the header.
+        if (holder.address != secondaryAddress) {
+            holder.address = secondaryAddress;
+            bindArray(wire, secondaryAddress, holder.values, false);
+        }
+        return sealIfFull(sealedIndexArrays, wire, leaf, secondaryAddress, holder.values, false);
+    }
+
+    /**
+     * @param mid        the number of the index2index array below the top one
+     * @param midAddress the address of the index2index array
+     */
+    @NotNull
+    private LongArrayValues midArrayForAddress(@NotNull Wire wire, long mid, long midAddress) {
+        LongArrayValues sealed = sealedMidIndexArrays.get(mid);
+        if (sealed != null)
+            return sealed;
+        LongArrayValuesHolder holder = getMidIndexArray();
+        if (holder.address != midAddress) {
+            holder.address = midAddress;
+            bindArray(wire, midAddress, holder.values, true);
+        }
+        return sealIfFull(sealedMidIndexArrays, wire, mid, midAddress, holder.values, true);
+    }
+
+    /**
+     * @return the shared view of the array if it is full, otherwise the view of this thread, which
+     * will be rebound to other arrays.
+     */
+    @NotNull
+    private LongArrayValues sealIfFull(@NotNull SealedIndexArrays sealed, @NotNull Wire wire, long array, long address,
+                                       @NotNull LongArrayValues values, boolean index2index) {
+        if (values.getUsed() < indexCount)
+            return values;
+        return sealed.add(array, bindArray(wire, address, longArraySupplier.get(), index2index));
+    }
+
+    @NotNull
+    private LongArrayValues bindArray(@NotNull Wire wire, long address, @NotNull LongArrayValues using, boolean index2index) {
+        wire.bytes().readPositionRemaining(address, 4); // to read the header.
         wire.readMetaDataHeader();
-        return array(wire, holder.values, false);
+        return array(wire, using, index2index);
     }
 
     @NotNull
@@ -239,14 +388,14 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         return position;
     }
 
-    long newIndex(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, @NotNull LongArrayValues index2Index, long index2, long timeoutMS)
+    long newIndex(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, @NotNull LongArrayValues index2Index, long index2, long timeoutMS, boolean index2index)
             throws EOFException, UnrecoverableTimeoutException, StreamCorruptedException, TimeoutException {
         try {
             if (index2Index.compareAndSet(index2, NOT_INITIALIZED, BinaryLongReference.LONG_NOT_COMPLETE)) {
                 //     System.out.println("newIndex : A - index2=" + index2 + ",value=" + index2Index
                 //           .getVolatileValueAt(index2) + ",Thread=" + Thread.currentThread()
                 //         .hashCode());
-                long pos = newIndex(recovery, ec, false, timeoutMS);
+                long pos = newIndex(recovery, ec, index2index, timeoutMS);
                 if (pos < 0)
                     throw new IllegalStateException("pos: " + pos);
 
@@ -329,12 +478,12 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
 
         try {
             LongArrayValues index2index = getIndex2index(recovery, ec, ec.timeoutMS());
-            long primaryOffset = toAddress0(index);
+            long primaryOffset = indexLevels == TWO_LEVELS ? toAddress0(index) : Math.min(toLeaf(index), leafCount() - 1);
 
             long secondaryAddress = 0;
             long startIndex = index & ~(indexSpacing - 1);
             while (primaryOffset >= 0) {
-                secondaryAddress = index2index.getValueAt(primaryOffset);
+                secondaryAddress = leafAddress(ec.wireForIndex(), index2index, primaryOffset);
                 if (secondaryAddress == 0) {
                     startIndex -= indexCount * indexSpacing;
                     primaryOffset--;
@@ -346,7 +495,7 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
             if (secondaryAddress <= 0) {
                 return null;
             }
-            @NotNull final LongArrayValues array1 = arrayForAddress(ec.wireForIndex(), secondaryAddress);
+            @NotNull final LongArrayValues array1 = arrayForAddress(ec.wireForIndex(), primaryOffset, secondaryAddress);
             long secondaryOffset = toAddress1(index);
 
             do {
@@ -391,9 +540,10 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
                                   final long knownAddress) {
         @NotNull final Bytes<?> bytes = wire.bytes();
 
-        bytes.readPositionUnlimited(knownAddress);
+        // walk the headers up to the excerpt before, so only the last step is read through the wire.
+        final long walked = HeaderWalker.walk(bytes, knownAddress, toIndex - fromKnownIndex, Long.MAX_VALUE);
 
-        for (long i = fromKnownIndex; ; i++) {
+        for (long i = fromKnownIndex + walked; ; i++) {
             try {
                 if (wire.readDataHeader()) {
                     if (i == toIndex) {
@@ -425,8 +575,8 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         assert toPosition >= 0;
         Bytes<?> bytes = wire.bytes();
 
-        bytes.readPositionUnlimited(startAddress);
-        long i = indexOfNext - 1;
+        // walk the headers before the position, leaving the one at it to be checked below.
+        long i = indexOfNext - 1 + HeaderWalker.walk(bytes, startAddress, Long.MAX_VALUE, toPosition);
         while (bytes.readPosition() <= toPosition) {
             WireIn.HeaderType headerType;
             try {
@@ -494,15 +644,17 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
             int used2 = Maths.toUInt31(index2indexArr.getUsed());
             if (used2 == 0) {
                 // create the first index: eagerly.
-                getSecondaryAddress(recovery, ec, timeoutMS, index2indexArr, 0);
+                acquireLeafAddress(recovery, ec, timeoutMS, index2indexArr, 0);
             }
             Outer:
-            for (int index2 = used2 - 1; index2 >= 0; index2--) {
-                long secondaryAddress = getSecondaryAddress(recovery, ec, timeoutMS, index2indexArr, index2);
+            for (long index2 = lastLeaf(ec.wireForIndex(), index2indexArr, used2); index2 >= 0; index2--) {
+                long secondaryAddress = indexLevels == TWO_LEVELS
+                        ? getSecondaryAddress(recovery, ec, timeoutMS, index2indexArr, (int) index2, false)
+                        : leafAddress(ec.wireForIndex(), index2indexArr, index2);
                 if (secondaryAddress == 0)
                     continue;
 
-                LongArrayValues indexValues = arrayForAddress(ec.wireForIndex(), secondaryAddress);
+                LongArrayValues indexValues = arrayForAddress(ec.wireForIndex(), index2, secondaryAddress);
                 // TODO use a binary rather than linear search
 
                 // check the first one to see if any in the index is appropriate.
@@ -523,7 +675,7 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
                         continue;
                     }
                     lastKnownAddress = pos;
-                    indexOfNext = ((long) index2 << (indexCountBits + indexSpacingBits)) + (index1 << indexSpacingBits);
+                    indexOfNext = (index2 << (indexCountBits + indexSpacingBits)) + ((long) index1 << indexSpacingBits);
 
                     if (lastKnownAddress == position)
                         return indexOfNext;
@@ -544,6 +696,9 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
     private LongArrayValues getIndex2index(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, long timeoutMS) throws
             EOFException, UnrecoverableTimeoutException, StreamCorruptedException {
 
+        LongArrayValues shared = sharedIndex2indexArray;
+        if (shared != null)
+            return shared;
         LongArrayValuesHolder holder = getIndex2IndexArray();
         LongArrayValues values = holder.values;
         if (((Byteable) values).bytesStore() != null || timeoutMS == 0)
@@ -558,29 +713,32 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
                     continue;
                 }
 
-                return array(wire, values, true);
+                return sharedIndex2indexArray = array(wire, values, true);
             }
         }
     }
 
-    private long getSecondaryAddress(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, long timeoutMS, @NotNull LongArrayValues index2indexArr, int index2)
+    /**
+     * @param index2index true if the array at this address holds the addresses of further arrays.
+     */
+    private long getSecondaryAddress(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, long timeoutMS, @NotNull LongArrayValues index2indexArr, int index2, boolean index2index)
             throws EOFException, UnrecoverableTimeoutException, StreamCorruptedException {
         try {
-            return getSecondaryAddress1(recovery, ec, timeoutMS, index2indexArr, index2);
+            return getSecondaryAddress1(recovery, ec, timeoutMS, index2indexArr, index2, index2index);
         } catch (TimeoutException fallback) {
             ec.wire().pauser().reset();
             ec.wireForIndex().pauser().reset();
-            return recovery.recoverSecondaryAddress(index2indexArr, index2, () -> getSecondaryAddress1(recovery, ec, timeoutMS, index2indexArr, index2), timeoutMS);
+            return recovery.recoverSecondaryAddress(index2indexArr, index2, () -> getSecondaryAddress1(recovery, ec, timeoutMS, index2indexArr, index2, index2index), timeoutMS);
         }
     }
 
-    long getSecondaryAddress1(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, long timeoutMS, @NotNull LongArrayValues index2indexArr, int index2)
+    long getSecondaryAddress1(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, long timeoutMS, @NotNull LongArrayValues index2indexArr, int index2, boolean index2index)
             throws EOFException, TimeoutException, UnrecoverableTimeoutException, StreamCorruptedException {
         long secondaryAddress = index2indexArr.getVolatileValueAt(index2);
         if (secondaryAddress == 0) {
             if (timeoutMS == 0)
                 return 0;
-            secondaryAddress = newIndex(recovery, ec, index2indexArr, index2, timeoutMS);
+            secondaryAddress = newIndex(recovery, ec, index2indexArr, index2, timeoutMS, index2index);
             long sa = index2indexArr.getValueAt(index2);
             if (sa != secondaryAddress)
                 throw new AssertionError();
@@ -643,15 +801,15 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
             return;
         }
 
-        int index2 = (int) ((sequenceNumber) >>> (indexCountBits + indexSpacingBits));
-        if (index2 >= indexCount) {
+        long leaf = toLeaf(sequenceNumber);
+        if (leaf >= leafCount()) {
             throw new IllegalStateException("Unable to index " + sequenceNumber);
         }
-        long secondaryAddress = getSecondaryAddress(recovery, ec, ec.timeoutMS(), index2indexArr, index2);
+        long secondaryAddress = acquireLeafAddress(recovery, ec, ec.timeoutMS(), index2indexArr, leaf);
         if (secondaryAddress > bytes.capacity())
             throw new IllegalStateException("sa2: " + secondaryAddress);
         bytes.readLimit(bytes.capacity());
-        LongArrayValues indexValues = arrayForAddress(wire, secondaryAddress);
+        LongArrayValues indexValues = arrayForAddress(wire, leaf, secondaryAddress);
         int index3 = (int) ((sequenceNumber >>> indexSpacingBits) & (indexCount - 1));
 
         // check the last one first.
@@ -682,9 +840,14 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         return indexSpacing;
     }
 
+    int indexLevels() {
+        return indexLevels;
+    }
+
     enum IndexingFields implements WireKey {
         indexCount, indexSpacing, index2Index,
-        lastIndex // NOTE: the nextEntryToBeIndexed
+        lastIndex, // NOTE: the nextEntryToBeIndexed
+        indexLevels
     }
 
     static class LongArrayValuesHolder {
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.values.LongArrayValues;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Views of the index arrays of a store which are full, by their number. A full array doesn't
+ * change, so its view is bound once and shared by every thread, rather than each thread binding
+ * its own and re-reading the array header. Views are never replaced, so a lookup doesn't lock.
+ */
+final class SealedIndexArrays {
+    private final int pageBits;
+    @NotNull
+    private final AtomicReferenceArray<AtomicReferenceArray<LongArrayValues>> pages;
+
+    /**
+     * @param arrays   the number of arrays which can be held
+     * @param pageBits log2 of the number of arrays in each lazily created page
+     */
+    SealedIndexArrays(long arrays, int pageBits) {
+        this.pageBits = pageBits;
+        this.pages = new AtomicReferenceArray<>((int) Math.max(1, arrays >>> pageBits));
+    }
+
+    /**
+     * @return the view of this array, or null if there isn't one
+     */
+    @Nullable
+    LongArrayValues get(long array) {
+        final AtomicReferenceArray<LongArrayValues> page = pages.get((int) (array >>> pageBits));
+        return page == null ? null : page.get(offset(array));
+    }
+
+    /**
+     * @return the view to share, which is the one added first if another thread added one too
+     */
+    @NotNull
+    LongArrayValues add(long array, @NotNull LongArrayValues values) {
+        final int pageNumber = (int) (array >>> pageBits);
+        AtomicReferenceArray<LongArrayValues> page = pages.get(pageNumber);
+        if (page == null) {
+            pages.compareAndSet(pageNumber, null, new AtomicReferenceArray<>(1 << pageBits));
+            page = pages.get(pageNumber);
+        }
+        final int offset = offset(array);
+        if (page.compareAndSet(offset, null, values))
+            return values;
+        return page.get(offset);
+    }
+
+    private int offset(long array) {
+        return (int) (array & ((1 << pageBits) - 1));
+    }
+}
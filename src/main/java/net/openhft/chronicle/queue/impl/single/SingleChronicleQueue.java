@@ -22,6 +22,7 @@ import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.core.threads.ThreadLocalHelper;
+import net.openhft.chronicle.core.values.LongValue;
 import net.openhft.chronicle.core.time.TimeProvider;
 import net.openhft.chronicle.core.util.StringUtils;
 import net.openhft.chronicle.queue.*;
@@ -39,14 +40,18 @@ import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static net.openhft.chronicle.queue.TailerDirection.NONE;
 import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreAppender;
@@ -55,10 +60,17 @@ import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerp
 public class SingleChronicleQueue implements RollingChronicleQueue {
 
     public static final String SUFFIX = ".cq4";
+    /**
+     * The suffix of a cycle file created ahead of its cycle, which is renamed when the cycle is
+     * first written so it is not seen by tailers or the directory listing until then.
+     */
+    public static final String PRE_CREATED_SUFFIX = ".cq4.tmp";
+    static final String TAILERS_FILE = "tailers" + SingleTableBuilder.SUFFIX;
     private static final boolean SHOULD_RELEASE_RESOURCES =
             Boolean.valueOf(System.getProperty("chronicle.queue.release.weakRef.resources",
                     Boolean.TRUE.toString()));
     private static final Logger LOG = LoggerFactory.getLogger(SingleChronicleQueue.class);
+    private static final int ADAPTIVE_INDEX_COUNT = 4 << 10;
     private static final int FIRST_AND_LAST_RETRY_MAX = Integer.getInteger("cq.firstAndLastRetryMax", 8);
     protected final ThreadLocal<WeakReference<ExcerptAppender>> excerptAppenderThreadLocal = new ThreadLocal<>();
     protected final int sourceId;
@@ -70,9 +82,28 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     private final ThreadLocal<WeakReference<StoreTailer>> tlTailer = new ThreadLocal<>();
     @NotNull
     private final WireStorePool pool;
+    @NotNull
+    final AppendNotifier appendNotifier = new AppendNotifier();
+    @NotNull
+    private final StoreSupplier storeSupplier;
     private final long epoch;
     private final boolean isBuffered;
     @NotNull
+    private final BufferMode writeBufferMode;
+    @NotNull
+    private final SyncPolicy syncPolicy;
+    private final long preCreateCycleMS;
+    private final int positionCacheSize;
+    private final boolean adaptiveIndexing;
+    private final int timeIndexSpacing;
+    @Nullable
+    private final KeyExtractor keyExtractor;
+    private final int keyIndexCapacity;
+    private final boolean sealCycles;
+    private final int spareCycleFiles;
+    @Nullable
+    private final PositionCache sharedPositionCache;
+    @NotNull
     private final WireType wireType;
     private final long blockSize, overlapSize;
     @NotNull
@@ -95,6 +126,9 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     private final Function<String, File> nameToFile;
     @NotNull
     private final DirectoryListing directoryListing;
+    // null if the queue is read only
+    @Nullable
+    private final CycleCatalogue cycleCatalogue;
     @NotNull
     private final QueueLock queueLock;
     @NotNull
@@ -106,6 +140,16 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     int firstCycle = Integer.MAX_VALUE, lastCycle = Integer.MIN_VALUE;
     private int deltaCheckpointInterval;
     private boolean persistedRollCycleCheckPerformed = false;
+    @Nullable
+    private AsyncAppenderHandler asyncAppenderHandler;
+    @Nullable
+    private QueueSyncer syncer;
+    @Nullable
+    private CyclePreCreator cyclePreCreator;
+    @Nullable
+    private volatile CycleFileRecycler cycleFileRecycler;
+    @Nullable
+    private TableStore tailerStore;
 
     protected SingleChronicleQueue(@NotNull final SingleChronicleQueueBuilder builder) {
         readOnly = builder.readOnly();
@@ -115,8 +159,21 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         nameToFile = textToFile(builder);
         assignRollCycleDependentFields();
 
-        pool = WireStorePool.withSupplier(new StoreSupplier(), builder.storeFileListener());
+        storeSupplier = new StoreSupplier();
+        pool = WireStorePool.withSupplier(storeSupplier, builder.storeFileListener());
         isBuffered = builder.buffered();
+        writeBufferMode = builder.writeBufferMode();
+        syncPolicy = builder.syncPolicy();
+        preCreateCycleMS = builder.preCreateCycleMS();
+        positionCacheSize = builder.positionCacheSize();
+        adaptiveIndexing = builder.adaptiveIndexing();
+        timeIndexSpacing = builder.timeIndexSpacing();
+        keyExtractor = builder.keyExtractor();
+        keyIndexCapacity = builder.keyIndexCapacity();
+        sealCycles = builder.sealCycles();
+        spareCycleFiles = builder.spareCycleFiles();
+        sharedPositionCache = positionCacheSize > 0 && builder.sharedPositionCache()
+                ? new PositionCache(positionCacheSize) : null;
         path = builder.path();
         wireType = builder.wireType();
         blockSize = builder.blockSize();
@@ -132,12 +189,17 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         timeoutMS = (long) (builder.timeoutMS() * (1 + 0.2 * ThreadLocalRandom.current().nextFloat()));
         storeFactory = builder.storeFactory();
         if (readOnly) {
-            this.directoryListing = new FileSystemDirectoryListing(path, fileToCycleFunction());
+            this.cycleCatalogue = null;
+            this.directoryListing = DirectoryWatcher.isAvailable()
+                    ? new WatchingDirectoryListing(path, fileToCycleFunction())
+                    : new FileSystemDirectoryListing(path, fileToCycleFunction());
+            directoryListing.init();
         } else {
             final File listingPath = createDirectoryListingFile();
+            this.cycleCatalogue = createCycleCatalogue(listingPath);
             this.directoryListing = new TableDirectoryListing(SingleTableBuilder.
                     binary(listingPath).readOnly(builder.readOnly()).build(),
-                    path.toPath(), fileToCycleFunction(), builder.readOnly());
+                    path.toPath(), fileToCycleFunction(), builder.readOnly(), cycleCatalogue);
             directoryListing.init();
         }
 
@@ -203,17 +265,27 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     @Override
     public String dump() {
         StringBuilder sb = new StringBuilder();
-        for (int i = firstCycle(), max = lastCycle(); i <= max; i++) {
-            CommonStore commonStore = storeForCycle(i, epoch, false);
-            if (commonStore != null) {
-                try {
-//                    sb.append("# ").append(wireStore.bytes().mappedFile().file()).append("\n");
-                    sb.append(commonStore.dump());
-                } finally {
-                    release(commonStore);
-                }
-            }
+        int firstCycle = firstCycle();
+        int lastCycle = lastCycle();
+        if (firstCycle > lastCycle)
+            return sb.toString();
+        NavigableSet<Long> cycles;
+        try {
+            cycles = listCyclesBetween(firstCycle, lastCycle);
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
         }
+        // dump the cycles concurrently and append them in order.
+        new CycleScanner().scan(cycles, cycle -> {
+            CommonStore commonStore = storeForCycle(cycle.intValue(), epoch, false);
+            if (commonStore == null)
+                return null;
+            try {
+                return commonStore.dump();
+            } finally {
+                release(commonStore);
+            }
+        }, sb::append);
         return sb.toString();
     }
 
@@ -277,6 +349,12 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return indexSpacing;
     }
 
+    @Override
+    public int indexLevels() {
+        // small index arrays gain nothing from another level
+        return adaptiveIndexing && indexCount() > ADAPTIVE_INDEX_COUNT ? SCQIndexing.THREE_LEVELS : SCQIndexing.TWO_LEVELS;
+    }
+
     @Override
     public long epoch() {
         return epoch;
@@ -311,11 +389,223 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return this.eventLoop;
     }
 
+    @NotNull
+    public BufferMode writeBufferMode() {
+        return writeBufferMode;
+    }
+
     @NotNull
     protected ExcerptAppender newAppender() {
+        if (spareCycleFiles > 0)
+            cycleFileRecycler();
+        if (preCreateCycleMS > 0)
+            cyclePreCreator();
+        if (writeBufferMode == BufferMode.Asynchronous)
+            return new AsyncAppender(this, asyncAppenderHandler());
         return new StoreAppender(this);
     }
 
+    @NotNull
+    public SyncPolicy syncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * @return the syncer shared by the appenders of this queue, or null if the sync policy is
+     * NONE.
+     */
+    @Nullable
+    synchronized QueueSyncer syncer() {
+        if (syncer == null && !syncPolicy.isNone())
+            syncer = new QueueSyncer(this, syncPolicy);
+        return syncer;
+    }
+
+    /**
+     * @return the highest index appended by this process which is known to have been written to
+     * disk, or Long.MIN_VALUE if there isn't one or the sync policy is NONE.
+     */
+    public long durableIndex() {
+        QueueSyncer syncer;
+        synchronized (this) {
+            syncer = this.syncer;
+        }
+        return syncer == null ? Long.MIN_VALUE : syncer.durableIndex();
+    }
+
+    /**
+     * Wait for a message appended by this process to be written to disk.
+     *
+     * @param index   of the message
+     * @param timeout to wait
+     * @param unit    of the timeout
+     * @return true if the message is durable, false if it timed out
+     * @throws IllegalStateException if the sync policy is NONE
+     */
+    public boolean awaitDurable(long index, long timeout, @NotNull TimeUnit unit) {
+        QueueSyncer syncer = syncer();
+        if (syncer == null)
+            throw new IllegalStateException("Messages are not synced with " + syncPolicy);
+        return syncer.awaitDurable(index, timeout, unit);
+    }
+
+    /**
+     * @return the number of excerpts between entries of the time index, or 0 if the appenders
+     * don't write one.
+     */
+    public int timeIndexSpacing() {
+        return timeIndexSpacing;
+    }
+
+    /**
+     * @return the key the appenders index excerpts by, or null if they don't.
+     */
+    @Nullable
+    public KeyExtractor keyExtractor() {
+        return keyExtractor;
+    }
+
+    public int keyIndexCapacity() {
+        return keyIndexCapacity;
+    }
+
+    @Override
+    public boolean sealCycles() {
+        return sealCycles;
+    }
+
+    /**
+     * Finds the excerpts with a key using the key index of each cycle. A cycle without a complete
+     * key index is scanned instead.
+     *
+     * @param key to look up
+     * @return the indexes of the excerpts with the key, in order
+     * @throws IllegalStateException if the queue has no key extractor
+     */
+    @NotNull
+    public PrimitiveIterator.OfLong lookup(long key) {
+        return new KeyLookup(this, requireKeyExtractor(), key);
+    }
+
+    /**
+     * Rebuilds the key index of a cycle from its excerpts, doubling its capacity until they all
+     * fit. An appender still writing to the cycle keeps adding to the index this replaces, so it is
+     * for cycles which are no longer written to.
+     *
+     * @param cycle to index
+     * @throws IllegalStateException if the queue has no key extractor
+     */
+    public void rebuildKeyIndex(int cycle) throws IOException {
+        final KeyExtractor keyExtractor = requireKeyExtractor();
+        final File file = KeyIndex.fileFor(fileForCycle(cycle));
+        final File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        for (int capacity = keyIndexCapacity; capacity > 0; capacity <<= 1) {
+            Files.deleteIfExists(tmp.toPath());
+            final boolean complete;
+            try (KeyIndex keyIndex = KeyIndex.forAppending(tmp, capacity)) {
+                KeyLookup.scanCycle(this, keyExtractor, cycle, keyIndex::put);
+                complete = keyIndex.isComplete();
+            }
+            if (complete) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            }
+        }
+        Files.deleteIfExists(tmp.toPath());
+        throw new IllegalStateException("Too many keyed excerpts to index in cycle " + cycle);
+    }
+
+    @NotNull
+    private KeyExtractor requireKeyExtractor() {
+        if (keyExtractor == null)
+            throw new IllegalStateException("The queue has no key extractor");
+        return keyExtractor;
+    }
+
+    @NotNull
+    File fileForCycle(int cycle) {
+        return dateCache.resourceFor(cycle).path;
+    }
+
+    public long preCreateCycleMS() {
+        return preCreateCycleMS;
+    }
+
+    /**
+     * @return the position cache for a new tailer, shared if configured, or null if disabled.
+     */
+    @Nullable
+    PositionCache positionCacheForTailer() {
+        if (positionCacheSize <= 0)
+            return null;
+        return sharedPositionCache != null ? sharedPositionCache : new PositionCache(positionCacheSize);
+    }
+
+    @NotNull
+    private synchronized CyclePreCreator cyclePreCreator() {
+        if (cyclePreCreator == null)
+            cyclePreCreator = new CyclePreCreator(this, preCreateCycleMS);
+        return cyclePreCreator;
+    }
+
+    @NotNull
+    private synchronized CycleFileRecycler cycleFileRecycler() {
+        if (cycleFileRecycler == null)
+            cycleFileRecycler = new CycleFileRecycler(this, spareCycleFiles);
+        return cycleFileRecycler;
+    }
+
+    /**
+     * @return the number of spare files kept to be renamed into place for new cycles
+     */
+    public int spareCycleFiles() {
+        return spareCycleFiles;
+    }
+
+    /**
+     * Create the file for a cycle under its {@link #PRE_CREATED_SUFFIX} name with its header
+     * written and its first block of pages loaded.
+     *
+     * @param cycle to create
+     * @return true if it was created, false if it already existed
+     */
+    boolean preCreateCycle(int cycle) throws IOException {
+        return storeSupplier.preCreate(cycle);
+    }
+
+    /**
+     * @return the store of a cycle pre-created by this process, still mapped as it has not been
+     * written to, or null if there isn't one
+     */
+    @Nullable
+    WireStore preCreatedStore(int cycle) {
+        return storeSupplier.preCreatedStores.get(cycle);
+    }
+
+    /**
+     * Delete the pre-created file for a cycle if it was never written to.
+     */
+    void discardPreCreatedCycle(int cycle) {
+        storeSupplier.releasePreCreated(cycle);
+        File preCreated = preCreatedFile(fileForCycle(cycle));
+        if (preCreated.exists() && !preCreated.delete())
+            LOG.warn("Unable to delete " + preCreated);
+    }
+
+    @NotNull
+    static File preCreatedFile(@NotNull File cycleFile) {
+        String name = cycleFile.getName();
+        return new File(cycleFile.getParentFile(),
+                name.substring(0, name.length() - SUFFIX.length()) + PRE_CREATED_SUFFIX);
+    }
+
+    @NotNull
+    private synchronized AsyncAppenderHandler asyncAppenderHandler() {
+        if (asyncAppenderHandler == null)
+            asyncAppenderHandler = new AsyncAppenderHandler(this);
+        return asyncAppenderHandler;
+    }
+
     @NotNull
     @Override
     public ExcerptAppender acquireAppender() {
@@ -353,6 +643,72 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return storeTailer.toStart();
     }
 
+    @NotNull
+    @Override
+    public ExcerptTailer createTailer(@NotNull String id) {
+        if (readOnly)
+            throw new IllegalStateException("Can't persist the index of a tailer of a read-only chronicle");
+        LongValue indexValue = tailerStore().acquireValueFor("tailer." + id + ".index");
+        StoreTailer storeTailer = (StoreTailer) createTailer();
+        storeTailer.indexValue(indexValue);
+        return storeTailer;
+    }
+
+    /**
+     * @return the persisted index of a named tailer, Long.MIN_VALUE if it hasn't read anything
+     */
+    long tailerIndex(@NotNull String id) {
+        return tailerStore().acquireValueFor("tailer." + id + ".index").getVolatileValue();
+    }
+
+    /**
+     * @return true if the store of a cycle is held by an appender or tailer of this queue
+     */
+    boolean isCycleInUse(int cycle) {
+        return pool.isAcquired(cycle);
+    }
+
+    /**
+     * Truncates the file of a sealed cycle after its EOF, see
+     * {@link SingleChronicleQueueStore#truncateSealed()}.
+     *
+     * @return true if the cycle was sealed
+     */
+    boolean truncateSealedCycle(int cycle) {
+        final WireStore store = storeForCycle(cycle, epoch, false);
+        if (store == null)
+            return false;
+        try {
+            return store instanceof SingleChronicleQueueStore
+                    && ((SingleChronicleQueueStore) store).truncateSealed();
+        } finally {
+            release(store);
+        }
+    }
+
+    /**
+     * Takes a cycle out of the directory listing before its file is deleted or moved.
+     */
+    void onCycleRemoved(int cycle) {
+        directoryListing.onFileDeleted(fileForCycle(cycle), cycle);
+    }
+
+    @NotNull
+    @Override
+    public <T> Stream<T> stream(long fromIndex, long toIndex, @NotNull Function<? super WireIn, ? extends T> decoder) {
+        final QueueSpliterator<T> spliterator = new QueueSpliterator<>(this, decoder, fromIndex, toIndex);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    @NotNull
+    private synchronized TableStore tailerStore() {
+        if (isClosed.get())
+            throw new IllegalStateException("Queue is closed");
+        if (tailerStore == null)
+            tailerStore = SingleTableBuilder.binary(new File(path, TAILERS_FILE)).build();
+        return tailerStore;
+    }
+
     @Nullable
     @Override
     public final WireStore storeForCycle(int cycle, final long epoch, boolean createIfAbsent) {
@@ -365,6 +721,20 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     }
 
     public long exceptsPerCycle(int cycle) {
+        // a sealed cycle has its count in the header
+        WireStore store = storeForCycle(cycle, epoch, false);
+        if (store != null) {
+            try {
+                if (store instanceof SingleChronicleQueueStore) {
+                    long excerpts = ((SingleChronicleQueueStore) store).sealedExcerpts();
+                    if (excerpts >= 0)
+                        return excerpts;
+                }
+            } finally {
+                release(store);
+            }
+        }
+
         StoreTailer tailer = acquireTailer();
         try {
             long index = rollCycle.toIndex(cycle, 0);
@@ -483,13 +853,51 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
 
     @Override
     public void close() {
+        if (isClosed.get())
+            return;
+        // write the buffered messages while the appenders are still open.
+        AsyncAppenderHandler asyncAppenderHandler;
+        synchronized (this) {
+            asyncAppenderHandler = this.asyncAppenderHandler;
+        }
+        if (asyncAppenderHandler != null)
+            asyncAppenderHandler.close();
+        QueueSyncer syncer;
+        synchronized (this) {
+            syncer = this.syncer;
+        }
+        if (syncer != null)
+            syncer.close();
+        CyclePreCreator cyclePreCreator;
+        synchronized (this) {
+            cyclePreCreator = this.cyclePreCreator;
+        }
+        if (cyclePreCreator != null)
+            cyclePreCreator.close();
+        CycleFileRecycler cycleFileRecycler;
+        synchronized (this) {
+            cycleFileRecycler = this.cycleFileRecycler;
+        }
+        if (cycleFileRecycler != null)
+            cycleFileRecycler.close();
         if (isClosed.getAndSet(true))
             return;
+        appendNotifier.notifyWaiting();
         synchronized (closers) {
             closers.forEach((k, v) -> v.accept(k));
             closers.clear();
         }
+        storeSupplier.releasePreCreated();
         this.pool.close();
+        if (directoryListing instanceof WatchingDirectoryListing)
+            ((WatchingDirectoryListing) directoryListing).close();
+        synchronized (this) {
+            // after the tailers have been closed as they write to it.
+            if (tailerStore != null)
+                tailerStore.close();
+        }
+        if (asyncAppenderHandler != null)
+            asyncAppenderHandler.checkNotFailed();
     }
 
     @Override
@@ -569,6 +977,16 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return listingPath;
     }
 
+    @NotNull
+    private static CycleCatalogue createCycleCatalogue(@NotNull File listingPath) {
+        final File cataloguePath = new File(listingPath.getParentFile(), CycleCatalogue.FILE);
+        try {
+            return CycleCatalogue.of(cataloguePath);
+        } catch (FileNotFoundException e) {
+            throw new IllegalStateException("Unable to create cycle catalogue", e);
+        }
+    }
+
     @Override
     public int firstCycle() {
         setFirstAndLastCycle();
@@ -704,6 +1122,8 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     private class StoreSupplier implements WireStoreSupplier {
         private boolean queuePathExists;
         private final AtomicReference<CachedCycleTree> cachedTree = new AtomicReference<>();
+        // the stores of cycles pre-created by this process, kept mapped until the cycle is first written
+        private final Map<Integer, WireStore> preCreatedStores = new ConcurrentHashMap<>();
 
         @Override
         public WireStore acquire(int cycle, boolean createIfAbsent) {
@@ -715,14 +1135,16 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
                 File path = dateValue.path;
 
                 if ((cycle > directoryListing.getMaxCreatedCycle() ||
-                        !path.exists()) &&
+                        !cycleExists(cycle, path)) &&
                         !createIfAbsent) {
                     return null;
                 }
 
                 final File parentFile = dateValue.parentPath;
 
-                if (createIfAbsent)
+                // the disk space was checked when the file was pre-created.
+                final boolean adopt = createIfAbsent && !path.exists() && preCreatedFile(path).exists();
+                if (createIfAbsent && !adopt)
                     checkDiskSpace(that.path);
 
                 if (createIfAbsent && !path.exists() && pool.isEmpty()) {
@@ -732,6 +1154,25 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
                     QueueFiles.writeEOFIfNeeded(path.toPath(), wireType(), blockSize(), timeoutMS);
                 }
 
+                final CycleFileRecycler recycler = cycleFileRecycler;
+                if (adopt) {
+                    // linked before it is taken, as the pre-creator checks for the link after adding it
+                    final boolean linked = adoptPreCreated(path);
+                    final WireStore preCreatedStore = preCreatedStores.remove(cycle);
+                    if (linked && preCreatedStore != null) {
+                        // already mapped, with its header written and first pages loaded
+                        if (preCreatedStore instanceof SingleChronicleQueueStore)
+                            ((SingleChronicleQueueStore) preCreatedStore).cycleFile(path);
+                        directoryListing.onFileCreated(path, cycle);
+                        queuePathExists = true;
+                        return preCreatedStore;
+                    }
+                    if (preCreatedStore != null)
+                        preCreatedStore.release();
+                } else if (createIfAbsent && recycler != null && !path.exists()) {
+                    recycler.adopt(path);
+                }
+
                 final MappedBytes mappedBytes = mappedBytes(path);
                 directoryListing.onFileCreated(path, cycle);
                 queuePathExists = true;
@@ -764,6 +1205,86 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
             }
         }
 
+        /**
+         * The catalogue saves looking for the files of cycles which don't exist. The file of a
+         * cycle which does is still checked, as it mustn't be created again if it has been deleted.
+         */
+        private boolean cycleExists(int cycle, @NotNull File path) {
+            return (cycleCatalogue == null || cycleCatalogue.contains(cycle)) && path.exists();
+        }
+
+        /**
+         * Give a pre-created file its cycle file name. A link is used rather than a rename as it
+         * fails if another appender has created the cycle file in the meantime.
+         *
+         * @return true if the pre-created file now has the cycle file name
+         */
+        private boolean adoptPreCreated(@NotNull File path) {
+            File preCreated = preCreatedFile(path);
+            boolean linked = false;
+            try {
+                Files.createLink(path.toPath(), preCreated.toPath());
+                linked = true;
+            } catch (IOException | UnsupportedOperationException e) {
+                // the cycle file exists or is created as usual
+                Jvm.debug().on(getClass(), "Unable to use " + preCreated + " " + e);
+            }
+            if (!preCreated.delete())
+                Jvm.debug().on(getClass(), "Unable to delete " + preCreated);
+            return linked;
+        }
+
+        void releasePreCreated(int cycle) {
+            final WireStore store = preCreatedStores.remove(cycle);
+            if (store != null)
+                store.release();
+        }
+
+        void releasePreCreated() {
+            for (Integer cycle : preCreatedStores.keySet())
+                releasePreCreated(cycle);
+        }
+
+        boolean preCreate(int cycle) throws IOException {
+            SingleChronicleQueue that = SingleChronicleQueue.this;
+            @NotNull final RollingResourcesCache.Resource dateValue = that.dateCache.resourceFor(cycle);
+            final File preCreated = preCreatedFile(dateValue.path);
+            if (dateValue.path.exists() || preCreated.exists())
+                return false;
+
+            checkDiskSpace(that.path);
+            dateValue.parentPath.mkdirs();
+            final CycleFileRecycler recycler = cycleFileRecycler;
+            if (recycler != null)
+                recycler.adopt(preCreated);
+            final MappedBytes mappedBytes = mappedBytes(preCreated);
+            AbstractWire wire = (AbstractWire) wireType.apply(mappedBytes);
+            wire.pauser(pauserSupplier.get());
+            wire.headerNumber(rollCycle.toIndex(cycle, 0) - 1);
+
+            if (!wire.writeFirstHeader()) {
+                // another process is pre-creating it.
+                mappedBytes.release();
+                return false;
+            }
+            WireStore wireStore = storeFactory.apply(that, wire);
+            wire.updateFirstHeader();
+
+            // load the pages of the first block so the appender doesn't fault them in.
+            long length = OS.pageAlign(blockSize);
+            for (long offset = 0; offset < length; offset += OS.pageSize())
+                mappedBytes.compareAndSwapLong(offset, 0L, 0L);
+
+            // kept mapped for the appender which rolls to it, so its first write doesn't map the file.
+            final WireStore previous = preCreatedStores.put(cycle, wireStore);
+            if (previous != null)
+                previous.release();
+            if (dateValue.path.exists())
+                // the cycle was written to while it was being pre-created
+                releasePreCreated(cycle);
+            return true;
+        }
+
         private void checkDiskSpace(@NotNull final File filePath) throws IOException {
             Path path = filePath.toPath();
             if (path.getFileSystem() != null) {
@@ -801,10 +1322,19 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
                 final RollingResourcesCache dateCache = SingleChronicleQueue.this.dateCache;
                 final NavigableMap<Long, File> tree = new TreeMap<>();
 
-                final File[] files = parentFile.listFiles((File file) -> file.getPath().endsWith(SUFFIX));
+                // a listing which is told of new files doesn't need the directory listed, unless a file is missing
+                final NavigableSet<Integer> cycles = directoryListing.cycles();
+                if (cycles != null && !force) {
+                    for (int cycle : cycles) {
+                        final File file = dateCache.resourceFor(cycle).path;
+                        tree.put(dateCache.toLong(file), file);
+                    }
+                } else {
+                    final File[] files = parentFile.listFiles((File file) -> file.getPath().endsWith(SUFFIX));
 
-                for (File file : files) {
-                    tree.put(dateCache.toLong(file), file);
+                    for (File file : files) {
+                        tree.put(dateCache.toLong(file), file);
+                    }
                 }
 
                 cachedValue = new CachedCycleTree(directoryModCount, tree);
@@ -831,7 +1361,6 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
             if (direction == NONE)
                 throw new AssertionError("direction is NONE");
             assert currentCycle >= 0 : "currentCycle=" + Integer.toHexString(currentCycle);
-            NavigableMap<Long, File> tree = cycleTree(false);
             final File currentCycleFile = dateCache.resourceFor(currentCycle).path;
 
             if (currentCycle > directoryListing.getMaxCreatedCycle() ||
@@ -857,6 +1386,21 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
                 }
             }
 
+            if (cycleCatalogue != null) {
+                final CycleCatalogue.Cycles cycles = catalogueCycles(currentCycle, currentCycle);
+                if (!cycles.contains(currentCycle))
+                    throw new AssertionError("missing currentCycle, file=" + currentCycleFile);
+                switch (direction) {
+                    case FORWARD:
+                        return cycles.higher(currentCycle);
+                    case BACKWARD:
+                        return cycles.lower(currentCycle);
+                    default:
+                        throw new UnsupportedOperationException("Unsupported Direction");
+                }
+            }
+
+            NavigableMap<Long, File> tree = cycleTree(false);
             Long key = dateCache.toLong(currentCycleFile);
             File file = tree.get(key);
             // already checked that the file should be on-disk, so if it is null, call cycleTree again with force
@@ -888,6 +1432,13 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
          */
         @Override
         public NavigableSet<Long> cycles(int lowerCycle, int upperCycle) throws ParseException {
+            if (cycleCatalogue != null) {
+                final CycleCatalogue.Cycles cycles = catalogueCycles(lowerCycle, upperCycle);
+                checkInCatalogue(cycles, lowerCycle, "lowerCycle");
+                checkInCatalogue(cycles, upperCycle, "upperCycle");
+                return cycles.between(lowerCycle, upperCycle);
+            }
+
             final NavigableMap<Long, File> tree = cycleTree(false);
             final Long lowerKey = toKey(lowerCycle, "lowerCycle");
             final Long upperKey = toKey(upperCycle, "upperCycle");
@@ -896,6 +1447,26 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
             return tree.subMap(lowerKey, true, upperKey, true).navigableKeySet();
         }
 
+        /**
+         * @return the cycles of the catalogue, relisting the directory first if either cycle isn't
+         * in it, in case it was created by something which doesn't update the catalogue
+         */
+        @NotNull
+        private CycleCatalogue.Cycles catalogueCycles(int cycle1, int cycle2) {
+            assert cycleCatalogue != null;
+            CycleCatalogue.Cycles cycles = cycleCatalogue.cycles();
+            if (!cycles.contains(cycle1) || !cycles.contains(cycle2)) {
+                directoryListing.refresh();
+                cycles = cycleCatalogue.cycles();
+            }
+            return cycles;
+        }
+
+        private void checkInCatalogue(@NotNull CycleCatalogue.Cycles cycles, int cycle, String m) {
+            if (!cycles.contains(cycle))
+                throw new IllegalStateException("'file not found' for the " + m + ", file=" + dateCache.resourceFor(cycle).path);
+        }
+
         private Long toKey(int cyle, String m) {
             final File file = dateCache.resourceFor(cyle).path;
             if (!file.exists())
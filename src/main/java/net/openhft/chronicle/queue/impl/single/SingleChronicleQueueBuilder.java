@@ -21,7 +21,9 @@ import net.openhft.chronicle.bytes.MappedBytes;
 import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.core.time.TimeProvider;
 import net.openhft.chronicle.queue.BufferMode;
+import net.openhft.chronicle.queue.KeyExtractor;
 import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.SyncPolicy;
 import net.openhft.chronicle.queue.impl.AbstractChronicleQueueBuilder;
 import net.openhft.chronicle.queue.impl.RollingChronicleQueue;
 import net.openhft.chronicle.queue.impl.StoreFileListener;
@@ -150,7 +152,9 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
                 queue.indexCount(),
                 queue.indexSpacing(),
                 queue.recoverySupplier().apply(queue.wireType()),
-                queue.deltaCheckpointInterval());
+                queue.deltaCheckpointInterval(),
+                queue.indexLevels(),
+                queue.sealCycles());
 
         wire.writeEventName(MetaDataKeys.header).typedMarshallable(wireStore);
 
@@ -180,9 +184,6 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
     @Override
     @NotNull
     public SingleChronicleQueue build() {
-        if (buffered())
-            onlyAvailableInEnterprise("Buffering");
-
         super.preBuild();
 
         return new SingleChronicleQueue(this);
@@ -323,6 +324,56 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
         return super.timeoutMS(timeoutMS);
     }
 
+    @Override
+    public SingleChronicleQueueBuilder<S> syncPolicy(@NotNull SyncPolicy syncPolicy) {
+        return super.syncPolicy(syncPolicy);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> preCreateCycleMS(long preCreateCycleMS) {
+        return super.preCreateCycleMS(preCreateCycleMS);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> positionCacheSize(int positionCacheSize) {
+        return super.positionCacheSize(positionCacheSize);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> sharedPositionCache(boolean sharedPositionCache) {
+        return super.sharedPositionCache(sharedPositionCache);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> adaptiveIndexing(boolean adaptiveIndexing) {
+        return super.adaptiveIndexing(adaptiveIndexing);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> timeIndexSpacing(int timeIndexSpacing) {
+        return super.timeIndexSpacing(timeIndexSpacing);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> keyExtractor(@Nullable KeyExtractor keyExtractor) {
+        return super.keyExtractor(keyExtractor);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> keyIndexCapacity(int keyIndexCapacity) {
+        return super.keyIndexCapacity(keyIndexCapacity);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> sealCycles(boolean sealCycles) {
+        return super.sealCycles(sealCycles);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> spareCycleFiles(int spareCycleFiles) {
+        return super.spareCycleFiles(spareCycleFiles);
+    }
+
     @Override
     public SingleChronicleQueueBuilder<S> readOnly(boolean readOnly) {
         return super.readOnly(readOnly);
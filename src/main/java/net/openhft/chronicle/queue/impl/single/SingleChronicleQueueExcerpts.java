@@ -26,9 +26,15 @@ import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.annotation.UsedViaReflection;
 import net.openhft.chronicle.core.io.IORuntimeException;
 import net.openhft.chronicle.core.util.StringUtils;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.BatchReader;
+import net.openhft.chronicle.queue.BatchWriter;
+import net.openhft.chronicle.queue.BufferMode;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.KeyExtractor;
+import net.openhft.chronicle.queue.Reservation;
 import net.openhft.chronicle.queue.RollCycle;
 import net.openhft.chronicle.queue.TailerDirection;
 import net.openhft.chronicle.queue.TailerState;
@@ -54,12 +60,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.EOFException;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.StreamCorruptedException;
 import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
+import java.util.NavigableSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
 
 import static net.openhft.chronicle.queue.TailerDirection.BACKWARD;
 import static net.openhft.chronicle.queue.TailerDirection.FORWARD;
@@ -98,6 +112,11 @@ public class SingleChronicleQueueExcerpts {
         @NotNull
         private final StoreAppenderContext context;
         private final ClosableResources closableResources;
+        private final boolean copyMessages;
+        @NotNull
+        private final StoreAppenderReservation reservation = new StoreAppenderReservation();
+        @Nullable
+        private final QueueSyncer syncer;
         @Nullable
         WireStore store;
         private int cycle = Integer.MIN_VALUE;
@@ -117,9 +136,18 @@ public class SingleChronicleQueueExcerpts {
         @Nullable
         private PretoucherState pretoucher = null;
         private Padding padToCacheLines = Padding.SMART;
+        private long[] batchPositions = new long[16];
+        @Nullable
+        private TimeIndex timeIndex;
+        private int timeIndexCycle = Integer.MIN_VALUE;
+        @Nullable
+        private KeyIndex keyIndex;
+        private int keyIndexCycle = Integer.MIN_VALUE;
 
         StoreAppender(@NotNull SingleChronicleQueue queue) {
             this.queue = queue;
+            this.copyMessages = queue.writeBufferMode() == BufferMode.Copy;
+            this.syncer = queue.syncer();
             queue.addCloseListener(this, StoreAppender::close);
             context = new StoreAppenderContext();
 
@@ -185,6 +213,25 @@ public class SingleChronicleQueueExcerpts {
                 bufferWire = null;
             }
             store = null;
+            closeTimeIndex();
+            closeKeyIndex();
+            reservation.releaseChannelView();
+        }
+
+        private void closeTimeIndex() {
+            TimeIndex t = timeIndex;
+            timeIndex = null;
+            timeIndexCycle = Integer.MIN_VALUE;
+            if (t != null)
+                t.close();
+        }
+
+        private void closeKeyIndex() {
+            KeyIndex k = keyIndex;
+            keyIndex = null;
+            keyIndexCycle = Integer.MIN_VALUE;
+            if (k != null)
+                k.close();
         }
 
         @Override
@@ -218,6 +265,17 @@ public class SingleChronicleQueueExcerpts {
             this.lastIndex = index;
         }
 
+        /**
+         * Publish the position of the last excerpt written, with its sequence number if known,
+         * otherwise the store counts it on from the last one recorded.
+         */
+        private void writePosition(long position) {
+            if (lastIndex == Long.MIN_VALUE)
+                store.writePosition(position);
+            else
+                store.writePosition(position, queue.rollCycle().toSequenceNumber(lastIndex));
+        }
+
         @NotNull
         @Override
         public ExcerptAppender lazyIndexing(boolean lazyIndexing) {
@@ -332,6 +390,119 @@ public class SingleChronicleQueueExcerpts {
             if (queue.isClosed.get())
                 throw new IllegalStateException("Queue is closed");
             boolean ok = false;
+            try {
+                if (copyMessages) {
+                    // serialise outside the queue, the header is only held while the message is copied.
+                    context.isClosed = false;
+                    context.buffered = true;
+                    context.wire = acquireBufferWire();
+                    context.padToCacheAlign = false;
+                    context.metaData(metaData);
+                    ok = true;
+                    return context;
+                }
+
+                writeHeaderOfUnknownLength();
+                context.isClosed = false;
+                context.wire = wire; // Jvm.isDebug() ? acquireBufferWire() : wire;
+                context.padToCacheAlign = padToCacheAlignMode() != Padding.NEVER;
+                context.metaData(metaData);
+                ok = true;
+                return context;
+
+            } finally {
+                assert ok || resetAppendingThread();
+            }
+        }
+
+        /**
+         * Write a NOT_COMPLETE header at the end of the current cycle, rolling to a new cycle if
+         * needed, and position the wire after it.
+         */
+        private void writeHeaderOfUnknownLength() throws UnrecoverableTimeoutException {
+            int cycle = queue.cycle();
+
+            if (wire == null)
+                setCycle2(cycle, true);
+            else
+                if (this.cycle != cycle)
+                    rollCycleTo(cycle);
+
+            int safeLength = (int) queue.overlapSize();
+            for (int i = 0; i < 128; i++) {
+                try {
+                    assert wire != null;
+                    long pos = store.writeHeader(wire, Wires.UNKNOWN_LENGTH, safeLength, timeoutMS());
+                    position(pos);
+                    return;
+
+                } catch (EOFException theySeeMeRolling) {
+                    cycle = handleRoll(cycle);
+                }
+            }
+            throw new IllegalStateException("Unable to roll to the current cycle");
+        }
+
+        @NotNull
+        @Override
+        public Reservation reserve(int maxLength) throws UnrecoverableTimeoutException {
+            if (maxLength <= 0 || maxLength > queue.overlapSize())
+                throw new IllegalArgumentException("maxLength must be between 1 and " + queue.overlapSize() + ", was " + maxLength);
+            if (reservation.isOpen())
+                throw new IllegalStateException("The previous reservation has not been committed or aborted");
+            assert checkAppendingThread();
+            if (queue.isClosed.get())
+                throw new IllegalStateException("Queue is closed");
+            boolean ok = false;
+            try {
+                writeHeaderOfUnknownLength();
+                assert wire != null;
+                // the space is within the overlap so it is contiguous in memory.
+                reservation.open(maxLength);
+                ok = true;
+                return reservation;
+
+            } finally {
+                assert ok || resetAppendingThread();
+            }
+        }
+
+        /**
+         * Update the header written by {@link #writeHeaderOfUnknownLength()} with the length of the
+         * document and index it.
+         */
+        private void publishDocument(boolean padToCacheAlign, boolean metaData) throws StreamCorruptedException {
+            assert wire != null;
+            if (padToCacheAlign)
+                wire.padToCacheAlign();
+
+            wire.updateHeader(position, metaData);
+            afterWrite(metaData);
+            assert checkWritePositionHeaderNumber();
+            if (!metaData)
+                onPublished(1);
+        }
+
+        /**
+         * Wake the tailers waiting for messages, let the syncer know messages were written, and
+         * wait for them to be synced if the sync policy is per message.
+         */
+        private void onPublished(int messages) throws UnrecoverableTimeoutException {
+            queue.appendNotifier.notifyWaiting();
+            if (syncer == null)
+                return;
+            long count = syncer.appended(cycle, lastIndex, messages);
+            if (syncer.isPerMessage())
+                syncer.awaitSynced(count, timeoutMS());
+        }
+
+        @Override
+        public void writeBatch(int count, @NotNull BatchWriter batchWriter) throws UnrecoverableTimeoutException {
+            if (count <= 0)
+                return;
+            assert checkAppendingThread();
+            if (queue.isClosed.get())
+                throw new IllegalStateException("Queue is closed");
             try {
                 int cycle = queue.cycle();
 
@@ -344,15 +515,9 @@ public class SingleChronicleQueueExcerpts {
                 int safeLength = (int) queue.overlapSize();
                 for (int i = 0; i < 128; i++) {
                     try {
-                        assert wire != null;
-                        long pos = store.writeHeader(wire, Wires.UNKNOWN_LENGTH, safeLength, timeoutMS());
-                        position(pos);
-                        context.isClosed = false;
-                        context.wire = wire; // Jvm.isDebug() ? acquireBufferWire() : wire;
-                        context.padToCacheAlign = padToCacheAlignMode() != Padding.NEVER;
-                        context.metaData(metaData);
-                        ok = true;
-                        return context;
+                        writeBatch0(count, batchWriter, safeLength);
+                        onPublished(count);
+                        return;
 
                     } catch (EOFException theySeeMeRolling) {
                         cycle = handleRoll(cycle);
@@ -360,9 +525,98 @@ public class SingleChronicleQueueExcerpts {
                 }
                 throw new IllegalStateException("Unable to roll to the current cycle");
 
+            } catch (StreamCorruptedException e) {
+                throw new IllegalStateException(e);
             } finally {
-                assert ok || resetAppendingThread();
+                assert resetAppendingThread();
+            }
+        }
+
+        /**
+         * Only the first header is written with a CAS. While it is NOT_COMPLETE no other appender
+         * or tailer can get past it, so the following headers are written directly and the whole
+         * batch is published when the first header is updated.
+         */
+        private void writeBatch0(int count, @NotNull BatchWriter batchWriter, int safeLength)
+                throws EOFException, StreamCorruptedException {
+            assert wire != null;
+            long first = store.writeHeader(wire, Wires.UNKNOWN_LENGTH, safeLength, timeoutMS());
+            position(first);
+            final long headerNumber = wire.headerNumber();
+            final Bytes<?> bytes = wire.bytes();
+            final boolean pad = padToCacheAlignMode() != Padding.NEVER;
+            final long[] positions = batchPositions(count);
+            long endOfFirst = first;
+            try {
+                for (int i = 0; i < count; i++) {
+                    long pos = first;
+                    if (i > 0) {
+                        pos = bytes.writePosition();
+                        bytes.writeInt(Wires.NOT_COMPLETE | Wires.UNKNOWN_LENGTH);
+                    }
+                    positions[i] = pos;
+                    batchWriter.writeExcerpt(i, wire);
+                    if (pad)
+                        wire.padToCacheAlign();
+
+                    long end = bytes.writePosition();
+                    int length = Maths.toUInt31(end - pos - 4);
+                    if (length == Wires.UNKNOWN_LENGTH)
+                        throw new UnsupportedOperationException("Data messages of 0 length are not supported.");
+                    if (i == 0)
+                        endOfFirst = end;
+                    else
+                        bytes.writeOrderedInt(pos, length);
+                }
+            } catch (RuntimeException | Error e) {
+                // nothing of the batch has been published yet
+                discardHeader(first);
+                throw e;
+            }
+
+            // publish the batch.
+            long end = bytes.writePosition();
+            bytes.writePosition(endOfFirst);
+            wire.updateHeader(first, false);
+            bytes.writePosition(end);
+
+            final long lastPos = positions[count - 1];
+            this.position = lastPos;
+            lastPosition = lastPos;
+            lastCycle = cycle;
+            if (headerNumber == Long.MIN_VALUE) {
+                lastIndex(Long.MIN_VALUE);
+                writePosition(lastPos);
+                writeIndexesForUnknownIndex(lastPos, count, positions);
+                return;
             }
+            wire.headerNumber(headerNumber + count);
+            lastIndex(headerNumber + count);
+            writePosition(lastPos);
+            for (int i = 0; i < count; i++)
+                writeIndexForPosition(headerNumber + 1 + i, positions[i]);
+        }
+
+        /**
+         * Give up a header reserved by this appender, once anything written after it has been
+         * zeroed, by publishing it as empty meta data. Tailers skip it, other appenders can write
+         * after it and the wire is no longer inside a header.
+         */
+        private void discardHeader(long position) throws StreamCorruptedException {
+            assert wire != null;
+            final Bytes<?> bytes = wire.bytes();
+            final long end = bytes.writePosition();
+            if (end > position + 4)
+                bytes.zeroOut(position + 4, end);
+            bytes.writePosition(position + 4);
+            wire.updateHeader(position, true);
+        }
+
+        @NotNull
+        private long[] batchPositions(int count) {
+            if (batchPositions.length < count)
+                batchPositions = new long[Maths.nextPower2(count, 16)];
+            return batchPositions;
         }
 
         private int handleRoll(int cycle) {
@@ -447,6 +701,17 @@ public class SingleChronicleQueueExcerpts {
             append(Maths.toUInt31(bytes.readRemaining()), (m, w) -> w.bytes().write(m), bytes);
         }
 
+        /**
+         * Copy a message built in the buffer wire to the queue, with its length known before the
+         * header is written.
+         */
+        private void copyToQueue(@NotNull Bytes<?> bytes, boolean metaData) throws UnrecoverableTimeoutException {
+            int length = Maths.toUInt31(bytes.readRemaining());
+            if (length == 0)
+                throw new UnsupportedOperationException("Cannot append a zero length message");
+            append(length, (m, w) -> w.bytes().write(m), bytes, metaData);
+        }
+
         @Nullable
         Wire acquireBufferWire() {
             if (bufferWire == null) {
@@ -485,7 +750,8 @@ public class SingleChronicleQueueExcerpts {
                     lastIndex(index);
                     lastPosition = position;
                     lastCycle = cycle;
-                    store.writePosition(position);
+                    writePosition(position);
+                    onPublished(1);
 
                 } catch (EOFException theySeeMeRolling) {
                     if (wireBytes.compareAndSwapInt(wireBytes.writePosition(), Wires.END_OF_DATA, Wires.NOT_COMPLETE)) {
@@ -573,7 +839,9 @@ public class SingleChronicleQueueExcerpts {
             }
 
             try {
-                long sequenceNumber = store.sequenceForPosition(this, lastPosition, true);
+                long sequenceNumber = store.sequenceForWritePosition(lastPosition);
+                if (sequenceNumber < 0)
+                    sequenceNumber = store.sequenceForPosition(this, lastPosition, true);
                 long index = queue.rollCycle().toIndex(lastCycle, sequenceNumber);
                 lastIndex(index);
                 return index;
@@ -615,6 +883,11 @@ public class SingleChronicleQueueExcerpts {
 
         private <T> void append(int length, @NotNull WireWriter<T> wireWriter, T writer) throws
                 UnrecoverableTimeoutException {
+            append(length, wireWriter, writer, false);
+        }
+
+        private <T> void append(int length, @NotNull WireWriter<T> wireWriter, T writer, boolean metaData) throws
+                UnrecoverableTimeoutException {
 
             assert checkAppendingThread();
             try {
@@ -625,21 +898,20 @@ public class SingleChronicleQueueExcerpts {
                 try {
                     position(store.writeHeader(wire, length, length, timeoutMS()));
                     assert ((AbstractWire) wire).isInsideHeader();
-                    beforeAppend(wire, wire.headerNumber() + 1);
+                    if (!metaData)
+                        beforeAppend(wire, wire.headerNumber() + 1);
                     wireWriter.write(writer, wire);
-                    wire.updateHeader(length, position, false);
-                    lastIndex(wire.headerNumber());
-                    lastPosition = position;
-                    lastCycle = cycle;
-                    store.writePosition(position);
-                    writeIndexForPosition(lastIndex, position);
+                    wire.updateHeader(length, position, metaData);
+                    afterWrite(metaData);
                 } catch (EOFException theySeeMeRolling) {
                     try {
-                        append2(length, wireWriter, writer);
+                        append2(length, wireWriter, writer, metaData);
                     } catch (EOFException e) {
                         throw new AssertionError(e);
                     }
                 }
+                if (!metaData)
+                    onPublished(1);
             } catch (StreamCorruptedException e) {
                 throw new AssertionError(e);
             } finally {
@@ -675,13 +947,32 @@ public class SingleChronicleQueueExcerpts {
             }
         }
 
-        <T> void append2(int length, @NotNull WireWriter<T> wireWriter, T writer) throws
+        <T> void append2(int length, @NotNull WireWriter<T> wireWriter, T writer, boolean metaData) throws
                 UnrecoverableTimeoutException, EOFException, StreamCorruptedException {
             setCycle(Math.max(queue.cycle(), cycle + 1));
             position(store.writeHeader(wire, length, length, timeoutMS()));
-            beforeAppend(wire, wire.headerNumber() + 1);
+            if (!metaData)
+                beforeAppend(wire, wire.headerNumber() + 1);
             wireWriter.write(writer, wire);
-            wire.updateHeader(length, position, false);
+            wire.updateHeader(length, position, metaData);
+            afterWrite(metaData);
+        }
+
+        /**
+         * Record the excerpt just written at the position, publish the write position of the store
+         * and index it.
+         */
+        private void afterWrite(boolean metaData) throws StreamCorruptedException {
+            lastPosition = position;
+            lastCycle = cycle;
+            if (!metaData) {
+                lastIndex(wire.headerNumber());
+                writePosition(position);
+                if (lastIndex != Long.MIN_VALUE)
+                    writeIndexForPosition(lastIndex, position);
+                else
+                    writeIndexesForUnknownIndex(position, 1, null);
+            }
         }
 
         private boolean checkAppendingThread() {
@@ -706,12 +997,106 @@ public class SingleChronicleQueueExcerpts {
         void writeIndexForPosition(long index, long position)
                 throws UnrecoverableTimeoutException, StreamCorruptedException {
 
+            if (queue.timeIndexSpacing() > 0)
+                writeTimeForIndex(index);
+            final KeyExtractor keyExtractor = queue.keyExtractor();
+            if (keyExtractor != null)
+                writeKeyForIndex(keyExtractor, index, position);
             if (!lazyIndexing) {
                 long sequenceNumber = queue.rollCycle().toSequenceNumber(index);
                 store.setPositionForSequenceNumber(this, sequenceNumber, position);
             }
         }
 
+        /**
+         * Write the time and key indexes of excerpts published without knowing their index, e.g.
+         * by a lazy appender, using the sequence number the store has recorded for the last. If it
+         * hasn't, as another appender has written since, the excerpts are left out of the time
+         * index, which only gives a starting point anyway, and the key index of the cycle is marked
+         * incomplete so lookups scan it.
+         *
+         * @param lastPosition the position of the last excerpt published
+         * @param count        the number of excerpts published together
+         * @param positions    the positions of the excerpts, or null if there is only one
+         */
+        private void writeIndexesForUnknownIndex(long lastPosition, int count, @Nullable long[] positions) {
+            final boolean timed = queue.timeIndexSpacing() > 0;
+            final KeyExtractor keyExtractor = queue.keyExtractor();
+            if (!timed && keyExtractor == null)
+                return;
+            final long lastSequenceNumber = store.sequenceForWritePosition(lastPosition);
+            if (lastSequenceNumber < 0) {
+                if (keyExtractor != null)
+                    acquireKeyIndex(cycle).markIncomplete();
+                return;
+            }
+            final RollCycle rollCycle = queue.rollCycle();
+            for (int i = 0; i < count; i++) {
+                final long index = rollCycle.toIndex(cycle, lastSequenceNumber - count + 1 + i);
+                if (timed)
+                    writeTimeForIndex(index);
+                if (keyExtractor != null)
+                    writeKeyForIndex(keyExtractor, index, positions == null ? lastPosition : positions[i]);
+            }
+        }
+
+        private void writeTimeForIndex(long index) {
+            final RollCycle rollCycle = queue.rollCycle();
+            final long sequenceNumber = rollCycle.toSequenceNumber(index);
+            if ((sequenceNumber & (queue.timeIndexSpacing() - 1)) != 0)
+                return;
+            final int cycle = rollCycle.toCycle(index);
+            if (timeIndexCycle != cycle) {
+                closeTimeIndex();
+                try {
+                    timeIndex = TimeIndex.forAppending(queue.fileForCycle(cycle), queue.timeIndexSpacing());
+                } catch (FileNotFoundException e) {
+                    throw new IORuntimeException(e);
+                }
+                timeIndexCycle = cycle;
+            }
+            timeIndex.record(sequenceNumber, queue.time().currentTimeMillis() * 1_000_000L);
+        }
+
+        @NotNull
+        private KeyIndex acquireKeyIndex(int cycle) {
+            if (keyIndexCycle != cycle) {
+                closeKeyIndex();
+                try {
+                    keyIndex = KeyIndex.forAppending(KeyIndex.fileFor(queue.fileForCycle(cycle)), queue.keyIndexCapacity());
+                } catch (FileNotFoundException e) {
+                    throw new IORuntimeException(e);
+                }
+                keyIndexCycle = cycle;
+            }
+            return keyIndex;
+        }
+
+        private void writeKeyForIndex(@NotNull KeyExtractor keyExtractor, long index, long position) {
+            final KeyIndex keyIndex = acquireKeyIndex(queue.rollCycle().toCycle(index));
+
+            // read the excerpt just written, leaving the wire as it was
+            final Bytes<?> bytes = wire.bytes();
+            final long readPosition = bytes.readPosition();
+            final long readLimit = bytes.readLimit();
+            final long key;
+            try {
+                bytes.readLimit(position + Wires.SPB_HEADER_SIZE + Wires.lengthOf(bytes.readVolatileInt(position)));
+                bytes.readPosition(position + Wires.SPB_HEADER_SIZE);
+                key = keyExtractor.key(wire);
+            } catch (RuntimeException e) {
+                // the excerpt is already written, so leave the cycle to be scanned instead
+                Jvm.warn().on(getClass(), "Unable to extract the key of " + Long.toHexString(index), e);
+                keyIndex.markIncomplete();
+                return;
+            } finally {
+                bytes.readLimit(readLimit);
+                bytes.readPosition(readPosition);
+            }
+            if (key != KeyExtractor.NO_KEY)
+                keyIndex.put(key, index);
+        }
+
         boolean checkIndex(long index, long position) {
             try {
                 final long seq1 = queue.rollCycle().toSequenceNumber(index + 1) - 1;
@@ -747,6 +1132,7 @@ public class SingleChronicleQueueExcerpts {
 
             boolean isClosed;
             boolean padToCacheAlign = true;
+            boolean buffered = false;
             private boolean metaData = false;
             @Nullable
             private Wire wire;
@@ -797,23 +1183,16 @@ public class SingleChronicleQueueExcerpts {
 
                 try {
                     if (wire == StoreAppender.this.wire) {
-                        if (padToCacheAlign)
-                            wire.padToCacheAlign();
+                        publishDocument(padToCacheAlign, metaData);
 
-                        wire.updateHeader(position, metaData);
+                    } else if (buffered) {
+                        buffered = false;
+                        isClosed = true;
+                        assert resetAppendingThread();
+                        Bytes<?> bytes = wire.bytes();
+                        wire = StoreAppender.this.wire;
+                        copyToQueue(bytes, metaData);
 
-                        lastPosition = position;
-                        lastCycle = cycle;
-
-                        if (!metaData) {
-                            lastIndex(wire.headerNumber());
-                            store.writePosition(position);
-                            if (lastIndex != Long.MIN_VALUE)
-                                writeIndexForPosition(lastIndex, position);
-                            else
-                                assert lazyIndexing || lastIndex == Long.MIN_VALUE || checkIndex(lastIndex, position);
-                        }
-                        assert checkWritePositionHeaderNumber();
                     } else
                         if (wire != null) {
                             isClosed = true;
@@ -830,6 +1209,9 @@ public class SingleChronicleQueueExcerpts {
 
             @Override
             public long index() throws IORuntimeException {
+                // the index isn't known until a buffered message is copied to the queue.
+                if (buffered)
+                    return Long.MIN_VALUE;
                 if (this.wire.headerNumber() == Long.MIN_VALUE) {
                     try {
                         long headerNumber0 = queue.rollCycle().toIndex(cycle, store
@@ -850,6 +1232,146 @@ public class SingleChronicleQueueExcerpts {
             }
         }
 
+        class StoreAppenderReservation implements Reservation {
+            private long start;
+            private int maxLength;
+            private long writeLimit;
+            private boolean open = false;
+            // a second mapping of part of the cycle file, so a channel can read into the reserved space
+            @Nullable
+            private MappedByteBuffer channelView;
+            private int channelViewCycle = Integer.MIN_VALUE;
+            private long channelViewStart;
+
+            void open(int maxLength) {
+                assert wire != null;
+                final Bytes<?> bytes = wire.bytes();
+                this.start = position + 4;
+                this.maxLength = maxLength;
+                this.writeLimit = bytes.writeLimit();
+                bytes.writePosition(start);
+                bytes.writeLimit(start + maxLength);
+                this.open = true;
+            }
+
+            @NotNull
+            @Override
+            public Bytes<?> bytes() {
+                checkOpen();
+                assert wire != null;
+                return wire.bytes();
+            }
+
+            @Override
+            public int maxLength() {
+                return maxLength;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            private void checkOpen() {
+                if (!open)
+                    throw new IllegalStateException("The reservation has been committed or aborted");
+            }
+
+            @Override
+            public int read(@NotNull ReadableByteChannel channel) throws IOException {
+                checkOpen();
+                assert wire != null;
+                final Bytes<?> bytes = wire.bytes();
+                final long from = bytes.writePosition();
+                final long to = start + maxLength;
+                if (from >= to)
+                    return 0;
+                final ByteBuffer buffer = channelView(from, to);
+                final int read = channel.read(buffer);
+                if (read > 0)
+                    bytes.writePosition(from + read);
+                return read;
+            }
+
+            /**
+             * @return a view of the file from {@code from} to {@code to}. The file is mapped a block
+             * at a time, and the pages are shared with the mapping the appender writes to.
+             */
+            @NotNull
+            private ByteBuffer channelView(long from, long to) throws IOException {
+                MappedByteBuffer view = channelView;
+                if (view == null || channelViewCycle != cycle
+                        || from < channelViewStart || to > channelViewStart + view.capacity()) {
+                    final long viewStart = from & ~((long) OS.pageSize() - 1);
+                    try (FileChannel fileChannel = FileChannel.open(queue.fileForCycle(cycle).toPath(),
+                            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                        // the reserved space is within the mapped chunk and its overlap, so it is in the file.
+                        final long viewEnd = Math.max(to, Math.min(viewStart + queue.blockSize(), fileChannel.size()));
+                        view = fileChannel.map(FileChannel.MapMode.READ_WRITE, viewStart, viewEnd - viewStart);
+                    }
+                    channelView = view;
+                    channelViewCycle = cycle;
+                    channelViewStart = viewStart;
+                }
+                view.limit((int) (to - channelViewStart));
+                view.position((int) (from - channelViewStart));
+                return view;
+            }
+
+            void releaseChannelView() {
+                channelView = null;
+                channelViewCycle = Integer.MIN_VALUE;
+            }
+
+            private Bytes<?> close0() {
+                open = false;
+                assert wire != null;
+                final Bytes<?> bytes = wire.bytes();
+                bytes.writeLimit(writeLimit);
+                return bytes;
+            }
+
+            @Override
+            public void commit() throws UnrecoverableTimeoutException {
+                checkOpen();
+                assert wire != null;
+                final long length = wire.bytes().writePosition() - start;
+                if (length <= 0) {
+                    abort();
+                    return;
+                }
+                final Bytes<?> bytes = close0();
+                try {
+                    // anything written after the excerpt could be mistaken for the next header.
+                    bytes.zeroOut(start + length, start + maxLength);
+                    bytes.writePosition(start + length);
+                    publishDocument(padToCacheAlignMode() != Padding.NEVER, false);
+
+                } catch (StreamCorruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    assert resetAppendingThread();
+                }
+            }
+
+            @Override
+            public void abort() {
+                checkOpen();
+                final Bytes<?> bytes = close0();
+                try {
+                    bytes.zeroOut(start, start + maxLength);
+                    // publish the header as empty meta data, as a failed batch does, so the next appender can write after it.
+                    bytes.writePosition(start);
+                    discardHeader(position);
+
+                } catch (StreamCorruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    assert resetAppendingThread();
+                }
+            }
+        }
+
         @Override
         public String toString() {
             return "StoreAppender{" +
@@ -870,6 +1392,7 @@ public class SingleChronicleQueueExcerpts {
         private volatile Bytes bufferWireReference = null;
         private volatile Bytes wireForIndexReference = null;
         private volatile CommonStore storeReference = null;
+        private volatile TimeIndex timeIndexReference = null;
 
         ClosableResources(final SingleChronicleQueue queue) {
             this.queue = queue;
@@ -891,6 +1414,9 @@ public class SingleChronicleQueueExcerpts {
             if (storeReference != null && storeReference.refCount() > 0) {
                 queue.release(storeReference);
             }
+            final TimeIndex timeIndex = timeIndexReference;
+            if (timeIndex != null)
+                timeIndex.close();
         }
     }
 
@@ -905,6 +1431,11 @@ public class SingleChronicleQueueExcerpts {
      */
     public static class StoreTailer implements ExcerptTailer, SourceContext, ExcerptContext {
         static final int INDEXING_LINEAR_SCAN_THRESHOLD = 70;
+        private static final int AWAIT_SPINS = 1000;
+        private static final int AWAIT_YIELDS = 100;
+        private static final long AWAIT_MIN_PARK_NS = TimeUnit.MICROSECONDS.toNanos(20);
+        // bounds the delay in seeing an excerpt written by another process
+        private static final long AWAIT_MAX_PARK_NS = TimeUnit.MILLISECONDS.toNanos(1);
         @NotNull
         private final SingleChronicleQueue queue;
         private final StoreTailerContext context = new StoreTailerContext();
@@ -924,6 +1455,19 @@ public class SingleChronicleQueueExcerpts {
         private long indexAtCreation = Long.MIN_VALUE;
         private boolean readingDocumentFound = false;
         private final MoveToState moveToState = new MoveToState();
+        // only allocated once the tailer reads backwards
+        @Nullable
+        private BackwardPositions backwardPositions;
+        @Nullable
+        private final PositionCache positionCache;
+        private final PositionCache.Entry cachedBefore = new PositionCache.Entry();
+        @Nullable
+        private LongValue indexValue;
+        private int lastCycleToRead = Integer.MAX_VALUE;
+        // the time index of the last cycle moveToTime looked up
+        @Nullable
+        private TimeIndex timeIndex;
+        private int timeIndexCycle = Integer.MIN_VALUE;
 
         public StoreTailer(@NotNull final SingleChronicleQueue queue) {
             this.queue = queue;
@@ -931,6 +1475,7 @@ public class SingleChronicleQueueExcerpts {
             this.index = 0;
             queue.addCloseListener(this, StoreTailer::close);
             indexSpacingMask = queue.rollCycle().defaultIndexSpacing() - 1;
+            positionCache = queue.positionCacheForTailer();
             closableResources = new ClosableResources(queue);
             queue.ensureThatRollCycleDoesNotConflictWithExistingQueueFiles();
         }
@@ -961,6 +1506,10 @@ public class SingleChronicleQueueExcerpts {
         }
 
         private void close() {
+            indexValue = null;
+            closeTimeIndex();
+            if (backwardPositions != null)
+                backwardPositions.reset();
             context.wire(null);
             Wire w0 = wireForIndex;
             if (w0 != null)
@@ -1050,6 +1599,149 @@ public class SingleChronicleQueueExcerpts {
             return NoDocumentContext.INSTANCE;
         }
 
+        @Override
+        public boolean awaitNext(long timeout, @NotNull TimeUnit unit) {
+            if (direction != FORWARD)
+                throw new UnsupportedOperationException("Only a FORWARD tailer can wait for excerpts");
+            if (nextAvailable())
+                return true;
+            final long end = System.nanoTime() + unit.toNanos(timeout);
+            for (int i = 0; i < AWAIT_SPINS + AWAIT_YIELDS; i++) {
+                if (i >= AWAIT_SPINS)
+                    Thread.yield();
+                if (nextAvailable())
+                    return true;
+                if (System.nanoTime() - end >= 0)
+                    return false;
+            }
+
+            final Thread thread = Thread.currentThread();
+            // registered before checking again so an append in between unparks this thread.
+            queue.appendNotifier.register(thread);
+            try {
+                long parkNS = AWAIT_MIN_PARK_NS;
+                while (!nextAvailable()) {
+                    if (queue.isClosed.get())
+                        throw new IllegalStateException("Queue is closed");
+                    long remainingNS = end - System.nanoTime();
+                    if (remainingNS <= 0 || thread.isInterrupted())
+                        return false;
+                    LockSupport.parkNanos(this, Math.min(parkNS, remainingNS));
+                    parkNS = Math.min(parkNS * 2, AWAIT_MAX_PARK_NS);
+                }
+                return true;
+            } finally {
+                queue.appendNotifier.unregister(thread);
+            }
+        }
+
+        /**
+         * Check whether readingDocument could find an excerpt or move to another cycle, without
+         * changing the state of this tailer.
+         */
+        private boolean nextAvailable() {
+            switch (state) {
+                case UNINITIALISED:
+                    return queue.firstIndex() != Long.MAX_VALUE;
+                case FOUND_CYCLE:
+                    break;
+                default:
+                    return queue.lastCycle() > cycle;
+            }
+            final Wire wire = wire();
+            if (wire == null)
+                return true;
+            final Bytes<?> bytes = wire.bytes();
+            try {
+                bytes.readLimit(bytes.capacity());
+                int header = bytes.readVolatileInt(bytes.readPosition());
+                if (header == Wires.END_OF_DATA || (header != 0 && !Wires.isNotComplete(header)))
+                    return true;
+            } catch (DecoratedBufferUnderflowException e) {
+                // the end of a read-only view
+                return false;
+            }
+            // an appender may have moved to the next cycle without writing an EOF marker
+            return queue.time().currentTimeMillis() >= timeForNextCycle && queue.lastCycle() > cycle;
+        }
+
+        @Override
+        public int readBatch(int maxMessages, @NotNull BatchReader batchReader) {
+            if (direction != FORWARD || readAfterReplicaAcknowledged)
+                return ExcerptTailer.super.readBatch(maxMessages, batchReader);
+
+            int count = 0;
+            while (count < maxMessages) {
+                if (state == FOUND_CYCLE && wire() != null) {
+                    int read = readBatchInCycle(maxMessages - count, batchReader);
+                    count += read;
+                    if (read > 0)
+                        continue;
+                }
+                // the end of what has been written, or a cycle boundary which the normal path handles
+                try (DocumentContext dc = readingDocument()) {
+                    if (!dc.isPresent())
+                        break;
+                    batchReader.readExcerpt(dc.index(), dc.wire());
+                }
+                count++;
+            }
+            return count;
+        }
+
+        /**
+         * Walk the headers of the current cycle, reading the excerpts which are complete.
+         *
+         * @return the number of excerpts read, 0 if the next excerpt isn't ready or is in another
+         * cycle
+         */
+        private int readBatchInCycle(int maxMessages, @NotNull BatchReader batchReader) {
+            if (queue.isClosed.get())
+                throw new IllegalStateException("Queue is closed");
+            final RollCycle rollCycle = queue.rollCycle();
+            final Wire wire = wire();
+            final Bytes<?> bytes = wire.bytes();
+            bytes.readLimit(bytes.capacity());
+            long position = bytes.readPosition();
+            long sequence = rollCycle.toSequenceNumber(index);
+            int count = 0;
+            try {
+                while (count < maxMessages) {
+                    int header = bytes.readVolatileInt(position);
+                    if (header == 0 || header == Wires.END_OF_DATA || Wires.isNotComplete(header))
+                        break;
+                    long next = position + Wires.SPB_HEADER_SIZE + Wires.lengthOf(header);
+                    if (Wires.isReadyData(header)) {
+                        long excerptIndex = rollCycle.toIndex(cycle, sequence);
+                        if ((excerptIndex & indexSpacingMask) == 0 && !lazyIndexing && store.indexable(excerptIndex))
+                            store.setPositionForSequenceNumber(this, sequence, position);
+                        sequence++;
+                        count++;
+                        bytes.readLimit(next);
+                        bytes.readPosition(position + Wires.SPB_HEADER_SIZE);
+                        position = next;
+                        batchReader.readExcerpt(excerptIndex, wire);
+                    } else {
+                        position = next;
+                    }
+                }
+            } catch (StreamCorruptedException e) {
+                throw new IllegalStateException(e);
+            } catch (DecoratedBufferUnderflowException e) {
+                // the end of a read-only view, the normal path reports it.
+            } finally {
+                bytes.readLimit(bytes.capacity());
+                bytes.readPosition(position);
+                if (count > 0) {
+                    this.index = rollCycle.toIndex(cycle, sequence);
+                    persistIndex();
+                    moveToState.reset();
+                    readingDocumentFound = true;
+                }
+            }
+            return count;
+        }
+
         private boolean next0(boolean includeMetaData) throws UnrecoverableTimeoutException, StreamCorruptedException {
             for (int i = 0; i < 1000; i++) {
                 switch (state) {
@@ -1073,6 +1765,8 @@ public class SingleChronicleQueueExcerpts {
                     case END_OF_CYCLE: {
                         long oldIndex = this.index;
                         int currentCycle = queue.rollCycle().toCycle(oldIndex);
+                        if (currentCycle >= lastCycleToRead && direction == FORWARD)
+                            return false;
                         long nextIndex = nextIndexWithNextAvailableCycle(currentCycle);
 
                         if (nextIndex != Long.MIN_VALUE) {
@@ -1103,7 +1797,7 @@ public class SingleChronicleQueueExcerpts {
                             boolean foundCycle = cycle(queue.rollCycle().toCycle(index), false);
 
                             if (foundCycle) {
-                                long lastSequenceNumberInThisCycle = store.sequenceForPosition(this, Long.MAX_VALUE, false);
+                                long lastSequenceNumberInThisCycle = store.lastSequenceNumber(this);
                                 long nextIndex = queue.rollCycle().toIndex(this.cycle,
                                         lastSequenceNumberInThisCycle);
                                 moveToIndexInternal(nextIndex);
@@ -1184,6 +1878,8 @@ public class SingleChronicleQueueExcerpts {
         }
 
         private boolean inACycleNotForward() {
+            if (direction == BACKWARD && moveToBackwardPosition(index))
+                return false;
             if (!moveToIndexInternal(index)) {
                 try {
                     // after toEnd() call, index is past the end of the queue
@@ -1199,6 +1895,71 @@ public class SingleChronicleQueueExcerpts {
             return false;
         }
 
+        /**
+         * Reading backwards, the positions of the excerpts in the index block of the next read are
+         * found once by walking forward from the start of the block, so each step back is a lookup
+         * in that block rather than an index lookup and linear scan of its own.
+         *
+         * @return true if the wire is now at the excerpt for this index.
+         */
+        private boolean moveToBackwardPosition(long index) {
+            if (state != FOUND_CYCLE || store == null || wire() == null)
+                return false;
+            final RollCycle rollCycle = queue.rollCycle();
+            if (rollCycle.toCycle(index) != cycle)
+                return false;
+            final long sequence = rollCycle.toSequenceNumber(index);
+            final BackwardPositions backwardPositions = backwardPositions();
+            long position = backwardPositions.position(cycle, sequence);
+            if (position < 0) {
+                fillBackwardPositions(sequence);
+                position = backwardPositions.position(cycle, sequence);
+                if (position < 0)
+                    return false;
+            }
+            final Bytes<?> bytes = wire().bytes();
+            bytes.readLimit(bytes.capacity());
+            bytes.readPosition(position);
+            return true;
+        }
+
+        @NotNull
+        private BackwardPositions backwardPositions() {
+            if (backwardPositions == null)
+                backwardPositions = new BackwardPositions(queue.indexSpacing());
+            return backwardPositions;
+        }
+
+        private void fillBackwardPositions(long sequence) {
+            final BackwardPositions backwardPositions = backwardPositions();
+            backwardPositions.reset();
+            final RollCycle rollCycle = queue.rollCycle();
+            final long firstSequence = sequence & ~(backwardPositions.capacity() - 1);
+            final long index = this.index;
+            if (!moveToIndexInternal(rollCycle.toIndex(cycle, firstSequence))) {
+                index(index);
+                return;
+            }
+            final Bytes<?> bytes = wire().bytes();
+            long position = bytes.readPosition();
+            backwardPositions.start(cycle, firstSequence);
+            try {
+                for (long seq = firstSequence; seq <= sequence; ) {
+                    int header = bytes.readVolatileInt(position);
+                    if (header == 0 || header == Wires.END_OF_DATA || Wires.isNotComplete(header))
+                        break;
+                    if (Wires.isReadyData(header)) {
+                        backwardPositions.add(position);
+                        seq++;
+                    }
+                    position += Wires.SPB_HEADER_SIZE + Wires.lengthOf(header);
+                }
+            } catch (DecoratedBufferUnderflowException e) {
+                // the end of a read-only view, only the positions found so far are used.
+            }
+            index(index);
+        }
+
         private void inACycleFound(Bytes<?> bytes) throws StreamCorruptedException {
             if ((index & indexSpacingMask) == 0)
                 indexEntry(bytes);
@@ -1359,6 +2120,14 @@ public class SingleChronicleQueueExcerpts {
 
         @Override
         public boolean moveToIndex(final long index) {
+            final boolean found = moveToIndex0(index);
+            // only a successful move is persisted, otherwise the tailer would restart from where it failed
+            if (found)
+                persistIndex();
+            return found;
+        }
+
+        private boolean moveToIndex0(final long index) {
             if (moveToState.canReuseLastIndexMove(index, state, direction, queue, wire())) {
                 return true;
             } else if (moveToState.indexIsCloseToAndAheadOfLastIndexMove(index, state, direction, queue)) {
@@ -1390,11 +2159,18 @@ public class SingleChronicleQueueExcerpts {
             }
 
             index(index);
-            ScanResult scanResult = this.store.moveToIndexForRead(this, sequenceNumber);
             Bytes<?> bytes = wire().bytes();
+            if (positionCache != null && moveToCachedPosition(positionCache, index)) {
+                state = FOUND_CYCLE;
+                moveToState.onSuccessfulLookup(index, direction, bytes.readPosition());
+                return FOUND;
+            }
+            ScanResult scanResult = this.store.moveToIndexForRead(this, sequenceNumber);
             if (scanResult == FOUND) {
                 state = FOUND_CYCLE;
                 moveToState.onSuccessfulLookup(index, direction, bytes.readPosition());
+                if (positionCache != null)
+                    positionCache.put(index, bytes.readPosition());
                 return scanResult;
             }
 
@@ -1402,6 +2178,104 @@ public class SingleChronicleQueueExcerpts {
             return scanResult;
         }
 
+        private boolean moveToCachedPosition(@NotNull PositionCache positionCache, long index) {
+            final Bytes<?> bytes = wire().bytes();
+            final long position = positionCache.position(index);
+            if (position >= 0) {
+                bytes.readLimit(bytes.capacity());
+                bytes.readPosition(position);
+                return true;
+            }
+            final PositionCache.Entry before = this.cachedBefore;
+            if (positionCache.before(index, before) && store.linearScanTo(index, before.index, this, before.position) == FOUND) {
+                positionCache.put(index, bytes.readPosition());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean moveToTime(long epochNanos) {
+            final RollCycle rollCycle = queue.rollCycle();
+            final NavigableSet<Long> cycles;
+            try {
+                final int firstCycle = queue.firstCycle();
+                if (firstCycle == Integer.MAX_VALUE) {
+                    toEnd();
+                    return false;
+                }
+                cycles = queue.listCyclesBetween(firstCycle, queue.lastCycle());
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+            // the appenders pick their cycle with the same clock they record times with
+            final long timeCycle = Math.floorDiv(epochNanos / 1_000_000L - queue.epoch(), rollCycle.length());
+            Long cycle = cycles.floor(timeCycle);
+            long sequenceNumber = 0;
+            if (cycle == null)
+                cycle = cycles.isEmpty() ? null : cycles.first();
+            else if (cycle == timeCycle)
+                sequenceNumber = firstSequenceNotBefore(cycle.intValue(), epochNanos);
+            else
+                cycle = cycles.higher(cycle);
+
+            for (; cycle != null; cycle = cycles.higher(cycle), sequenceNumber = 0) {
+                if (moveToIndex(rollCycle.toIndex(cycle.intValue(), sequenceNumber)))
+                    return true;
+            }
+            toEnd();
+            return false;
+        }
+
+        /**
+         * @return the sequence number after the last indexed excerpt of the cycle written before the
+         * time, or 0 if there isn't one or the cycle has no time index.
+         */
+        private long firstSequenceNotBefore(int cycle, long epochNanos) {
+            final TimeIndex timeIndex = timeIndex(cycle);
+            return timeIndex == null ? 0 : timeIndex.lastSequenceBefore(epochNanos) + 1;
+        }
+
+        /**
+         * @return the time index of a cycle, kept mapped until another cycle is looked up or the
+         * tailer is closed, or null if the cycle doesn't have one yet
+         */
+        @Nullable
+        private TimeIndex timeIndex(int cycle) {
+            if (timeIndexCycle == cycle)
+                return timeIndex;
+            closeTimeIndex();
+            final TimeIndex timeIndex;
+            try {
+                timeIndex = TimeIndex.forReading(queue.fileForCycle(cycle));
+            } catch (FileNotFoundException e) {
+                return null;
+            }
+            if (timeIndex != null) {
+                this.timeIndex = timeIndex;
+                timeIndexCycle = cycle;
+                closableResources.timeIndexReference = timeIndex;
+            }
+            return timeIndex;
+        }
+
+        private void closeTimeIndex() {
+            final TimeIndex timeIndex = this.timeIndex;
+            this.timeIndex = null;
+            timeIndexCycle = Integer.MIN_VALUE;
+            closableResources.timeIndexReference = null;
+            if (timeIndex != null)
+                timeIndex.close();
+        }
+
+        /**
+         * @return the cache of positions by index used by this tailer, or null if there isn't one.
+         */
+        @Nullable
+        public PositionCache positionCache() {
+            return positionCache;
+        }
+
         @NotNull
         @Override
         public final ExcerptTailer toStart() {
@@ -1419,6 +2293,7 @@ public class SingleChronicleQueueExcerpts {
                     state = FOUND_CYCLE;
             }
             index(queue.rollCycle().toIndex(cycle, 0));
+            persistIndex();
 
             state = FOUND_CYCLE;
             if (wire() != null)
@@ -1534,6 +2409,11 @@ public class SingleChronicleQueueExcerpts {
                     state = UNINITIALISED;
                 return this;
             }
+            if (toEndOfStore(index)) {
+                persistIndex();
+                return this;
+            }
+
             final ScanResult scanResult = moveToIndexResult(index);
             switch (scanResult) {
                 case NOT_FOUND:
@@ -1560,10 +2440,47 @@ public class SingleChronicleQueueExcerpts {
                     approximateLastIndex();
                     throw new IllegalStateException("NOT_REACHED index: " + Long.toHexString(index));
             }
+            if (state == FOUND_CYCLE)
+                persistIndex();
 
             return this;
         }
 
+        /**
+         * Moves to the end using the position of the last excerpt held in the header of the store,
+         * without an index lookup.
+         *
+         * @param lastIndex the index of the last excerpt
+         * @return false if the header doesn't hold the position of this excerpt.
+         */
+        private boolean toEndOfStore(long lastIndex) {
+            final WireStore store = this.store;
+            final Wire wire = wire();
+            if (store == null || wire == null)
+                return false;
+            final RollCycle rollCycle = queue.rollCycle();
+            final long position = store.writePosition();
+            final long sequenceNumber = store.sequenceForWritePosition(position);
+            if (sequenceNumber < 0 || rollCycle.toIndex(cycle, sequenceNumber) != lastIndex)
+                return false;
+            final Bytes<?> bytes = wire.bytes();
+            final int header = bytes.readVolatileInt(position);
+            if (!Wires.isReadyData(header))
+                return false;
+
+            state = FOUND_CYCLE;
+            moveToState.reset();
+            bytes.readLimit(bytes.capacity());
+            if (direction == FORWARD) {
+                index(lastIndex + 1);
+                bytes.readPosition(position + Wires.SPB_HEADER_SIZE + Wires.lengthOf(header));
+            } else {
+                index(lastIndex);
+                bytes.readPosition(position);
+            }
+            return true;
+        }
+
         @Override
         public TailerDirection direction() {
             return direction;
@@ -1620,12 +2537,13 @@ public class SingleChronicleQueueExcerpts {
                 case BACKWARD:
                     if (seq < 0) {
                         windBackCycle(cycle);
+                        persistIndex();
                         return;
                     }
                     break;
             }
             this.index = rollCycle.toIndex(cycle, seq);
-
+            persistIndex();
         }
 
         private void windBackCycle(int cycle) {
@@ -1661,6 +2579,36 @@ public class SingleChronicleQueueExcerpts {
             moveToState.reset();
         }
 
+        /**
+         * Persist the index of this tailer in {@code indexValue}, first moving to the index
+         * already there if there is one.
+         */
+        void indexValue(@NotNull LongValue indexValue) {
+            long index = indexValue.getVolatileValue();
+            // if the cycle no longer exists, this stays at the start.
+            if (index != Long.MIN_VALUE)
+                moveToIndex(index);
+            this.indexValue = indexValue;
+            persistIndex();
+        }
+
+        /**
+         * Stop reading forward at the end of a cycle, rather than moving to the next one.
+         */
+        void lastCycleToRead(int lastCycleToRead) {
+            this.lastCycleToRead = lastCycleToRead;
+        }
+
+        /**
+         * Called once a read or move has succeeded, not by {@link #index(long)} as it is also used
+         * by lookups which can fail.
+         */
+        private void persistIndex() {
+            final LongValue indexValue = this.indexValue;
+            if (indexValue != null)
+                indexValue.setOrderedValue(index);
+        }
+
         private boolean cycle(final int cycle, boolean createIfAbsent) {
             if (this.cycle == cycle && state == FOUND_CYCLE)
                 return true;
@@ -1862,6 +2810,47 @@ public class SingleChronicleQueueExcerpts {
             }
         }
 
+        /**
+         * The positions of consecutive excerpts from the start of an index block of a cycle.
+         */
+        private static final class BackwardPositions {
+            private final long[] positions;
+            private int cycle = Integer.MIN_VALUE;
+            private long firstSequence;
+            private int count;
+
+            BackwardPositions(int indexSpacing) {
+                this.positions = new long[indexSpacing];
+            }
+
+            int capacity() {
+                return positions.length;
+            }
+
+            void start(int cycle, long firstSequence) {
+                this.cycle = cycle;
+                this.firstSequence = firstSequence;
+                this.count = 0;
+            }
+
+            void add(long position) {
+                if (count < positions.length)
+                    positions[count++] = position;
+            }
+
+            long position(int cycle, long sequence) {
+                if (cycle != this.cycle)
+                    return -1;
+                long offset = sequence - firstSequence;
+                return offset >= 0 && offset < count ? positions[(int) offset] : -1;
+            }
+
+            void reset() {
+                cycle = Integer.MIN_VALUE;
+                count = 0;
+            }
+        }
+
         private static final class MoveToState {
             private long lastMovedToIndex = Long.MIN_VALUE;
             private TailerDirection directionAtLastMoveTo = TailerDirection.NONE;
@@ -33,6 +33,8 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.StreamCorruptedException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -43,6 +45,9 @@ public class SingleChronicleQueueStore implements WireStore {
         ClassAliasPool.CLASS_ALIASES.addAlias(SCQRoll.class, "Roll");
     }
 
+    // how far an appender which doesn't know its sequence number counts from the last one recorded
+    private static final int MAX_EXCERPTS_BETWEEN = 16;
+
     @NotNull
     final SCQIndexing indexing;
     @NotNull
@@ -67,7 +72,17 @@ public class SingleChronicleQueueStore implements WireStore {
     @NotNull
     private final LongValue encodedSequence;
 
-    private transient Sequence sequence;
+    private transient RollCycleEncodeSequence sequence;
+
+    // the cycle file name given to a pre-created file while it was mapped
+    @Nullable
+    private transient volatile File cycleFile;
+
+    // set once the cycle is sealed, null if it can't be
+    @Nullable
+    private final LongValue sealedExcerpts;
+    @Nullable
+    private final LongValue sealedLength;
 
     /**
      * used by {@link net.openhft.chronicle.wire.Demarshallable}
@@ -116,9 +131,19 @@ public class SingleChronicleQueueStore implements WireStore {
 
             if (wire.bytes().readRemaining() > 0) {
                 wire.read(MetaDataField.encodedSequence).int64(encodedSequence);
-                this.sequence = new RollCycleEncodeSequence(encodedSequence, rollIndexCount(), rollIndexSpacing());
+                this.sequence = new RollCycleEncodeSequence(encodedSequence, writePosition, rollIndexCount(), rollIndexSpacing(), indexLevels());
             } else {
-                this.sequence = new RollCycleEncodeSequence(null, rollIndexCount(), rollIndexSpacing());
+                this.sequence = new RollCycleEncodeSequence(null, writePosition, rollIndexCount(), rollIndexSpacing(), indexLevels());
+            }
+
+            if (wire.bytes().readRemaining() > 0) {
+                this.sealedExcerpts = wire.newLongReference();
+                wire.read(MetaDataField.sealedExcerpts).int64(sealedExcerpts);
+                this.sealedLength = wire.newLongReference();
+                wire.read(MetaDataField.sealedLength).int64(sealedLength);
+            } else {
+                this.sealedExcerpts = null;
+                this.sealedLength = null; // disabled.
             }
 
 
@@ -146,6 +171,39 @@ public class SingleChronicleQueueStore implements WireStore {
                                      int indexSpacing,
                                      StoreRecovery recovery,
                                      int deltaCheckpointInterval) {
+        this(rollCycle, wireType, mappedBytes, epoch, indexCount, indexSpacing, recovery, deltaCheckpointInterval, SCQIndexing.TWO_LEVELS);
+    }
+
+    /**
+     * @param indexLevels the number of levels of the index, with three levels the index arrays are
+     *                    sized to index at least as many excerpts as two levels of indexCount
+     */
+    public SingleChronicleQueueStore(@Nullable RollCycle rollCycle,
+                                     @NotNull final WireType wireType,
+                                     @NotNull MappedBytes mappedBytes,
+                                     long epoch,
+                                     int indexCount,
+                                     int indexSpacing,
+                                     StoreRecovery recovery,
+                                     int deltaCheckpointInterval,
+                                     int indexLevels) {
+        this(rollCycle, wireType, mappedBytes, epoch, indexCount, indexSpacing, recovery, deltaCheckpointInterval, indexLevels, false);
+    }
+
+    /**
+     * @param sealable if true, the store records its length and number of excerpts when it is
+     *                 rolled, so it can be truncated to it later
+     */
+    public SingleChronicleQueueStore(@Nullable RollCycle rollCycle,
+                                     @NotNull final WireType wireType,
+                                     @NotNull MappedBytes mappedBytes,
+                                     long epoch,
+                                     int indexCount,
+                                     int indexSpacing,
+                                     StoreRecovery recovery,
+                                     int deltaCheckpointInterval,
+                                     int indexLevels,
+                                     boolean sealable) {
         this.recovery = recovery;
         this.roll = new SCQRoll(rollCycle, epoch);
         this.wireType = wireType;
@@ -155,13 +213,18 @@ public class SingleChronicleQueueStore implements WireStore {
 
         indexCount = Maths.nextPower2(indexCount, 8);
         indexSpacing = Maths.nextPower2(indexSpacing, 1);
+        if (indexLevels == SCQIndexing.THREE_LEVELS)
+            indexCount = Maths.nextPower2(SCQIndexing.threeLevelIndexCount(indexCount), 8);
 
-        this.indexing = new SCQIndexing(wireType, indexCount, indexSpacing);
+        this.indexing = new SCQIndexing(wireType, indexCount, indexSpacing, indexLevels);
         this.indexing.writePosition = this.writePosition = wireType.newLongReference().get();
         this.encodedSequence = wireType.newLongReference().get();
-        this.indexing.sequence = this.sequence = new RollCycleEncodeSequence(this.encodedSequence, rollCycle.defaultIndexCount(), rollCycle.defaultIndexSpacing());
+        // encoded as it will be decoded when the store is loaded
+        this.indexing.sequence = this.sequence = new RollCycleEncodeSequence(this.encodedSequence, this.writePosition, indexCount, indexSpacing, indexLevels);
         this.lastAcknowledgedIndexReplicated = wireType.newLongReference().get();
         this.deltaCheckpointInterval = deltaCheckpointInterval;
+        this.sealedExcerpts = sealable ? wireType.newLongReference().get() : null;
+        this.sealedLength = sealable ? wireType.newLongReference().get() : null;
     }
 
     public static void dumpStore(@NotNull Wire wire) {
@@ -188,9 +251,19 @@ public class SingleChronicleQueueStore implements WireStore {
     @Nullable
     @Override
     public File file() {
+        final File cycleFile = this.cycleFile;
+        if (cycleFile != null)
+            return cycleFile;
         return mappedFile == null ? null : mappedFile.file();
     }
 
+    /**
+     * @param cycleFile the name the file of this store has been given since it was mapped
+     */
+    void cycleFile(@NotNull File cycleFile) {
+        this.cycleFile = cycleFile;
+    }
+
     /**
      * when using replication to another host, this is the last index that has been confirmed to *
      * have been read by the remote host.
@@ -227,15 +300,58 @@ public class SingleChronicleQueueStore implements WireStore {
     @NotNull
     @Override
     public WireStore writePosition(long position) {
+        writePosition0(position);
+        // the appender doesn't know the sequence number, e.g. with lazy indexing
+        sequence.sequenceAfter(position, this::excerptsBetween);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public WireStore writePosition(long position, long sequenceNumber) {
+        writePosition0(position);
+        sequence.sequence(sequenceNumber, position);
+        return this;
+    }
 
+    private void writePosition0(long position) {
         assert writePosition.getVolatileValue() + mappedFile.chunkSize() > position;
         int header = mappedBytes.readVolatileInt(position);
-        if (Wires.isReadyData(header)) {
+        if (Wires.isReadyData(header))
             writePosition.setMaxValue(position);
-            sequence.sequence(header, position);
-        } else
+        else
             throw new AssertionError();
-        return this;
+    }
+
+    /**
+     * Counts the excerpts from one excerpt to another by walking their headers, as long as there
+     * are only a few in between and they are all complete.
+     *
+     * @param from the position of an excerpt, or 0 for the header of the store
+     * @param to   the position of a later excerpt
+     * @return the number of excerpts after from, up to and including to, or -1 if not counted
+     */
+    private long excerptsBetween(long from, long to) {
+        long position = from;
+        long count = 0;
+        for (int i = 0; i <= MAX_EXCERPTS_BETWEEN; i++) {
+            final int header = mappedBytes.readVolatileInt(position);
+            if (!Wires.isReady(header))
+                return -1;
+            if (position > from && Wires.isData(header))
+                count++;
+            if (position == to)
+                return count;
+            position += Wires.SPB_HEADER_SIZE + Wires.lengthOf(header);
+            if (position > to)
+                return -1;
+        }
+        return -1;
+    }
+
+    @Override
+    public long sequenceForWritePosition(long position) {
+        return sequence.sequence(position);
     }
 
     /**
@@ -304,6 +420,14 @@ public class SingleChronicleQueueStore implements WireStore {
 
     @Override
     public long lastSequenceNumber(@NotNull ExcerptContext ec) throws StreamCorruptedException {
+        final long excerpts = sealedExcerpts();
+        if (excerpts >= 0)
+            return excerpts - 1;
+        // the header holds the sequence number of the excerpt at the write position, unless
+        // another appender is between updating the two.
+        final long sequenceNumber = sequence.sequence(writePosition());
+        if (sequenceNumber >= 0)
+            return sequenceNumber;
         return indexing.lastSequenceNumber(recovery, ec);
     }
 
@@ -344,6 +468,9 @@ public class SingleChronicleQueueStore implements WireStore {
         wire.write(MetaDataField.recovery).typedMarshallable(recovery);
         wire.write(MetaDataField.deltaCheckpointInterval).int32(this.deltaCheckpointInterval);
         wire.write(MetaDataField.encodedSequence).int64forBinding(0L, encodedSequence);
+        if (sealedExcerpts != null && sealedLength != null)
+            wire.write(MetaDataField.sealedExcerpts).int64forBinding(-1L, sealedExcerpts)
+                    .write(MetaDataField.sealedLength).int64forBinding(0L, sealedLength);
         wire.padToCacheAlign();
     }
 
@@ -352,6 +479,14 @@ public class SingleChronicleQueueStore implements WireStore {
         return indexing.indexable(index);
     }
 
+    /**
+     * @return the sequence number of the next entry to be added to the index, every earlier entry
+     * which should be indexed has been.
+     */
+    long nextEntryToBeIndexed() {
+        return indexing.nextEntryToBeIndexed();
+    }
+
     @Override
     public void setPositionForSequenceNumber(@NotNull final ExcerptContext ec, long sequenceNumber,
                                              long position)
@@ -383,13 +518,84 @@ public class SingleChronicleQueueStore implements WireStore {
     public void writeEOF(@NotNull Wire wire, long timeoutMS) throws TimeoutException {
         // just in case we are about to release this
         if (wire.bytes().tryReserve()) {
-            wire.writeEndOfWire(timeoutMS, TimeUnit.MILLISECONDS, writePosition());
-            wire.bytes().release();
+            try {
+                wire.writeEndOfWire(timeoutMS, TimeUnit.MILLISECONDS, writePosition());
+                if (sealedLength != null && sealedLength.getVolatileValue() == 0)
+                    seal();
+            } finally {
+                wire.bytes().release();
+            }
         } else {
             Jvm.debug().on(getClass(), "Tried to writeEOF to as it was being closed");
         }
     }
 
+    /**
+     * Records the number of excerpts and the length of the store after its EOF has been written,
+     * so they can be read without an index lookup. The file isn't truncated here, as other
+     * appenders can still have the chunks after the EOF mapped, see {@link #truncateSealed()}.
+     */
+    private void seal() {
+        final MappedBytes bytes = bytes();
+        try {
+            final long position = writePosition();
+            final long sequenceNumber = sequenceForWritePosition(position);
+            // only sealed if the count can be known without a scan of the cycle.
+            if (sequenceNumber < 0 || !Wires.isReadyData(bytes.readVolatileInt(position)))
+                return;
+            // another appender can have added excerpts before the EOF without moving the write position yet.
+            final long excerpts = sequenceNumber + HeaderWalker.walk(bytes, position, Long.MAX_VALUE, Long.MAX_VALUE);
+            final long end = bytes.readPosition();
+            if (bytes.readVolatileInt(end) != Wires.END_OF_DATA)
+                return;
+            sealedExcerpts.setOrderedValue(excerpts);
+            sealedLength.setOrderedValue(end + Wires.SPB_HEADER_SIZE);
+        } finally {
+            bytes.release();
+        }
+    }
+
+    /**
+     * Truncates a sealed store after the chunk its EOF is in. Truncating a file another process
+     * has mapped beyond the new length makes it crash when it touches those pages, so this is
+     * only safe long enough after the roll that no appender can still be working on it.
+     *
+     * @return true if the store was sealed
+     */
+    boolean truncateSealed() {
+        final long length = sealedLength();
+        if (length <= 0)
+            return false;
+        final File file = file();
+        // keep all of the mapping of the last chunk, readers of the store can have it mapped.
+        final long chunkSize = mappedFile.chunkSize();
+        final long size = ((length - 1) / chunkSize + 1) * chunkSize + mappedFile.overlapSize();
+        if (file == null || file.length() <= size)
+            return true;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(size);
+        } catch (IOException e) {
+            Jvm.debug().on(getClass(), "Unable to truncate " + file, e);
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of excerpts in this store if it has been sealed, otherwise -1
+     */
+    long sealedExcerpts() {
+        return sealedLength == null || sealedExcerpts == null || sealedLength.getVolatileValue() == 0
+                ? -1 : sealedExcerpts.getVolatileValue();
+    }
+
+    /**
+     * @return the length of this store up to and including its EOF if it has been sealed, otherwise
+     * 0
+     */
+    long sealedLength() {
+        return sealedLength == null ? 0 : sealedLength.getVolatileValue();
+    }
+
     @Override
     public int deltaCheckpointInterval() {
         return deltaCheckpointInterval;
@@ -403,6 +609,10 @@ public class SingleChronicleQueueStore implements WireStore {
         return indexing.indexCount();
     }
 
+    int indexLevels() {
+        return indexing.indexLevels();
+    }
+
     int rollIndexSpacing() {
         return indexing.indexSpacing();
     }
@@ -2,11 +2,13 @@ package net.openhft.chronicle.queue.impl.single;
 
 import net.openhft.chronicle.core.values.LongValue;
 import net.openhft.chronicle.queue.impl.TableStore;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.function.ToIntFunction;
 
 final class TableDirectoryListing implements DirectoryListing {
@@ -26,15 +28,30 @@ final class TableDirectoryListing implements DirectoryListing {
     private volatile LongValue lock;
     private volatile LongValue modCount;
     private final boolean readOnly;
+    @Nullable
+    private final CycleCatalogue catalogue;
 
     TableDirectoryListing(
             final TableStore tableStore, final Path queuePath,
             final ToIntFunction<File> fileToCycleFunction,
             final boolean readOnly) {
+        this(tableStore, queuePath, fileToCycleFunction, readOnly, null);
+    }
+
+    /**
+     * @param catalogue of the cycles of the queue, kept up to date as files are created and the
+     *                  directory is listed, or null if there isn't one
+     */
+    TableDirectoryListing(
+            final TableStore tableStore, final Path queuePath,
+            final ToIntFunction<File> fileToCycleFunction,
+            final boolean readOnly,
+            @Nullable final CycleCatalogue catalogue) {
         this.tableStore = tableStore;
         this.queuePath = queuePath;
         this.fileToCycleFunction = fileToCycleFunction;
         this.readOnly = readOnly;
+        this.catalogue = catalogue;
     }
 
     @Override
@@ -69,6 +86,12 @@ final class TableDirectoryListing implements DirectoryListing {
             LOGGER.warn("DirectoryListing is read-only, not updating listing");
             return;
         }
+        // files already in the catalogue are opened far more often than new ones are created.
+        if (catalogue != null && !catalogue.contains(cycle))
+            tableStore.doWithExclusiveLock(ts -> {
+                catalogue.add(cycle);
+                return null;
+            });
         modCount.addAtomicValue(1);
         if (cycle > getMaxCreatedCycle()) {
             maxCycleValue.setOrderedValue(cycle);
@@ -78,6 +101,27 @@ final class TableDirectoryListing implements DirectoryListing {
         }
     }
 
+    @Override
+    public void onFileDeleted(final File file, final int cycle) {
+        if (readOnly) {
+            LOGGER.warn("DirectoryListing is read-only, not updating listing");
+            return;
+        }
+        tableStore.doWithExclusiveLock(ts -> {
+            if (catalogue != null) {
+                catalogue.remove(cycle);
+                final CycleCatalogue.Cycles cycles = catalogue.cycles();
+                // tailers moving to the start go to the next cycle before the file is removed.
+                if (cycle == getMinCycleValue())
+                    minCycleValue.setOrderedValue(cycles.isEmpty() ? UNSET_MIN_CYCLE : cycles.first());
+                if (cycles.isEmpty())
+                    maxCycleValue.setOrderedValue(UNSET_MAX_CYCLE);
+            }
+            modCount.addAtomicValue(1);
+            return null;
+        });
+    }
+
     @Override
     public int getMaxCreatedCycle() {
         return getMaxCycleValue();
@@ -112,16 +156,29 @@ final class TableDirectoryListing implements DirectoryListing {
         int min = UNSET_MIN_CYCLE;
         int max = UNSET_MAX_CYCLE;
         if (queueFiles != null) {
-            for (File queueFile : queueFiles) {
-                min = Math.min(fileToCycleFunction.applyAsInt(queueFile), min);
-                max = Math.max(fileToCycleFunction.applyAsInt(queueFile), max);
+            final int[] cycles = new int[queueFiles.length];
+            for (int i = 0; i < queueFiles.length; i++) {
+                cycles[i] = fileToCycleFunction.applyAsInt(queueFiles[i]);
+                min = Math.min(cycles[i], min);
+                max = Math.max(cycles[i], max);
             }
             maxCycleValue.setOrderedValue(max);
             minCycleValue.setOrderedValue(min);
+            if (catalogue != null) {
+                // picks up files created or deleted by anything which doesn't update the catalogue
+                Arrays.sort(cycles);
+                if (!catalogue.cycles().sameAs(cycles))
+                    tableStore.doWithExclusiveLock(ts -> {
+                        catalogue.replaceAll(cycles);
+                        return null;
+                    });
+            }
         }
     }
 
     void close() {
+        if (catalogue != null)
+            catalogue.close();
         tableStore.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.OS;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+
+/**
+ * A sparse index of the wall clock time the excerpts of a cycle were written, kept in a file next
+ * to the cycle file. Entry k holds the time in epoch nanoseconds the excerpt with sequence number
+ * k * spacing was written, or 0 if it hasn't been recorded, so the entries of a cycle are in time
+ * order and can be binary searched without reading any excerpts.
+ * <p>
+ * The first 8 bytes of the file hold the spacing, set by the first appender to write to it.
+ */
+final class TimeIndex implements Closeable {
+    static final String SUFFIX = ".time";
+    private static final long CHUNK_SIZE = 64 << 10;
+    private static final int HEADER_SIZE = 8;
+    private static final int ENTRY_SIZE = 8;
+
+    @NotNull
+    private final File file;
+    @NotNull
+    private final MappedBytes bytes;
+    private final int spacingBits;
+    private final long spacingMask;
+
+    private TimeIndex(@NotNull File file, @NotNull MappedBytes bytes, long spacing) {
+        this.file = file;
+        this.bytes = bytes;
+        this.spacingBits = Maths.intLog2(spacing);
+        this.spacingMask = spacing - 1;
+    }
+
+    @NotNull
+    static File fileFor(@NotNull File cycleFile) {
+        return new File(cycleFile.getParentFile(), cycleFile.getName() + SUFFIX);
+    }
+
+    /**
+     * @param cycleFile of the cycle to index
+     * @param spacing   the number of excerpts between entries, a power of 2, unless the file
+     *                  already has one
+     */
+    @NotNull
+    static TimeIndex forAppending(@NotNull File cycleFile, int spacing) throws FileNotFoundException {
+        File file = fileFor(cycleFile);
+        MappedBytes bytes = MappedBytes.mappedBytes(file, CHUNK_SIZE);
+        bytes.compareAndSwapLong(0, 0L, spacing);
+        return new TimeIndex(file, bytes, bytes.readVolatileLong(0));
+    }
+
+    /**
+     * @return the time index of the cycle, or null if the cycle doesn't have one
+     */
+    @Nullable
+    static TimeIndex forReading(@NotNull File cycleFile) throws FileNotFoundException {
+        File file = fileFor(cycleFile);
+        if (file.length() < HEADER_SIZE)
+            return null;
+        MappedBytes bytes = MappedBytes.mappedBytes(file, CHUNK_SIZE, OS.pageSize(), !OS.isWindows());
+        long spacing = bytes.readVolatileLong(0);
+        if (spacing <= 0) {
+            bytes.release();
+            return null;
+        }
+        return new TimeIndex(file, bytes, spacing);
+    }
+
+    /**
+     * Records the time an excerpt was written if its sequence number has an entry.
+     */
+    void record(long sequenceNumber, long epochNanos) {
+        if (!isIndexed(sequenceNumber))
+            return;
+        bytes.writeOrderedLong(HEADER_SIZE + (sequenceNumber >>> spacingBits) * ENTRY_SIZE, epochNanos);
+    }
+
+    boolean isIndexed(long sequenceNumber) {
+        return (sequenceNumber & spacingMask) == 0;
+    }
+
+    /**
+     * @return the sequence number of the last indexed excerpt written before this time, or -1 if
+     * there isn't one.
+     */
+    long lastSequenceBefore(long epochNanos) {
+        long low = 0;
+        long high = (file.length() - HEADER_SIZE) / ENTRY_SIZE - 1;
+        long found = -1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long time = bytes.readVolatileLong(HEADER_SIZE + mid * ENTRY_SIZE);
+            // unrecorded entries are treated as later, which can only move a search earlier
+            if (time != 0 && time < epochNanos) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? -1 : found << spacingBits;
+    }
+
+    @Override
+    public void close() {
+        bytes.release();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * The listing of a read only queue, which lists the directory once and is then told of the cycle
+ * files created and deleted by the {@link DirectoryWatcher}, so a tailer finds a new cycle as
+ * soon as it is created without listing the directory. If the directory can't be watched, it
+ * lists the directory like the {@link FileSystemDirectoryListing}.
+ */
+final class WatchingDirectoryListing implements DirectoryListing, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WatchingDirectoryListing.class);
+    private final File queueDir;
+    private final ToIntFunction<File> fileToCycleFunction;
+    private final FileSystemDirectoryListing fallback;
+    private final NavigableSet<Integer> cycles = new ConcurrentSkipListSet<>();
+    private final AtomicLong modCount = new AtomicLong();
+    private volatile boolean watching = false;
+
+    WatchingDirectoryListing(final File queueDir,
+                             final ToIntFunction<File> fileToCycleFunction) {
+        this.queueDir = queueDir;
+        this.fileToCycleFunction = fileToCycleFunction;
+        this.fallback = new FileSystemDirectoryListing(queueDir, fileToCycleFunction);
+    }
+
+    @Override
+    public void init() {
+        try {
+            // watch before listing so a file created in between isn't missed
+            DirectoryWatcher.register(queueDir.toPath(), this);
+            watching = true;
+            relist();
+        } catch (IOException e) {
+            LOGGER.debug("Unable to watch {}, listing it instead", queueDir, e);
+        }
+    }
+
+    @Override
+    public void refresh() {
+        // no-op
+    }
+
+    @Override
+    public void onFileCreated(final File file, final int cycle) {
+        if (!watching) {
+            fallback.onFileCreated(file, cycle);
+        } else if (cycles.add(cycle)) {
+            modCount.incrementAndGet();
+        }
+    }
+
+    void onEvent(@NotNull File file, boolean created) {
+        final int cycle = fileToCycleFunction.applyAsInt(file);
+        if (created ? cycles.add(cycle) : cycles.remove(cycle))
+            modCount.incrementAndGet();
+    }
+
+    /**
+     * Events were lost, so the directory is listed again.
+     */
+    void onOverflow() {
+        relist();
+    }
+
+    private void relist() {
+        final File[] files = queueDir.listFiles((d, n) -> n.endsWith(SingleChronicleQueue.SUFFIX));
+        final Set<Integer> listed = new HashSet<>();
+        if (files != null) {
+            for (File file : files)
+                listed.add(fileToCycleFunction.applyAsInt(file));
+        }
+        // add before removing so a tailer doesn't see the cycles it is between disappear
+        cycles.addAll(listed);
+        cycles.retainAll(listed);
+        modCount.incrementAndGet();
+    }
+
+    @Override
+    public int getMaxCreatedCycle() {
+        if (!watching)
+            return fallback.getMaxCreatedCycle();
+        final Integer max = cycles.floor(Integer.MAX_VALUE);
+        return max == null ? Integer.MIN_VALUE : max;
+    }
+
+    @Override
+    public int getMinCreatedCycle() {
+        if (!watching)
+            return fallback.getMinCreatedCycle();
+        final Integer min = cycles.ceiling(Integer.MIN_VALUE);
+        return min == null ? Integer.MAX_VALUE : min;
+    }
+
+    @Override
+    public long modCount() {
+        return watching ? modCount.get() : fallback.modCount();
+    }
+
+    @Nullable
+    @Override
+    public NavigableSet<Integer> cycles() {
+        return watching ? cycles : null;
+    }
+
+    @Override
+    public void close() {
+        if (watching) {
+            watching = false;
+            DirectoryWatcher.unregister(queueDir.toPath(), this);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package net.openhft.chronicle.queue.reader;
 
 import net.openhft.chronicle.core.util.Histogram;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.single.CycleScanner;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
 import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
 import net.openhft.chronicle.wire.MessageHistory;
@@ -15,6 +16,7 @@ import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
@@ -70,22 +72,37 @@ public class ChronicleHistoryReader {
         printPercentilesSummary();
     }
 
+    /**
+     * Reads the cycles concurrently, each into histograms of its own, which are merged in cycle
+     * order so the histograms are listed in the order they were first seen.
+     */
     public Map<String, Histogram> readChronicle() {
-        final SingleChronicleQueue q = createQueue();
-        final ExcerptTailer tailer = q.createTailer();
-        final WireParselet parselet = parselet();
+        final AtomicLong counter = new AtomicLong();
+        try (final SingleChronicleQueue q = createQueue()) {
+            new CycleScanner().scanCycles(q, (cycle, tailer) -> readCycle(tailer, counter), this::merge);
+        }
+        return histos;
+    }
+
+    @NotNull
+    private Map<String, Histogram> readCycle(@NotNull ExcerptTailer tailer, @NotNull AtomicLong counter) {
+        final Map<String, Histogram> cycleHistos = new LinkedHashMap<>();
+        final WireParselet parselet = parselet(cycleHistos);
         final MethodReader mr = new MethodReader(tailer, true, parselet, null, parselet);
 
         MessageHistory.set(new VanillaMessageHistory());
-        int counter = 0;
         while (! Thread.currentThread().isInterrupted() && mr.readOne()) {
-            ++counter;
-            if (this.progress && counter % 1_000_000 == 0) {
-                System.out.println("Progress: " + counter);
+            if (this.progress) {
+                final long count = counter.incrementAndGet();
+                if (count % 1_000_000 == 0)
+                    System.out.println("Progress: " + count);
             }
         }
+        return cycleHistos;
+    }
 
-        return histos;
+    private void merge(@NotNull Map<String, Histogram> cycleHistos) {
+        cycleHistos.forEach((id, histogram) -> histos.computeIfAbsent(id, s -> histogram()).add(histogram));
     }
 
     public void printPercentilesSummary() {
@@ -133,7 +150,10 @@ public class ChronicleHistoryReader {
         return sb.toString();
     }
 
-    protected WireParselet parselet() {
+    /**
+     * @param histos to sample the timings of the messages read into
+     */
+    protected WireParselet parselet(@NotNull final Map<String, Histogram> histos) {
         return (methodName, v, $) -> {
             v.skipValue();
             CharSequence extraHistoId = histosByMethod ? ("_"+methodName) : "";
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares appending a burst of small messages one at a time with {@link ExcerptAppender#writeBatch(int, BatchWriter)}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class BatchAppendBenchmark {
+    static final int BURST = 32;
+
+    @Param({"1", "64"})
+    public int indexSpacing;
+
+    private File path;
+    private SingleChronicleQueue queue;
+    private ExcerptAppender appender;
+    private final BatchWriter batchWriter = (i, wire) -> wire.write("price").float64(i);
+
+    public static void main(String... args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BatchAppendBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        path = DirectoryUtils.tempDir("BatchAppendBenchmark");
+        queue = ChronicleQueueBuilder.single(path)
+                .rollCycle(RollCycles.LARGE_DAILY)
+                .indexSpacing(indexSpacing)
+                .build();
+        appender = queue.acquireAppender();
+    }
+
+    @TearDown
+    public void tearDown() {
+        queue.close();
+        IOTools.deleteDirWithFiles(path, 2);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long perMessage() {
+        for (int i = 0; i < BURST; i++) {
+            try (DocumentContext dc = appender.writingDocument()) {
+                batchWriter.writeExcerpt(i, dc.wire());
+            }
+        }
+        return appender.lastIndexAppended();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long batch() {
+        appender.writeBatch(BURST, batchWriter);
+        return appender.lastIndexAppended();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures random {@link ExcerptTailer#moveToIndex(long)} calls, which end in a linear scan from
+ * the nearest indexed excerpt, for several index spacings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class LinearScanBenchmark {
+    static final int MESSAGES = 1_000_000;
+
+    @Param({"16", "256", "4096"})
+    public int indexSpacing;
+
+    private File path;
+    private SingleChronicleQueue queue;
+    private ExcerptTailer tailer;
+    private long firstIndex;
+    private final Random random = new Random(1);
+
+    public static void main(String... args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LinearScanBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        path = DirectoryUtils.tempDir("LinearScanBenchmark");
+        queue = ChronicleQueueBuilder.single(path)
+                .rollCycle(RollCycles.LARGE_DAILY)
+                .indexSpacing(indexSpacing)
+                .build();
+        ExcerptAppender appender = queue.acquireAppender();
+        for (int i = 0; i < MESSAGES; i++) {
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("price").float64(i);
+            }
+        }
+        firstIndex = appender.lastIndexAppended() - MESSAGES + 1;
+        tailer = queue.createTailer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        queue.close();
+        IOTools.deleteDirWithFiles(path, 2);
+    }
+
+    @Benchmark
+    public boolean moveToRandomIndex() {
+        return tailer.moveToIndex(firstIndex + random.nextInt(MESSAGES));
+    }
+}
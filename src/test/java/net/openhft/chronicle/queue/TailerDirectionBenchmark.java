@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of reading every excerpt of a cycle {@link TailerDirection#FORWARD} and
+ * {@link TailerDirection#BACKWARD}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class TailerDirectionBenchmark {
+    static final int MESSAGES = 1_000_000;
+
+    @Param({"16", "64"})
+    public int indexSpacing;
+
+    private File path;
+    private SingleChronicleQueue queue;
+    private ExcerptTailer tailer;
+
+    public static void main(String... args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TailerDirectionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        path = DirectoryUtils.tempDir("TailerDirectionBenchmark");
+        queue = ChronicleQueueBuilder.single(path)
+                .rollCycle(RollCycles.LARGE_DAILY)
+                .indexSpacing(indexSpacing)
+                .build();
+        ExcerptAppender appender = queue.acquireAppender();
+        for (int i = 0; i < MESSAGES; i++) {
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("price").float64(i);
+            }
+        }
+        tailer = queue.createTailer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        queue.close();
+        IOTools.deleteDirWithFiles(path, 2);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public double forward() {
+        tailer.direction(TailerDirection.FORWARD).toStart();
+        return readAll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public double backward() {
+        tailer.direction(TailerDirection.BACKWARD).toEnd();
+        return readAll();
+    }
+
+    private double readAll() {
+        double sum = 0;
+        while (true) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent())
+                    return sum;
+                sum += dc.wire().read("price").float64();
+            }
+        }
+    }
+}
@@ -185,6 +185,44 @@ public class TailerDirectionTest extends ChronicleQueueTestBase {
         queue.close();
     }
 
+    @Test
+    public void testTailerBackwardsReadAcrossIndexBlocks() {
+        File basePath = DirectoryUtils.tempDir("tailerBackwardsAcrossIndexBlocks");
+        try (ChronicleQueue queue = SingleChronicleQueueBuilder.binary(basePath)
+                .testBlockSize()
+                .rollCycle(RollCycles.DAILY)
+                .indexSpacing(16)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            List<Long> indexes = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                if (i % 7 == 0) {
+                    try (DocumentContext dc = appender.writingDocument(true)) {
+                        dc.wire().write("meta").int32(i);
+                    }
+                }
+                indexes.add(appendEntry(appender, testMessage(i)));
+            }
+
+            ExcerptTailer tailer = queue.createTailer()
+                    .direction(TailerDirection.BACKWARD)
+                    .toEnd();
+            for (int i = indexes.size() - 1; i >= 0; i--) {
+                assertEquals("[Backward] Wrong index " + i, indexes.get(i).longValue(), tailer.index());
+                assertEquals("[Backward] Wrong message " + i, testMessage(i), readNextEntry(tailer));
+            }
+            assertEquals(null, readNextEntry(tailer));
+
+            // change direction part way through a block
+            tailer.moveToIndex(indexes.get(250));
+            assertEquals(testMessage(250), readNextEntry(tailer));
+            assertEquals(testMessage(249), readNextEntry(tailer));
+            tailer.direction(TailerDirection.FORWARD);
+            assertEquals(testMessage(248), readNextEntry(tailer));
+            assertEquals(testMessage(249), readNextEntry(tailer));
+        }
+    }
+
     @Override
     @After
     public void checkRegisteredBytes() {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveIndexingTest extends ChronicleQueueTestBase {
+    private static final int MESSAGES = 40_000;
+
+    @Test
+    public void threeLevelIndexCount() {
+        assertEquals(1 << 10, SCQIndexing.threeLevelIndexCount(16 << 10));
+        assertEquals(1 << 13, SCQIndexing.threeLevelIndexCount(512 << 10));
+        assertEquals(1 << 6, SCQIndexing.threeLevelIndexCount(512));
+    }
+
+    @Test
+    public void readsAndWritesAThreeLevelIndex() {
+        final File dir = DirectoryUtils.tempDir("AdaptiveIndexingTest");
+        final List<Long> indices = new ArrayList<>();
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            assertEquals(SCQIndexing.THREE_LEVELS, queue.indexLevels());
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < MESSAGES; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(i);
+                }
+                indices.add(appender.lastIndexAppended());
+            }
+        }
+
+        // reopened, the store is read with the index format it was written with
+        try (SingleChronicleQueue queue = builder(dir).adaptiveIndexing(false).build()) {
+            final int cycle = queue.rollCycle().toCycle(indices.get(0));
+            final SingleChronicleQueueStore store = (SingleChronicleQueueStore) queue.storeForCycle(cycle, queue.epoch(), false);
+            assertNotNull(store);
+            try {
+                assertEquals(SCQIndexing.THREE_LEVELS, store.indexLevels());
+                assertEquals(1 << 10, store.rollIndexCount());
+            } finally {
+                queue.release(store);
+            }
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final Random random = new Random(1);
+            for (int i = 0; i < 1000; i++) {
+                int n = random.nextInt(MESSAGES);
+                assertTrue(tailer.moveToIndex(indices.get(n)));
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(n, dc.wire().read("value").int32());
+                }
+            }
+
+            tailer.direction(TailerDirection.BACKWARD).toEnd();
+            assertEquals(indices.get(MESSAGES - 1).longValue(), tailer.index());
+            assertEquals(MESSAGES, queue.entryCount());
+        }
+    }
+
+    @Test
+    public void smallIndexArraysKeepTwoLevels() {
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(DirectoryUtils.tempDir("AdaptiveIndexingTest"))
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .adaptiveIndexing(true)
+                .build()) {
+            assertEquals(SCQIndexing.TWO_LEVELS, queue.indexLevels());
+        }
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.DAILY)
+                .indexSpacing(1)
+                .adaptiveIndexing(true);
+    }
+}
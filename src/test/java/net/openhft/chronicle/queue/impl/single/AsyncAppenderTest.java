@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.BufferMode;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AsyncAppenderTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldWriteEveryMessageFromEachThreadInOrder() throws InterruptedException {
+        final File dir = DirectoryUtils.tempDir("shouldWriteEveryMessageFromEachThreadInOrder");
+        final int threads = 4;
+        final int messages = 2_000;
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .writeBufferMode(BufferMode.Asynchronous)
+                .bufferCapacity(4 << 10)
+                .build()) {
+            final List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                writers.add(new Thread(() -> {
+                    final ExcerptAppender appender = queue.acquireAppender();
+                    assertTrue(appender instanceof AsyncAppender);
+                    for (int i = 0; i < messages; i++) {
+                        try (DocumentContext dc = appender.writingDocument()) {
+                            dc.wire().write("thread").int32(thread)
+                                    .write("seq").int32(i);
+                        }
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            for (Thread writer : writers)
+                writer.join();
+        }
+
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build()) {
+            final int[] next = new int[threads];
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < threads * messages; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    final int thread = dc.wire().read("thread").int32();
+                    assertEquals(next[thread]++, dc.wire().read("seq").int32());
+                }
+            }
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertFalse(dc.isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void ringBufferShouldWrapAround() {
+        final AsyncRingBuffer ringBuffer = new AsyncRingBuffer(4 << 10);
+        final Bytes<?> message = Bytes.allocateElasticDirect(1000);
+        final Bytes<?> read = Bytes.allocateElasticDirect(1000);
+        try {
+            for (int i = 0; i < 100; i++) {
+                message.clear();
+                for (int j = 0; j < 100 + i * 7; j++)
+                    message.writeByte((byte) (i + j));
+                assertTrue(ringBuffer.offer(message, message.readPosition(), message.readRemaining(), i % 3 == 0));
+
+                final int n = i;
+                assertEquals(1, ringBuffer.read((bytes, offset, length, metaData) -> {
+                    assertEquals(n % 3 == 0, metaData);
+                    read.clear();
+                    read.write(bytes, offset, length);
+                }, 10));
+                assertEquals(message.toDebugString(), read.toDebugString());
+                assertTrue(ringBuffer.isEmpty());
+            }
+            assertTrue(ringBuffer.release());
+        } finally {
+            message.release();
+            read.release();
+        }
+    }
+
+    @Test
+    public void ringBufferShouldRejectWhenFull() {
+        final AsyncRingBuffer ringBuffer = new AsyncRingBuffer(4 << 10);
+        final Bytes<?> message = Bytes.allocateElasticDirect(1000);
+        try {
+            message.writeSkip(1000);
+            int offered = 0;
+            while (ringBuffer.offer(message, message.readPosition(), message.readRemaining(), false))
+                offered++;
+            assertEquals(4, offered);
+            assertEquals(1, ringBuffer.getAndClearMissedWriteCount());
+            assertEquals(4, ringBuffer.getAndClearWriteCount());
+
+            assertEquals(4, ringBuffer.read((bytes, offset, length, metaData) -> assertEquals(1000, length), 10));
+            assertTrue(ringBuffer.offer(message, message.readPosition(), message.readRemaining(), false));
+        } finally {
+            message.release();
+        }
+    }
+
+    @Test
+    public void ringBufferShouldBeReleasedOnceClosedAndRead() {
+        final AsyncRingBuffer ringBuffer = new AsyncRingBuffer(4 << 10);
+        final Bytes<?> message = Bytes.allocateElasticDirect(100);
+        try {
+            message.writeSkip(100);
+            assertTrue(ringBuffer.offer(message, message.readPosition(), message.readRemaining(), false));
+            ringBuffer.close();
+            try {
+                ringBuffer.offer(message, message.readPosition(), message.readRemaining(), false);
+                fail();
+            } catch (IllegalStateException expected) {
+                // closed
+            }
+            assertFalse(ringBuffer.release());
+
+            assertEquals(1, ringBuffer.read((bytes, offset, length, metaData) -> assertEquals(100, length), 10));
+            assertTrue(ringBuffer.isEmpty());
+            assertTrue(ringBuffer.release());
+            assertFalse(ringBuffer.release());
+        } finally {
+            message.release();
+        }
+    }
+}
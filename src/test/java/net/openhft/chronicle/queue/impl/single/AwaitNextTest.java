@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AwaitNextTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldTimeOutWhenNothingIsWritten() {
+        final File dir = DirectoryUtils.tempDir("shouldTimeOutWhenNothingIsWritten");
+        try (SingleChronicleQueue queue = createQueue(dir)) {
+            queue.acquireAppender().writeText("first");
+            final ExcerptTailer tailer = queue.createTailer();
+            assertTrue(tailer.awaitNext(0, TimeUnit.MILLISECONDS));
+            assertEquals("first", tailer.readText());
+
+            final long start = System.nanoTime();
+            assertFalse(tailer.awaitNext(50, TimeUnit.MILLISECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertNull(tailer.readText());
+        }
+    }
+
+    @Test
+    public void shouldWakeWhenAnAppenderInTheSameProcessWrites() throws Exception {
+        final File dir = DirectoryUtils.tempDir("shouldWakeWhenAnAppenderInTheSameProcessWrites");
+        final ExecutorService service = Executors.newSingleThreadExecutor();
+        try (SingleChronicleQueue queue = createQueue(dir)) {
+            final ExcerptTailer tailer = queue.createTailer();
+            final Future<Boolean> awaited = service.submit(() -> {
+                boolean found = tailer.awaitNext(10, TimeUnit.SECONDS);
+                assertEquals("hello", tailer.readText());
+                return found;
+            });
+            Jvm.pause(100);
+            queue.acquireAppender().writeText("hello");
+            assertTrue(awaited.get(1, TimeUnit.SECONDS));
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldSeeExcerptsWrittenThroughAnotherQueueInstance() throws Exception {
+        final File dir = DirectoryUtils.tempDir("shouldSeeExcerptsWrittenThroughAnotherQueueInstance");
+        final ExecutorService service = Executors.newSingleThreadExecutor();
+        try (SingleChronicleQueue reader = createQueue(dir);
+             SingleChronicleQueue writer = createQueue(dir)) {
+            writer.acquireAppender().writeText("first");
+            final ExcerptTailer tailer = reader.createTailer();
+            assertEquals("first", tailer.readText());
+
+            final Future<Boolean> awaited = service.submit(() -> tailer.awaitNext(10, TimeUnit.SECONDS));
+            Jvm.pause(100);
+            writer.acquireAppender().writeText("second");
+            assertTrue(awaited.get(1, TimeUnit.SECONDS));
+            assertEquals("second", tailer.readText());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    private static SingleChronicleQueue createQueue(File dir) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class BatchAppendTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldReadBackBatchInOrder() {
+        final File dir = DirectoryUtils.tempDir("shouldReadBackBatchInOrder");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("before");
+            final long before = appender.lastIndexAppended();
+
+            appender.writeBatch(20, (i, wire) -> wire.write("batch").int32(i));
+            assertEquals(before + 20, appender.lastIndexAppended());
+
+            appender.writeText("after");
+            assertEquals(before + 21, appender.lastIndexAppended());
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals("before", tailer.readText());
+            for (int i = 0; i < 20; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(before + 1 + i, dc.index());
+                    assertEquals(i, dc.wire().read("batch").int32());
+                }
+            }
+            assertEquals("after", tailer.readText());
+            assertNull(tailer.readText());
+        }
+    }
+
+    @Test
+    public void shouldDiscardTheBatchIfTheWriterThrows() {
+        final File dir = DirectoryUtils.tempDir("shouldDiscardTheBatchIfTheWriterThrows");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build();
+             SingleChronicleQueue other = SingleChronicleQueueBuilder.binary(dir)
+                     .testBlockSize()
+                     .rollCycle(RollCycles.TEST_DAILY)
+                     .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("before");
+            final long before = appender.lastIndexAppended();
+
+            try {
+                appender.writeBatch(10, (i, wire) -> {
+                    if (i == 5)
+                        throw new IllegalArgumentException("bad excerpt " + i);
+                    wire.write("batch").int32(i);
+                });
+                fail();
+            } catch (IllegalArgumentException expected) {
+                // nothing of the batch is written
+            }
+
+            // an empty excerpt in the batch is rejected the same way
+            try {
+                appender.writeBatch(3, (i, wire) -> {
+                    if (i < 2)
+                        wire.write("batch").int32(i);
+                });
+                fail();
+            } catch (UnsupportedOperationException expected) {
+                // nothing of the batch is written
+            }
+
+            // neither this appender nor another is blocked by the header of the batch
+            appender.writeText("after");
+            assertEquals(before + 1, appender.lastIndexAppended());
+            final ExcerptAppender otherAppender = other.acquireAppender();
+            otherAppender.writeText("other");
+            assertEquals(before + 2, otherAppender.lastIndexAppended());
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals("before", tailer.readText());
+            assertEquals("after", tailer.readText());
+            assertEquals("other", tailer.readText());
+            assertNull(tailer.readText());
+        }
+    }
+
+    @Test
+    public void shouldIndexEveryExcerptOfTheBatch() {
+        final File dir = DirectoryUtils.tempDir("shouldIndexEveryExcerptOfTheBatch");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeBatch(10, (i, wire) -> wire.write("batch").int32(i));
+            final long last = appender.lastIndexAppended();
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 9; i >= 0; i--) {
+                assertTrue(tailer.moveToIndex(last - 9 + i));
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertEquals(i, dc.wire().read("batch").int32());
+                }
+            }
+        }
+    }
+}
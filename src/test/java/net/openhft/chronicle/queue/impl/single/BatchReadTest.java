@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class BatchReadTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldReadExcerptsInBatches() {
+        final File dir = DirectoryUtils.tempDir("shouldReadExcerptsInBatches");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 100; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(i);
+                }
+                if (i % 10 == 0) {
+                    try (DocumentContext dc = appender.writingDocument(true)) {
+                        dc.wire().write("meta").text("skipped");
+                    }
+                }
+            }
+            final long first = queue.firstIndex();
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final List<Integer> values = new ArrayList<>();
+            final List<Long> indices = new ArrayList<>();
+            assertEquals(30, tailer.readBatch(30, (index, wire) -> {
+                indices.add(index);
+                values.add(wire.read("value").int32());
+            }));
+            assertEquals(first + 30, tailer.index());
+            assertEquals(70, tailer.readBatch(1000, (index, wire) -> {
+                indices.add(index);
+                values.add(wire.read("value").int32());
+            }));
+            assertEquals(0, tailer.readBatch(10, (index, wire) -> fail()));
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, values.get(i).intValue());
+                assertEquals(first + i, indices.get(i).longValue());
+            }
+
+            appender.writeText("later");
+            assertEquals("later", tailer.readText());
+            assertNull(tailer.readText());
+        }
+    }
+
+    @Test
+    public void shouldContinueWithReadingDocumentAfterABatch() {
+        final File dir = DirectoryUtils.tempDir("shouldContinueWithReadingDocumentAfterABatch");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 20; i++)
+                write(appender, "msg-" + i);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals(10, tailer.readBatch(10, (index, wire) -> wire.bytes().readPosition(wire.bytes().readLimit())));
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertTrue(dc.isPresent());
+                assertEquals(queue.firstIndex() + 10, dc.index());
+                assertEquals("msg-10", dc.wire().read("msg").text());
+            }
+            assertTrue(tailer.moveToIndex(queue.firstIndex() + 15));
+            final List<String> texts = new ArrayList<>();
+            assertEquals(5, tailer.readBatch(10, (index, wire) -> texts.add(wire.read("msg").text())));
+            assertEquals("[msg-15, msg-16, msg-17, msg-18, msg-19]", texts.toString());
+        }
+    }
+
+    @Test
+    public void shouldReadAcrossCycles() {
+        final File dir = DirectoryUtils.tempDir("shouldReadAcrossCycles");
+        final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(clock::get)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 30; i++) {
+                write(appender, "msg-" + i);
+                if (i % 10 == 9)
+                    clock.addAndGet(1000);
+            }
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final List<String> texts = new ArrayList<>();
+            assertEquals(30, tailer.readBatch(100, (index, wire) -> texts.add(wire.read("msg").text())));
+            for (int i = 0; i < 30; i++)
+                assertEquals("msg-" + i, texts.get(i));
+            assertEquals(appender.cycle(), tailer.cycle());
+        }
+    }
+
+    private static void write(ExcerptAppender appender, String text) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            dc.wire().write("msg").text(text);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.BufferMode;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CopyBufferModeTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldWriteDataAndMetaData() {
+        final File dir = DirectoryUtils.tempDir("shouldWriteDataAndMetaData");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .writeBufferMode(BufferMode.Copy)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 10; i++) {
+                try (DocumentContext dc = appender.writingDocument(i % 5 == 0)) {
+                    assertEquals(Long.MIN_VALUE, dc.index());
+                    dc.wire().write("value").int32(i);
+                }
+            }
+
+            final ExcerptTailer tailer = queue.createTailer();
+            long index = Long.MIN_VALUE;
+            for (int i = 0; i < 10; i++) {
+                if (i % 5 == 0)
+                    continue;
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    if (index != Long.MIN_VALUE)
+                        assertEquals(index + 1, dc.index());
+                    index = dc.index();
+                    assertEquals(i, dc.wire().read("value").int32());
+                }
+            }
+            assertEquals(index, appender.lastIndexAppended());
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertFalse(dc.isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void openDocumentShouldNotBlockOtherAppenders() throws Exception {
+        final File dir = DirectoryUtils.tempDir("openDocumentShouldNotBlockOtherAppenders");
+        final ExecutorService other = Executors.newSingleThreadExecutor();
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .writeBufferMode(BufferMode.Copy)
+                .timeoutMS(500)
+                .build()) {
+            try (DocumentContext slow = queue.acquireAppender().writingDocument()) {
+                slow.wire().write("slow").text("second");
+
+                other.submit(() -> queue.acquireAppender().writeText("first"))
+                        .get(5, TimeUnit.SECONDS);
+
+                assertEquals("first", queue.createTailer().readText());
+            }
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals("first", tailer.readText());
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertEquals("second", dc.wire().read("slow").text());
+            }
+        } finally {
+            other.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldRecordAMessageWrittenAfterAnotherAppenderRolled() {
+        final File dir = DirectoryUtils.tempDir("shouldRecordAMessageWrittenAfterAnotherAppenderRolled");
+        final long start = System.currentTimeMillis() / 1000 * 1000;
+        final SetTimeProvider slowTime = new SetTimeProvider(start);
+        final SetTimeProvider time = new SetTimeProvider(start);
+        try (SingleChronicleQueue slowQueue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(slowTime)
+                .writeBufferMode(BufferMode.Copy)
+                .build();
+             SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                     .testBlockSize()
+                     .rollCycle(RollCycles.TEST_SECONDLY)
+                     .timeProvider(time)
+                     .build()) {
+            final ExcerptAppender slowAppender = slowQueue.acquireAppender();
+            final ExcerptAppender appender = queue.acquireAppender();
+            slowAppender.writeText("first");
+            appender.writeText("second");
+            final int cycle = queue.cycle();
+
+            // rolls, ending the cycle the slow appender is still in
+            time.currentTimeMillis(start + 1000);
+            appender.writeText("third");
+
+            try (DocumentContext dc = slowAppender.writingDocument()) {
+                dc.wire().write("value").text("fourth");
+            }
+            final RollCycle rollCycle = queue.rollCycle();
+            final long index = slowAppender.lastIndexAppended();
+            assertEquals(rollCycle.toIndex(cycle + 1, 1), index);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertTrue(tailer.moveToIndex(index));
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertEquals(index, dc.index());
+                assertEquals("fourth", dc.wire().read("value").text());
+            }
+            assertEquals(2, queue.exceptsPerCycle(cycle + 1));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.NavigableSet;
+
+import static org.junit.Assert.*;
+
+public class CycleCatalogueTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void keepsCyclesInOrder() throws Exception {
+        final File file = new File(DirectoryUtils.tempDir("CycleCatalogueTest"), CycleCatalogue.FILE);
+        file.getParentFile().mkdirs();
+        final CycleCatalogue writer = CycleCatalogue.of(file);
+        final CycleCatalogue reader = CycleCatalogue.of(file);
+        try {
+            for (int cycle : new int[]{10, 12, 11, 20, 5, 12})
+                writer.add(cycle);
+
+            CycleCatalogue.Cycles cycles = reader.cycles();
+            assertTrue(cycles.sameAs(new int[]{5, 10, 11, 12, 20}));
+            assertEquals(10, cycles.higher(5));
+            assertEquals(12, cycles.higher(11));
+            assertEquals(20, cycles.higher(13));
+            assertEquals(-1, cycles.higher(20));
+            assertEquals(-1, cycles.lower(5));
+            assertEquals(11, cycles.lower(12));
+            assertEquals(12, cycles.lower(19));
+            assertEquals(Arrays.asList(10L, 11L, 12L), Arrays.asList(cycles.between(10, 12).toArray()));
+            assertTrue(cycles.between(13, 19).isEmpty());
+
+            // a copy in use isn't changed by later changes
+            writer.add(21);
+            assertTrue(reader.cycles().sameAs(new int[]{5, 10, 11, 12, 20, 21}));
+            assertTrue(cycles.sameAs(new int[]{5, 10, 11, 12, 20}));
+
+            writer.replaceAll(new int[]{11, 21});
+            assertTrue(reader.cycles().sameAs(new int[]{11, 21}));
+            assertTrue(cycles.contains(5));
+            assertFalse(reader.contains(5));
+        } finally {
+            writer.close();
+            reader.close();
+        }
+    }
+
+    @Test
+    public void tailerRollsUsingTheCatalogue() throws ParseException {
+        final File dir = DirectoryUtils.tempDir("CycleCatalogueTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        final int cycles = 5;
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < cycles; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(i);
+                }
+                // leave a gap between the cycles
+                timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 3_000);
+            }
+
+            final NavigableSet<Long> listed = queue.listCyclesBetween(queue.firstCycle(), queue.lastCycle());
+            assertEquals(cycles, listed.size());
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < cycles; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(i, dc.wire().read("value").int32());
+                }
+            }
+
+            final ExcerptTailer backward = queue.createTailer().direction(TailerDirection.BACKWARD).toEnd();
+            for (int i = cycles - 1; i >= 0; i--) {
+                try (DocumentContext dc = backward.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(i, dc.wire().read("value").int32());
+                }
+            }
+        }
+    }
+}
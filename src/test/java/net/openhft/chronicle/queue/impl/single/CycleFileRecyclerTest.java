@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class CycleFileRecyclerTest extends ChronicleQueueTestBase {
+    private static final int SPARES = 2;
+
+    @Test
+    public void newCyclesUseSpareFiles() throws IOException {
+        assumeTrue(OS.isLinux());
+        final File dir = DirectoryUtils.tempDir("CycleFileRecyclerTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider)
+                .spareCycleFiles(SPARES)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            write(appender, 0);
+            awaitSpares(dir);
+
+            final Set<Object> spareInodes = new HashSet<>();
+            for (File spare : spares(dir)) {
+                assertTrue(isZeroed(spare));
+                spareInodes.add(Files.getAttribute(spare.toPath(), "unix:ino"));
+            }
+
+            timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 2_000);
+            write(appender, 1);
+            final File second = queue.fileForCycle(queue.cycle());
+            assertTrue(spareInodes.contains(Files.getAttribute(second.toPath(), "unix:ino")));
+            awaitSpares(dir);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 2; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(i, dc.wire().read("value").int32());
+                }
+            }
+
+            for (File spare : spares(dir))
+                assertTrue(isZeroed(spare));
+        }
+    }
+
+    @Test
+    public void aSpareListedByTwoProcessesIsOnlyAdoptedOnce() throws IOException {
+        assumeTrue(OS.isLinux());
+        final File dir = DirectoryUtils.tempDir("CycleFileRecyclerTest");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .build()) {
+            // the spares are made on this thread only
+            final CycleFileRecycler first = new CycleFileRecycler(queue, SPARES);
+            first.close();
+            while (first.execute()) ;
+            // stands in for another process, which lists the same spares
+            final CycleFileRecycler second = new CycleFileRecycler(queue, SPARES);
+            second.close();
+            assertEquals(SPARES, second.spares());
+
+            final File[] files = new File[SPARES + 1];
+            final Set<Object> inodes = new HashSet<>();
+            int adopted = 0;
+            for (int i = 0; i < files.length; i++) {
+                files[i] = new File(dir, "adopted-" + i + SingleChronicleQueue.SUFFIX);
+                if ((i % 2 == 0 ? first : second).adopt(files[i])) {
+                    adopted++;
+                    assertTrue(inodes.add(Files.getAttribute(files[i].toPath(), "unix:ino")));
+                } else {
+                    assertFalse(files[i].exists());
+                }
+            }
+            assertEquals(SPARES, adopted);
+            assertEquals(0, spares(dir).length);
+        }
+    }
+
+    private static void write(ExcerptAppender appender, int value) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            dc.wire().write("value").int32(value);
+        }
+    }
+
+    private static void awaitSpares(File dir) {
+        final long timeout = System.currentTimeMillis() + 10_000;
+        while (spares(dir).length < SPARES) {
+            assertTrue(System.currentTimeMillis() < timeout);
+            Jvm.pause(10);
+        }
+    }
+
+    private static File[] spares(File dir) {
+        final File[] spares = dir.listFiles((d, n) -> n.endsWith(CycleFileRecycler.SPARE_SUFFIX));
+        return spares == null ? new File[0] : spares;
+    }
+
+    private static boolean isZeroed(File file) throws IOException {
+        for (byte b : Files.readAllBytes(file.toPath()))
+            if (b != 0)
+                return false;
+        return true;
+    }
+}
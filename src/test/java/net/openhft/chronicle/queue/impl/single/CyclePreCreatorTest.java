@@ -0,0 +1,141 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.time.TimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.wire.WireType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.openhft.chronicle.queue.DirectoryUtils.tempDir;
+import static org.junit.Assert.*;
+
+public class CyclePreCreatorTest extends ChronicleQueueTestBase {
+    private final File path = tempDir(CyclePreCreatorTest.class.getSimpleName());
+    // the start of a cycle
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis() / 1000 * 1000);
+
+    @Test
+    public void shouldCreateNextCycleOnlyWhenItIsFirstWritten() {
+        try (final SingleChronicleQueue queue = createQueue(path, clock::get, 500)) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("first");
+            final int cycle = queue.cycle();
+            final File nextCycleFile = queue.fileForCycle(cycle + 1);
+            final File preCreated = SingleChronicleQueue.preCreatedFile(nextCycleFile);
+
+            clock.addAndGet(200);
+            Jvm.pause(100);
+            assertFalse(preCreated.exists());
+
+            clock.addAndGet(400);
+            awaitExists(preCreated);
+            assertFalse(nextCycleFile.exists());
+
+            final ExcerptTailer tailer = queue.createTailer();
+            tailer.toEnd();
+            assertEquals(cycle, tailer.cycle());
+            assertEquals(cycle, queue.lastCycle());
+
+            clock.addAndGet(1000);
+            appender.writeText("second");
+            assertTrue(nextCycleFile.exists());
+            assertFalse(preCreated.exists());
+
+            final ExcerptTailer reader = queue.createTailer();
+            assertEquals("first", reader.readText());
+            assertEquals("second", reader.readText());
+            assertEquals(cycle + 1, reader.cycle());
+            assertNull(reader.readText());
+        }
+    }
+
+    @Test
+    public void shouldRemoveUnusedPreCreatedCycle() {
+        try (final SingleChronicleQueue queue = createQueue(path, clock::get, 500)) {
+            queue.acquireAppender().writeText("first");
+            final int cycle = queue.cycle();
+            final File preCreated = SingleChronicleQueue.preCreatedFile(queue.fileForCycle(cycle + 1));
+
+            clock.addAndGet(600);
+            awaitExists(preCreated);
+
+            // nothing is written in the next cycle
+            clock.addAndGet(1000);
+            awaitExists(SingleChronicleQueue.preCreatedFile(queue.fileForCycle(cycle + 2)));
+            assertFalse(preCreated.exists());
+            assertFalse(queue.fileForCycle(cycle + 1).exists());
+        }
+    }
+
+    @Test
+    public void firstWriteAfterRollUsesThePreCreatedStore() {
+        try (final SingleChronicleQueue queue = createQueue(path, clock::get, 500)) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("first");
+            final int cycle = queue.cycle();
+
+            clock.addAndGet(600);
+            awaitExists(SingleChronicleQueue.preCreatedFile(queue.fileForCycle(cycle + 1)));
+            final WireStore preCreatedStore = awaitPreCreatedStore(queue, cycle + 1);
+
+            clock.addAndGet(400);
+            appender.writeText("second");
+            assertNull(queue.preCreatedStore(cycle + 1));
+
+            // the appender rolled to the store which was already mapped
+            final WireStore store = queue.storeForCycle(cycle + 1, queue.epoch(), false);
+            try {
+                assertSame(preCreatedStore, store);
+                assertEquals(queue.fileForCycle(cycle + 1), store.file());
+            } finally {
+                queue.release(store);
+            }
+        }
+    }
+
+    private static WireStore awaitPreCreatedStore(final SingleChronicleQueue queue, final int cycle) {
+        final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        WireStore store;
+        while ((store = queue.preCreatedStore(cycle)) == null) {
+            if (System.currentTimeMillis() > end)
+                fail("the store of cycle " + cycle + " was not kept");
+            Jvm.pause(1);
+        }
+        return store;
+    }
+
+    private static void awaitExists(final File file) {
+        final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!file.exists()) {
+            if (System.currentTimeMillis() > end)
+                fail(file + " was not created");
+            Jvm.pause(1);
+        }
+    }
+
+    @After
+    public void deleteDir() throws Exception {
+        DirectoryUtils.deleteDir(path);
+    }
+
+    private static SingleChronicleQueue createQueue(final File path, final TimeProvider timeProvider, final long preCreateMS) {
+        return SingleChronicleQueueBuilder.
+                binary(path).
+                timeProvider(timeProvider).
+                rollCycle(RollCycles.TEST_SECONDLY).
+                testBlockSize().
+                wireType(WireType.BINARY).
+                preCreateCycleMS(preCreateMS).
+                build();
+    }
+}
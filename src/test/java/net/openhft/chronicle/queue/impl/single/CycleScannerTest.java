@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CycleScannerTest extends ChronicleQueueTestBase {
+    private static final int CYCLES = 6;
+    private static final int PER_CYCLE = 100;
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    private SingleChronicleQueue queue;
+
+    @Before
+    public void setUp() {
+        final File dir = DirectoryUtils.tempDir("CycleScannerTest");
+        queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(clock::get)
+                .build();
+        final ExcerptAppender appender = queue.acquireAppender();
+        int value = 0;
+        for (int c = 0; c < CYCLES; c++) {
+            for (int i = 0; i < PER_CYCLE; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(value++);
+                }
+            }
+            clock.addAndGet(2000);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    public void shouldScanEachCycleInOrder() {
+        final List<int[]> results = new ArrayList<>();
+        new CycleScanner().scanCycles(queue, (cycle, tailer) -> {
+            int count = 0;
+            int first = -1;
+            while (true) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        break;
+                    assertEquals(cycle, queue.rollCycle().toCycle(dc.index()));
+                    int value = dc.wire().read("value").int32();
+                    if (first < 0)
+                        first = value;
+                    count++;
+                }
+            }
+            return new int[]{first, count};
+        }, results::add);
+
+        assertEquals(CYCLES, results.size());
+        for (int c = 0; c < CYCLES; c++) {
+            assertEquals(c * PER_CYCLE, results.get(c)[0]);
+            assertEquals(PER_CYCLE, results.get(c)[1]);
+        }
+    }
+
+    @Test
+    public void shouldPassResultsOnInOrderAndSkipNulls() {
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            items.add(i);
+        final List<Integer> results = new ArrayList<>();
+        new CycleScanner().scan(items, i -> i % 10 == 0 ? null : i * 2, results::add);
+
+        assertEquals(900, results.size());
+        for (int i = 1; i < results.size(); i++)
+            assertTrue(results.get(i - 1) < results.get(i));
+        assertEquals(Arrays.asList(2, 4, 6), results.subList(0, 3));
+    }
+
+    @Test
+    public void dumpShouldIncludeEveryCycle() {
+        final String dump = queue.dump();
+        int pos = -1;
+        for (int i = 0; i < CYCLES * PER_CYCLE; i += PER_CYCLE) {
+            int next = dump.indexOf("value: " + i + "\n", pos + 1);
+            assertTrue("value " + i, next > pos);
+            pos = next;
+        }
+    }
+}
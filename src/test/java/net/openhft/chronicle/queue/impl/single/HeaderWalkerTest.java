@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.Wires;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HeaderWalkerTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void walksOverDataAndMetaData() {
+        final Bytes<?> bytes = Bytes.elasticByteBuffer();
+        try {
+            // data at 0, meta data at 12, data at 20, data at 28, then nothing written
+            bytes.writeInt(8).writeLong(1);
+            bytes.writeInt(Wires.META_DATA | 4).writeInt(2);
+            bytes.writeInt(4).writeInt(3);
+            bytes.writeInt(4).writeInt(4);
+            bytes.writeInt(0);
+
+            assertEquals(2, HeaderWalker.walk(bytes, 0, 2, Long.MAX_VALUE));
+            // stops after the second data excerpt, not before the meta data
+            assertEquals(28, bytes.readPosition());
+
+            assertEquals(1, HeaderWalker.walk(bytes, 0, Long.MAX_VALUE, 20));
+            assertEquals(20, bytes.readPosition());
+
+            assertEquals(3, HeaderWalker.walk(bytes, 0, Long.MAX_VALUE, Long.MAX_VALUE));
+            assertEquals(36, bytes.readPosition());
+
+            assertEquals(0, HeaderWalker.walk(bytes, 12, 0, Long.MAX_VALUE));
+            assertEquals(12, bytes.readPosition());
+        } finally {
+            bytes.release();
+        }
+    }
+
+    @Test
+    public void stopsAtAHeaderWhichIsNotComplete() {
+        final Bytes<?> bytes = Bytes.elasticByteBuffer();
+        try {
+            bytes.writeInt(4).writeInt(1);
+            bytes.writeInt(Wires.NOT_COMPLETE | 4).writeInt(2);
+            bytes.writeInt(4).writeInt(3);
+
+            assertEquals(1, HeaderWalker.walk(bytes, 0, Long.MAX_VALUE, Long.MAX_VALUE));
+            assertEquals(8, bytes.readPosition());
+        } finally {
+            bytes.release();
+        }
+    }
+
+    @Test
+    public void movesToEveryIndexOfASparseIndex() {
+        final File dir = DirectoryUtils.tempDir("HeaderWalkerTest");
+        final List<Long> indices = new ArrayList<>();
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.DAILY)
+                .indexSpacing(256)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 2_000; i++) {
+                if (i % 7 == 0) {
+                    try (DocumentContext dc = appender.writingDocument(true)) {
+                        dc.wire().write("meta").int32(i);
+                    }
+                }
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(i);
+                }
+                indices.add(appender.lastIndexAppended());
+            }
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = indices.size() - 1; i >= 0; i -= 3) {
+                assertTrue(tailer.moveToIndex(indices.get(i)));
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertEquals(i, dc.wire().read("value").int32());
+                }
+            }
+            assertFalse(tailer.moveToIndex(indices.get(indices.size() - 1) + 1));
+        }
+    }
+}
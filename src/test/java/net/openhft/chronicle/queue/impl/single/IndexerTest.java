@@ -0,0 +1,81 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.WireStore;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+
+import static net.openhft.chronicle.queue.DirectoryUtils.tempDir;
+import static org.junit.Assert.*;
+
+public class IndexerTest {
+    private static final int MESSAGES = 200;
+    private final File path = tempDir(IndexerTest.class.getSimpleName());
+
+    @Test
+    public void shouldIndexLazilyIndexedCycle() {
+        try (final SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(path)
+                .testBlockSize()
+                .rollCycle(RollCycles.SMALL_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender().lazyIndexing(true);
+            for (int i = 0; i < MESSAGES; i++)
+                appender.writeText("message-" + i);
+
+            assertTrue(nextEntryToBeIndexed(queue) < MESSAGES);
+
+            final Indexer indexer = new Indexer(queue);
+            while (indexer.execute()) {
+                // keep indexing until it has caught up.
+            }
+            // the last entry indexed is the last multiple of the index spacing.
+            assertEquals(MESSAGES, nextEntryToBeIndexed(queue));
+            assertFalse(indexer.execute());
+
+            appender.writeText("message-" + MESSAGES);
+            assertTrue(indexer.execute());
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final long firstIndex = queue.firstIndex();
+            for (int i = MESSAGES; i >= 0; i -= 7) {
+                assertTrue(tailer.moveToIndex(firstIndex + i));
+                assertEquals("message-" + i, tailer.readText());
+            }
+        }
+    }
+
+    @Test
+    public void shouldSkipIndexedCycle() {
+        try (final SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(path)
+                .testBlockSize()
+                .rollCycle(RollCycles.SMALL_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < MESSAGES; i++)
+                appender.writeText("message-" + i);
+
+            final Indexer indexer = new Indexer(queue);
+            assertTrue(indexer.execute());
+            assertEquals(queue.firstIndex() + MESSAGES, indexer.index());
+        }
+    }
+
+    private static long nextEntryToBeIndexed(SingleChronicleQueue queue) {
+        final WireStore store = queue.storeForCycle(queue.cycle(), queue.epoch(), false);
+        try {
+            return ((SingleChronicleQueueStore) store).nextEntryToBeIndexed();
+        } finally {
+            queue.release(store);
+        }
+    }
+
+    @After
+    public void deleteDir() throws Exception {
+        DirectoryUtils.deleteDir(path);
+    }
+}
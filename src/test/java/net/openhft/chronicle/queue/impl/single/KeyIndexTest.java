@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.KeyExtractor;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.PrimitiveIterator;
+
+import static org.junit.Assert.*;
+
+public class KeyIndexTest extends ChronicleQueueTestBase {
+    private static final int MESSAGES = 2_000;
+    private static final int KEYS = 100;
+    private static final KeyExtractor ORDER_ID = wire -> wire.read("orderId").int64();
+
+    @Test
+    public void looksUpTheExcerptsOfAKey() {
+        final File dir = DirectoryUtils.tempDir("KeyIndexTest");
+        try (SingleChronicleQueue queue = builder(dir).keyExtractor(ORDER_ID).build()) {
+            append(queue);
+
+            final KeyIndex keyIndex = readKeyIndex(queue);
+            try {
+                assertTrue(keyIndex.isComplete());
+                assertEquals(MESSAGES, keyIndex.count());
+            } finally {
+                keyIndex.close();
+            }
+            assertLookups(queue);
+            assertFalse(queue.lookup(KEYS + 1).hasNext());
+        }
+    }
+
+    @Test
+    public void scansAFullCycleUntilItIsRebuilt() throws IOException {
+        final File dir = DirectoryUtils.tempDir("KeyIndexTest");
+        try (SingleChronicleQueue queue = builder(dir).keyExtractor(ORDER_ID).keyIndexCapacity(1024).build()) {
+            append(queue);
+
+            KeyIndex keyIndex = readKeyIndex(queue);
+            try {
+                assertFalse(keyIndex.isComplete());
+            } finally {
+                keyIndex.close();
+            }
+            assertLookups(queue);
+
+            queue.rebuildKeyIndex(queue.lastCycle());
+            keyIndex = readKeyIndex(queue);
+            try {
+                assertTrue(keyIndex.isComplete());
+                assertEquals(MESSAGES, keyIndex.count());
+            } finally {
+                keyIndex.close();
+            }
+            assertLookups(queue);
+        }
+    }
+
+    @Test
+    public void indexesAQueueWrittenWithoutAKeyExtractor() {
+        final File dir = DirectoryUtils.tempDir("KeyIndexTest");
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            append(queue);
+            assertFalse(KeyIndex.fileFor(queue.fileForCycle(queue.lastCycle())).exists());
+        }
+
+        try (SingleChronicleQueue queue = builder(dir).keyExtractor(ORDER_ID).build()) {
+            for (int i = 0; i < 2; i++) {
+                final KeyIndexer keyIndexer = new KeyIndexer(queue);
+                while (keyIndexer.execute()) {
+                    // index them all
+                }
+            }
+
+            final KeyIndex keyIndex = readKeyIndex(queue);
+            try {
+                assertTrue(keyIndex.isComplete());
+                // the second indexer skipped the excerpts already indexed
+                assertEquals(MESSAGES, keyIndex.count());
+            } finally {
+                keyIndex.close();
+            }
+            assertLookups(queue);
+        }
+    }
+
+    @Test
+    public void indexesTheExcerptsOfLazyAppenders() {
+        final File dir = DirectoryUtils.tempDir("KeyIndexTest");
+        try (SingleChronicleQueue queue = builder(dir).keyExtractor(ORDER_ID).build();
+             SingleChronicleQueue other = builder(dir).keyExtractor(ORDER_ID).build()) {
+            final ExcerptAppender lazy = queue.acquireAppender().lazyIndexing(true);
+            final ExcerptAppender indexing = other.acquireAppender();
+            for (int i = 0; i < MESSAGES; i++) {
+                try (DocumentContext dc = (i % 2 == 0 ? lazy : indexing).writingDocument()) {
+                    dc.wire().write("orderId").int64(i % KEYS)
+                            .write("value").int32(i);
+                }
+            }
+
+            final KeyIndex keyIndex = readKeyIndex(queue);
+            try {
+                assertTrue(keyIndex.isComplete());
+                assertEquals(MESSAGES, keyIndex.count());
+            } finally {
+                keyIndex.close();
+            }
+            assertLookups(queue);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void lookupNeedsAKeyExtractor() {
+        try (SingleChronicleQueue queue = builder(DirectoryUtils.tempDir("KeyIndexTest")).build()) {
+            queue.lookup(1);
+        }
+    }
+
+    private static void append(SingleChronicleQueue queue) {
+        final ExcerptAppender appender = queue.acquireAppender();
+        for (int i = 0; i < MESSAGES; i++) {
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("orderId").int64(i % KEYS)
+                        .write("value").int32(i);
+            }
+        }
+    }
+
+    private static KeyIndex readKeyIndex(SingleChronicleQueue queue) {
+        try {
+            final KeyIndex keyIndex = KeyIndex.forReading(queue.fileForCycle(queue.lastCycle()));
+            assertNotNull(keyIndex);
+            return keyIndex;
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void assertLookups(SingleChronicleQueue queue) {
+        final ExcerptTailer tailer = queue.createTailer();
+        for (int key = 0; key < KEYS; key += 7) {
+            final PrimitiveIterator.OfLong indexes = queue.lookup(key);
+            int expected = key;
+            while (indexes.hasNext()) {
+                assertTrue(tailer.moveToIndex(indexes.nextLong()));
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(key, dc.wire().read("orderId").int64());
+                    assertEquals(expected, dc.wire().read("value").int32());
+                }
+                expected += KEYS;
+            }
+            // all the excerpts of the key were found
+            assertEquals(key + MESSAGES, expected);
+        }
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.DAILY);
+    }
+}
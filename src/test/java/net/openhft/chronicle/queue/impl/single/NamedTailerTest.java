@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.TimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class NamedTailerTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldCarryOnFromThePersistedIndexAfterARestart() {
+        final File dir = DirectoryUtils.tempDir("shouldCarryOnFromThePersistedIndexAfterARestart");
+        try (SingleChronicleQueue queue = createQueue(dir, System::currentTimeMillis)) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 10; i++)
+                appender.writeText("msg-" + i);
+
+            final ExcerptTailer tailer = queue.createTailer("reader");
+            for (int i = 0; i < 4; i++)
+                assertEquals("msg-" + i, tailer.readText());
+        }
+
+        try (SingleChronicleQueue queue = createQueue(dir, System::currentTimeMillis)) {
+            final ExcerptTailer tailer = queue.createTailer("reader");
+            assertEquals("msg-4", tailer.readText());
+
+            // each name has its own index
+            assertEquals("msg-0", queue.createTailer("other").readText());
+
+            assertEquals(5, tailer.readBatch(100, (index, wire) -> wire.bytes().readPosition(wire.bytes().readLimit())));
+            assertNull(tailer.readText());
+        }
+
+        try (SingleChronicleQueue queue = createQueue(dir, System::currentTimeMillis)) {
+            final ExcerptTailer tailer = queue.createTailer("reader");
+            assertNull(tailer.readText());
+            queue.acquireAppender().writeText("msg-10");
+            assertEquals("msg-10", tailer.readText());
+
+            assertEquals("msg-1", queue.createTailer("other").readText());
+        }
+    }
+
+    @Test
+    public void shouldNotPersistAFailedMove() {
+        final File dir = DirectoryUtils.tempDir("shouldNotPersistAFailedMove");
+        try (SingleChronicleQueue queue = createQueue(dir, System::currentTimeMillis)) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 4; i++)
+                appender.writeText("msg-" + i);
+
+            final ExcerptTailer tailer = queue.createTailer("reader");
+            for (int i = 0; i < 2; i++)
+                assertEquals("msg-" + i, tailer.readText());
+            assertFalse(tailer.moveToIndex(appender.lastIndexAppended() + 100));
+        }
+
+        try (SingleChronicleQueue queue = createQueue(dir, System::currentTimeMillis)) {
+            assertEquals("msg-2", queue.createTailer("reader").readText());
+        }
+    }
+
+    @Test
+    public void shouldCarryOnInTheNextCycle() {
+        final File dir = DirectoryUtils.tempDir("shouldCarryOnInTheNextCycle");
+        final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = createQueue(dir, clock::get)) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("first");
+            final ExcerptTailer tailer = queue.createTailer("reader");
+            assertEquals("first", tailer.readText());
+
+            clock.addAndGet(1000);
+            appender.writeText("second");
+        }
+
+        try (SingleChronicleQueue queue = createQueue(dir, clock::get)) {
+            final ExcerptTailer tailer = queue.createTailer("reader");
+            assertEquals("second", tailer.readText());
+            assertEquals(queue.lastCycle(), tailer.cycle());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotPersistTheIndexOfAReadOnlyQueue() {
+        final File dir = DirectoryUtils.tempDir("shouldNotPersistTheIndexOfAReadOnlyQueue");
+        try (SingleChronicleQueue queue = createQueue(dir, System::currentTimeMillis)) {
+            queue.acquireAppender().writeText("first");
+        }
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .readOnly(true)
+                .build()) {
+            queue.createTailer("reader");
+        }
+    }
+
+    private static SingleChronicleQueue createQueue(File dir, TimeProvider timeProvider) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider)
+                .build();
+    }
+}
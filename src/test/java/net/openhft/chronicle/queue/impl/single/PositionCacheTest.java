@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PositionCacheTest extends ChronicleQueueTestBase {
+    private static final int MESSAGES = 2000;
+
+    @Test
+    public void repeatedAndNearbySeeksUseTheCache() {
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(DirectoryUtils.tempDir("PositionCacheTest"))
+                .testBlockSize()
+                .rollCycle(RollCycles.DAILY)
+                .positionCacheSize(256)
+                .sharedPositionCache(true)
+                .build()) {
+            final List<Long> indices = write(queue);
+
+            final SingleChronicleQueueExcerpts.StoreTailer tailer1 = (SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer();
+            final SingleChronicleQueueExcerpts.StoreTailer tailer2 = (SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer();
+            final SingleChronicleQueueExcerpts.StoreTailer tailer3 = (SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer();
+            final PositionCache cache = tailer1.positionCache();
+            assertNotNull(cache);
+            assertSame(cache, tailer2.positionCache());
+
+            final Random random = new Random(1);
+            for (int i = 0; i < 500; i++) {
+                int n = random.nextInt(MESSAGES);
+                assertRead(tailer1, indices.get(n), n);
+                // the same index from another tailer
+                assertRead(tailer2, indices.get(n), n);
+                // a little further into the same block, from a tailer which was somewhere else
+                int m = Math.min(MESSAGES - 1, n + 1 + random.nextInt(3));
+                if (m >> 4 == n >> 4)
+                    assertRead(tailer3, indices.get(m), m);
+            }
+            assertTrue(cache.toString(), cache.hits() >= 400);
+            assertTrue(cache.toString(), cache.nearHits() > 0);
+            assertTrue(cache.toString(), cache.misses() > 0);
+        }
+    }
+
+    @Test
+    public void noCacheByDefault() {
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(DirectoryUtils.tempDir("PositionCacheTest"))
+                .testBlockSize()
+                .build()) {
+            assertNull(((SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer()).positionCache());
+        }
+    }
+
+    @Test
+    public void tailersHaveTheirOwnCacheUnlessShared() {
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(DirectoryUtils.tempDir("PositionCacheTest"))
+                .testBlockSize()
+                .positionCacheSize(100)
+                .build()) {
+            PositionCache cache1 = ((SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer()).positionCache();
+            PositionCache cache2 = ((SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer()).positionCache();
+            assertNotNull(cache1);
+            assertNotSame(cache1, cache2);
+            assertEquals(128, cache1.capacity());
+        }
+    }
+
+    @Test
+    public void putLooksUpAndClears() {
+        final PositionCache cache = new PositionCache(16);
+        final PositionCache.Entry entry = new PositionCache.Entry();
+        assertEquals(-1, cache.position(0));
+        assertFalse(cache.before(1, entry));
+
+        cache.put(0x1005, 500);
+        cache.put(0x1003, 300);
+        assertEquals(500, cache.position(0x1005));
+        assertEquals(300, cache.position(0x1003));
+
+        // the earliest index of the block
+        assertTrue(cache.before(0x1007, entry));
+        assertEquals(0x1003, entry.index);
+        assertEquals(300, entry.position);
+        assertFalse(cache.before(0x1003, entry));
+        assertFalse(cache.before(0x1017, entry));
+
+        cache.clear();
+        assertEquals(-1, cache.position(0x1005));
+        assertFalse(cache.before(0x1007, entry));
+    }
+
+    private static List<Long> write(SingleChronicleQueue queue) {
+        final ExcerptAppender appender = queue.acquireAppender();
+        final List<Long> indices = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("value").int32(i);
+            }
+            indices.add(appender.lastIndexAppended());
+        }
+        return indices;
+    }
+
+    private static void assertRead(SingleChronicleQueueExcerpts.StoreTailer tailer, long index, int expected) {
+        assertTrue(tailer.moveToIndex(index));
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertTrue(dc.isPresent());
+            assertEquals(index, dc.index());
+            assertEquals(expected, dc.wire().read("value").int32());
+        }
+    }
+}
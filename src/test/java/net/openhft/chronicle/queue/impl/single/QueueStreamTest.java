@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class QueueStreamTest extends ChronicleQueueTestBase {
+    private static final int CYCLES = 4;
+    private static final int PER_CYCLE = 5000;
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    private final List<Long> indices = new ArrayList<>();
+    private SingleChronicleQueue queue;
+
+    @Before
+    public void setUp() {
+        final File dir = DirectoryUtils.tempDir("QueueStreamTest");
+        queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(clock::get)
+                .build();
+        final ExcerptAppender appender = queue.acquireAppender();
+        int value = 0;
+        for (int c = 0; c < CYCLES; c++) {
+            for (int i = 0; i < PER_CYCLE; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(value++);
+                }
+                indices.add(appender.lastIndexAppended());
+            }
+            // leave a gap of one cycle between each
+            clock.addAndGet(2000);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    public void shouldStreamARangeInOrder() {
+        final List<Integer> all = queue.stream(indices.get(0), indices.get(indices.size() - 1), w -> w.read("value").int32())
+                .collect(Collectors.toList());
+        assertEquals(CYCLES * PER_CYCLE, all.size());
+        for (int i = 0; i < all.size(); i++)
+            assertEquals(i, all.get(i).intValue());
+
+        final List<Integer> part = queue.stream(indices.get(PER_CYCLE - 10), indices.get(PER_CYCLE + 9), w -> w.read("value").int32())
+                .collect(Collectors.toList());
+        assertEquals(20, part.size());
+        assertEquals(PER_CYCLE - 10, part.get(0).intValue());
+        assertEquals(PER_CYCLE + 9, part.get(19).intValue());
+    }
+
+    @Test
+    public void shouldStreamInParallel() {
+        final long n = CYCLES * PER_CYCLE;
+        assertEquals(n * (n - 1) / 2, queue.stream(0, Long.MAX_VALUE, w -> (long) w.read("value").int32())
+                .parallel()
+                .mapToLong(Long::longValue)
+                .sum());
+
+        final List<Integer> ordered = queue.stream(indices.get(1), indices.get(indices.size() - 2), w -> w.read("value").int32())
+                .parallel()
+                .collect(Collectors.toList());
+        assertEquals(n - 2, ordered.size());
+        for (int i = 0; i < ordered.size(); i++)
+            assertEquals(i + 1, ordered.get(i).intValue());
+    }
+
+    @Test
+    public void shouldSplitIntoPartsCoveringTheRange() {
+        final List<Spliterator<Integer>> parts = new ArrayList<>();
+        split(new QueueSpliterator<>(queue, w -> w.read("value").int32(), indices.get(0), Long.MAX_VALUE), parts);
+        assertTrue(parts.size() >= CYCLES * 2);
+
+        final List<Integer> values = new ArrayList<>();
+        for (Spliterator<Integer> part : parts)
+            part.forEachRemaining(values::add);
+        assertEquals(CYCLES * PER_CYCLE, values.size());
+        for (int i = 0; i < values.size(); i++)
+            assertEquals(i, values.get(i).intValue());
+    }
+
+    @Test
+    public void shouldStartFromTheNextCycleIfFromIndexIsPastTheEndOfItsCycle() {
+        final List<Integer> values = queue.stream(indices.get(PER_CYCLE - 1) + 1, indices.get(PER_CYCLE + 1), w -> w.read("value").int32())
+                .collect(Collectors.toList());
+        assertEquals(2, values.size());
+        assertEquals(PER_CYCLE, values.get(0).intValue());
+        assertEquals(PER_CYCLE + 1, values.get(1).intValue());
+    }
+
+    @Test
+    public void shouldStreamARangeStartingAndEndingInCyclesWithoutAFile() {
+        final RollCycle rollCycle = queue.rollCycle();
+        // the cycles after the first and third cycles are gaps
+        final long fromIndex = rollCycle.toIndex(rollCycle.toCycle(indices.get(0)) + 1, 0);
+        final long toIndex = rollCycle.toIndex(rollCycle.toCycle(indices.get(2 * PER_CYCLE)) + 1, 0);
+        final List<Integer> values = queue.stream(fromIndex, toIndex, w -> w.read("value").int32())
+                .collect(Collectors.toList());
+        assertEquals(2 * PER_CYCLE, values.size());
+        for (int i = 0; i < values.size(); i++)
+            assertEquals(PER_CYCLE + i, values.get(i).intValue());
+
+        final long sum = queue.stream(fromIndex, toIndex, w -> (long) w.read("value").int32())
+                .parallel()
+                .mapToLong(Long::longValue)
+                .sum();
+        assertEquals((3L * PER_CYCLE * (3 * PER_CYCLE - 1) - (long) PER_CYCLE * (PER_CYCLE - 1)) / 2, sum);
+    }
+
+    @Test
+    public void shouldReleaseTheTailerWhenClosedBeforeTheEnd() {
+        try (Stream<Integer> stream = queue.stream(indices.get(0), Long.MAX_VALUE, w -> w.read("value").int32())) {
+            assertEquals(0, stream.findFirst().get().intValue());
+        }
+
+        final QueueSpliterator<Integer> spliterator = new QueueSpliterator<>(queue, w -> w.read("value").int32(), indices.get(0), Long.MAX_VALUE);
+        final Spliterator<Integer> upper = spliterator.trySplit();
+        assertNotNull(upper);
+        assertTrue(spliterator.tryAdvance(v -> assertEquals(0, v.intValue())));
+        assertTrue(upper.tryAdvance(v -> assertTrue(v > 0)));
+        spliterator.close();
+        assertFalse(spliterator.tryAdvance(v -> fail()));
+    }
+
+    private static void split(Spliterator<Integer> spliterator, List<Spliterator<Integer>> parts) {
+        final Spliterator<Integer> upper = spliterator.trySplit();
+        if (upper == null) {
+            parts.add(spliterator);
+            return;
+        }
+        split(spliterator, parts);
+        split(upper, parts);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.SyncPolicy;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class QueueSyncerTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void perMessageShouldBeDurableOnReturn() {
+        final File dir = DirectoryUtils.tempDir("perMessageShouldBeDurableOnReturn");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .syncPolicy(SyncPolicy.PER_MESSAGE)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 5; i++) {
+                appender.writeText("hello " + i);
+                assertEquals(appender.lastIndexAppended(), queue.durableIndex());
+            }
+        }
+    }
+
+    @Test
+    public void shouldSyncEveryNMessages() {
+        final File dir = DirectoryUtils.tempDir("shouldSyncEveryNMessages");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .syncPolicy(SyncPolicy.everyMessages(10))
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 10; i++)
+                appender.writeText("hello " + i);
+            assertTrue(queue.awaitDurable(appender.lastIndexAppended(), 5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void shouldSyncAfterInterval() {
+        final File dir = DirectoryUtils.tempDir("shouldSyncAfterInterval");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .syncPolicy(SyncPolicy.everyMicros(1_000))
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("hello");
+            assertTrue(queue.awaitDurable(appender.lastIndexAppended(), 5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotWaitWithoutASyncPolicy() {
+        final File dir = DirectoryUtils.tempDir("shouldNotWaitWithoutASyncPolicy");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("hello");
+            assertEquals(Long.MIN_VALUE, queue.durableIndex());
+            queue.awaitDurable(appender.lastIndexAppended(), 1, TimeUnit.SECONDS);
+        }
+    }
+}
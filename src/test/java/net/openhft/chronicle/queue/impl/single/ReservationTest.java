@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.Reservation;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ReservationTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void shouldReadFromChannelIntoQueue() throws IOException {
+        final File dir = DirectoryUtils.tempDir("shouldReadFromChannelIntoQueue");
+        final Pipe pipe = Pipe.open();
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            final String[] packets = {"hello", "world", "a longer packet of data"};
+            for (String packet : packets) {
+                pipe.sink().write(ByteBuffer.wrap(packet.getBytes(StandardCharsets.ISO_8859_1)));
+                try (Reservation reservation = appender.reserve(256)) {
+                    assertEquals(packet.length(), reservation.read(pipe.source()));
+                    reservation.commit();
+                    assertFalse(reservation.isOpen());
+                }
+            }
+            final long lastIndex = appender.lastIndexAppended();
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < packets.length; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(lastIndex - packets.length + 1 + i, dc.index());
+                    final Bytes<?> bytes = dc.wire().bytes();
+                    assertEquals(packets[i], bytes.toString());
+                }
+            }
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    @Test
+    public void shouldWriteNothingWhenAborted() {
+        final File dir = DirectoryUtils.tempDir("shouldWriteNothingWhenAborted");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            try (Reservation reservation = appender.reserve(64)) {
+                final Bytes<?> bytes = reservation.bytes();
+                while (bytes.writeRemaining() > 0)
+                    bytes.writeByte((byte) -1);
+                // not committed, so aborted on close.
+            }
+            try (Reservation reservation = appender.reserve(64)) {
+                reservation.abort();
+            }
+            try (Reservation reservation = appender.reserve(64)) {
+                reservation.commit();
+            }
+            appender.writeText("after");
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals("after", tailer.readText());
+            assertNull(tailer.readText());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAllowNestedReservations() {
+        final File dir = DirectoryUtils.tempDir("shouldNotAllowNestedReservations");
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_DAILY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            try (Reservation ignored = appender.reserve(64)) {
+                appender.reserve(64);
+            }
+        }
+    }
+}
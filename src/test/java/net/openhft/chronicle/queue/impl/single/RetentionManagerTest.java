@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RetentionManagerTest extends ChronicleQueueTestBase {
+    private static final int CYCLES = 5;
+
+    @Test
+    public void removesTheOldestCycles() {
+        final File dir = DirectoryUtils.tempDir("RetentionManagerTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).timeIndexSpacing(1).build()) {
+            final List<Integer> cycles = writeCycles(queue, timeProvider);
+            final File firstFile = queue.fileForCycle(cycles.get(0));
+            assertTrue(TimeIndex.fileFor(firstFile).exists());
+
+            final RetentionManager retention = new RetentionManager(queue).maxCycles(2).checkIntervalMS(0);
+            assertTrue(retention.execute());
+            assertEquals(CYCLES - 2, retention.removedCycles());
+            assertTrue(retention.reclaimedBytes() > 0);
+            for (int i = 0; i < CYCLES - 2; i++) {
+                final File file = queue.fileForCycle(cycles.get(i));
+                assertFalse(file.exists());
+                assertFalse(TimeIndex.fileFor(file).exists());
+            }
+            assertEquals((int) cycles.get(CYCLES - 2), queue.firstCycle());
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = CYCLES - 2; i < CYCLES; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(i, dc.wire().read("value").int32());
+                }
+            }
+
+            // nothing more to do
+            assertFalse(retention.execute());
+        }
+    }
+
+    @Test
+    public void keepsCyclesInUseOrStillToBeRead() {
+        final File dir = DirectoryUtils.tempDir("RetentionManagerTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).build()) {
+            final List<Integer> cycles = writeCycles(queue, timeProvider);
+
+            // a named tailer which has read the second cycle, in a queue which has been closed
+            try (SingleChronicleQueue other = builder(dir, timeProvider).build()) {
+                final ExcerptTailer named = other.createTailer("reader");
+                for (int i = 0; i < 2; i++) {
+                    try (DocumentContext dc = named.readingDocument()) {
+                        assertEquals(i, dc.wire().read("value").int32());
+                    }
+                }
+            }
+
+            final RetentionManager retention = new RetentionManager(queue)
+                    .maxCycles(1)
+                    .protectTailers("reader")
+                    .checkIntervalMS(0);
+            assertTrue(retention.execute());
+            assertEquals(1, retention.removedCycles());
+            assertEquals(1, retention.keptCycles());
+            assertFalse(queue.fileForCycle(cycles.get(0)).exists());
+            assertTrue(queue.fileForCycle(cycles.get(1)).exists());
+
+            // a tailer of this queue holding the second cycle
+            final ExcerptTailer tailer = queue.createTailer();
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertEquals(1, dc.wire().read("value").int32());
+            }
+            final RetentionManager unprotected = new RetentionManager(queue).maxCycles(1).checkIntervalMS(0);
+            assertFalse(unprotected.execute());
+            assertEquals(1, unprotected.keptCycles());
+            assertTrue(queue.fileForCycle(cycles.get(1)).exists());
+        }
+    }
+
+    @Test
+    public void keepsCyclesForAProtectedTailerWhichHasNotRead() {
+        final File dir = DirectoryUtils.tempDir("RetentionManagerTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).build()) {
+            final List<Integer> cycles = writeCycles(queue, timeProvider);
+
+            final RetentionManager retention = new RetentionManager(queue)
+                    .maxCycles(1)
+                    .protectTailers("never-created")
+                    .checkIntervalMS(0);
+            assertFalse(retention.execute());
+            assertEquals(0, retention.removedCycles());
+            assertEquals(1, retention.keptCycles());
+            assertTrue(queue.fileForCycle(cycles.get(0)).exists());
+        }
+    }
+
+    private static List<Integer> writeCycles(SingleChronicleQueue queue, SetTimeProvider timeProvider) {
+        final ExcerptAppender appender = queue.acquireAppender();
+        final List<Integer> cycles = new ArrayList<>();
+        for (int i = 0; i < CYCLES; i++) {
+            if (i > 0)
+                timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 2_000);
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("value").int32(i);
+            }
+            cycles.add(queue.cycle());
+        }
+        return cycles;
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir, SetTimeProvider timeProvider) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider);
+    }
+}
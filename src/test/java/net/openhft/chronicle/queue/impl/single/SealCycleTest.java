@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class SealCycleTest extends ChronicleQueueTestBase {
+    private static final int FIRST = 1_000;
+    private static final int SECOND = 10;
+
+    @Test
+    public void rolledCycleIsSealed() {
+        final File dir = DirectoryUtils.tempDir("SealCycleTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).sealCycles(true).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            write(appender, 0, FIRST);
+            final int firstCycle = queue.cycle();
+            final long firstIndex = appender.lastIndexAppended() - FIRST + 1;
+            assertEquals(-1, sealedExcerpts(queue, firstCycle));
+
+            timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 2_000);
+            write(appender, FIRST, SECOND);
+            final long lastIndex = appender.lastIndexAppended();
+
+            assertEquals(FIRST, sealedExcerpts(queue, firstCycle));
+            assertEquals(-1, sealedExcerpts(queue, queue.cycle()));
+            assertEquals(FIRST, queue.exceptsPerCycle(firstCycle));
+            assertEquals(FIRST + SECOND, queue.countExcerpts(firstIndex, lastIndex));
+
+            // not truncated as it is rolled, other appenders could still have it mapped
+            assertTrue(sealedLength(queue, firstCycle) > 0);
+            assertFalse(queue.truncateSealedCycle(queue.cycle()));
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < FIRST + SECOND; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(i, dc.wire().read("value").int32());
+                }
+            }
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertFalse(dc.isPresent());
+            }
+        }
+
+        // sealed cycles can be read without the option
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).build()) {
+            assertEquals(FIRST, sealedExcerpts(queue, queue.firstCycle()));
+            final ExcerptTailer tailer = queue.createTailer();
+            assertTrue(tailer.moveToIndex(queue.rollCycle().toIndex(queue.firstCycle(), FIRST - 1)));
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertEquals(FIRST - 1, dc.wire().read("value").int32());
+            }
+        }
+    }
+
+    @Test
+    public void sealedCyclesAreTruncatedByRetention() {
+        final File dir = DirectoryUtils.tempDir("SealCycleTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).sealCycles(true).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            final int[] cycles = new int[3];
+            for (int i = 0; i < cycles.length; i++) {
+                if (i > 0)
+                    timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 2_000);
+                write(appender, i * SECOND, SECOND);
+                cycles[i] = queue.cycle();
+            }
+
+            final RetentionManager retention = new RetentionManager(queue)
+                    .truncateSealedCycles(true)
+                    .checkIntervalMS(0);
+            assertFalse(retention.execute());
+            assertEquals(0, retention.removedCycles());
+
+            // truncated to the chunk the EOF is in, and the overlap after it
+            final long sealedLength = sealedLength(queue, cycles[0]);
+            final File first = queue.fileForCycle(cycles[0]);
+            assertTrue(first.length() >= sealedLength);
+            assertTrue(first.length() < sealedLength + 2 * queue.blockSize());
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < cycles.length * SECOND; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(i, dc.wire().read("value").int32());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rolledCycleIsNotSealedByDefault() {
+        final File dir = DirectoryUtils.tempDir("SealCycleTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            write(appender, 0, FIRST);
+            final int firstCycle = queue.cycle();
+            timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 2_000);
+            write(appender, FIRST, SECOND);
+
+            assertEquals(-1, sealedExcerpts(queue, firstCycle));
+            assertEquals(FIRST, queue.exceptsPerCycle(firstCycle));
+        }
+    }
+
+    private static void write(ExcerptAppender appender, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("value").int32(i);
+            }
+        }
+    }
+
+    private static long sealedExcerpts(SingleChronicleQueue queue, int cycle) {
+        final WireStore store = queue.storeForCycle(cycle, queue.epoch(), false);
+        assertNotNull(store);
+        try {
+            return ((SingleChronicleQueueStore) store).sealedExcerpts();
+        } finally {
+            queue.release(store);
+        }
+    }
+
+    private static long sealedLength(SingleChronicleQueue queue, int cycle) {
+        final WireStore store = queue.storeForCycle(cycle, queue.epoch(), false);
+        assertNotNull(store);
+        try {
+            return ((SingleChronicleQueueStore) store).sealedLength();
+        } finally {
+            queue.release(store);
+        }
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir, SetTimeProvider timeProvider) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider);
+    }
+}
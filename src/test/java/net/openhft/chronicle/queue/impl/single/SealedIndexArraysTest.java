@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.values.LongArrayValues;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.WireType;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class SealedIndexArraysTest extends ChronicleQueueTestBase {
+    private static final int MESSAGES = 2_000;
+
+    @Test
+    public void addsAViewOnce() {
+        final SealedIndexArrays arrays = new SealedIndexArrays(64, 3);
+        final LongArrayValues first = WireType.BINARY.newLongArrayReference().get();
+        final LongArrayValues second = WireType.BINARY.newLongArrayReference().get();
+        assertNull(arrays.get(9));
+        assertSame(first, arrays.add(9, first));
+        assertSame(first, arrays.add(9, second));
+        assertSame(first, arrays.get(9));
+        assertNull(arrays.get(8));
+        assertNull(arrays.get(63));
+        assertSame(second, arrays.add(63, second));
+        assertSame(second, arrays.get(63));
+    }
+
+    @Test
+    public void shortLivedThreadsSeekIntoSharedArrays() throws InterruptedException {
+        final File dir = DirectoryUtils.tempDir("SealedIndexArraysTest");
+        final List<Long> indices = new ArrayList<>();
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.DAILY)
+                .indexCount(32)
+                .indexSpacing(2)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < MESSAGES; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(i);
+                }
+                indices.add(appender.lastIndexAppended());
+            }
+
+            // a new thread for each reader, as in a replay farm
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 32; t++) {
+                final Random random = new Random(t);
+                final Thread thread = new Thread(() -> {
+                    final ExcerptTailer tailer = queue.createTailer();
+                    for (int i = 0; i < 200; i++) {
+                        final int n = random.nextInt(MESSAGES);
+                        assertTrue(tailer.moveToIndex(indices.get(n)));
+                        try (DocumentContext dc = tailer.readingDocument()) {
+                            assertEquals(n, dc.wire().read("value").int32());
+                        }
+                    }
+                });
+                thread.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads)
+                thread.join();
+            assertNull(failure.get());
+        }
+    }
+}
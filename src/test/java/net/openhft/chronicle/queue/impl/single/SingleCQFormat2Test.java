@@ -148,7 +148,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477344\n" +
+                    "  encodedSequence: 38912\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -189,7 +189,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477144\n" +
+                    "  encodedSequence: 26112\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data #binary\n" +
@@ -232,7 +232,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 103079215732\n" +
+                    "  encodedSequence: 40193\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -277,7 +277,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 103079215728\n" +
+                    "  encodedSequence: 39937\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data #binary\n" +
@@ -324,7 +324,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477392\n" +
+                    "  encodedSequence: 41986\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -373,7 +373,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477388\n" +
+                    "  encodedSequence: 41730\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data #binary\n" +
@@ -453,7 +453,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477344\n" +
+                    "  encodedSequence: 38912\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -494,7 +494,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477144\n" +
+                    "  encodedSequence: 26112\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data #binary\n" +
@@ -551,7 +551,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719478111\n" +
+                    "  encodedSequence: 88019\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -680,7 +680,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719478016\n" +
+                    "  encodedSequence: 163859\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -793,7 +793,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477919\n" +
+                    "  encodedSequence: 302867\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -895,7 +895,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477919\n" +
+                    "  encodedSequence: 75731\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data #binary\n" +
@@ -992,7 +992,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477919\n" +
+                    "  encodedSequence: 151443\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data #binary\n" +
@@ -1089,7 +1089,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477919\n" +
+                    "  encodedSequence: 302867\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data #binary\n" +
@@ -1276,7 +1276,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 274877907612\n" +
+                    "  encodedSequence: 42753\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -1327,7 +1327,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 274877907412\n" +
+                    "  encodedSequence: 29953\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data #binary\n" +
@@ -1385,7 +1385,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 322122547863\n" +
+                    "  encodedSequence: 42433\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -1438,7 +1438,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 322122547663\n" +
+                    "  encodedSequence: 29633\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data #binary\n" +
@@ -1490,7 +1490,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 21474837088\n" +
+                    "  encodedSequence: 38912\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -1531,7 +1531,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 21474836888\n" +
+                    "  encodedSequence: 26112\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data\n" +
@@ -1561,7 +1561,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 25769804629\n" +
+                    "  encodedSequence: 54608\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -1678,7 +1678,7 @@ public class SingleCQFormat2Test {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 25769804334\n" +
+                    "  encodedSequence: 35728\n" +
                     "}\n" +
                     "# position: 408, header: 0\n" +
                     "--- !!data\n" +
@@ -509,7 +509,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706274\n" +
+                    "  encodedSequence: 39041\n" +
                     "}\n" +
                     "# position: 400, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -556,7 +556,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706274\n" +
+                    "  encodedSequence: 39041\n" +
                     "}\n" +
                     "# position: 400, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -603,7 +603,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706274\n" +
+                    "  encodedSequence: 39041\n" +
                     "}\n" +
                     "# position: 400, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -650,7 +650,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706274\n" +
+                    "  encodedSequence: 39041\n" +
                     "}\n" +
                     "# position: 400, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -697,7 +697,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706274\n" +
+                    "  encodedSequence: 39041\n" +
                     "}\n" +
                     "# position: 400, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -744,7 +744,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706274\n" +
+                    "  encodedSequence: 39041\n" +
                     "}\n" +
                     "# position: 400, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -791,7 +791,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706282\n" +
+                    "  encodedSequence: 39553\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -838,7 +838,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706282\n" +
+                    "  encodedSequence: 39553\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -885,7 +885,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706282\n" +
+                    "  encodedSequence: 39553\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -932,7 +932,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706282\n" +
+                    "  encodedSequence: 39553\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -979,7 +979,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706282\n" +
+                    "  encodedSequence: 39553\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -1026,7 +1026,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 38654706282\n" +
+                    "  encodedSequence: 39553\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -2277,7 +2277,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 68719477488\n" +
+                    "  encodedSequence: 385024\n" +
                     "}\n" +
                     "# position: 400, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -2327,7 +2327,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                         "    timeStamp: 0\n" +
                         "  },\n" +
                         "  deltaCheckpointInterval: 0,\n" +
-                        "  encodedSequence: 68719477496\n" +
+                        "  encodedSequence: 389120\n" +
                         "}\n" +
                         "# position: 408, header: -1\n" +
                         "--- !!meta-data #binary\n" +
@@ -2376,7 +2376,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                         "    timeStamp: 0\n" +
                         "  },\n" +
                         "  deltaCheckpointInterval: 0,\n" +
-                        "  encodedSequence: 68719477496\n" +
+                        "  encodedSequence: 389120\n" +
                         "}\n" +
                         "# position: 408, header: -1\n" +
                         "--- !!meta-data #binary\n" +
@@ -3023,7 +3023,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 34359739060\n" +
+                    "  encodedSequence: 44293\n" +
                     "}\n" +
                     "# position: 400, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -3095,7 +3095,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
                     "    timeStamp: 0\n" +
                     "  },\n" +
                     "  deltaCheckpointInterval: 0,\n" +
-                    "  encodedSequence: 34359739068\n" +
+                    "  encodedSequence: 44805\n" +
                     "}\n" +
                     "# position: 408, header: -1\n" +
                     "--- !!meta-data #binary\n" +
@@ -3728,6 +3728,7 @@ public class SingleChronicleQueueTest extends ChronicleQueueTestBase {
         }
 
         new File("directory-listing.cq4t").delete();
+        new File(CycleCatalogue.FILE).delete();
     }
 
     @NotNull
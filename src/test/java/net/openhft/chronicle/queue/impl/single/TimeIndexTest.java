@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimeIndexTest extends ChronicleQueueTestBase {
+    private static final int MESSAGES = 3_000;
+    private static final int SPACING = 8;
+    private static final long START_MS = 1_500_000_000_000L;
+    private static final long[] TIMES_MS = new long[MESSAGES];
+
+    static {
+        long time = START_MS;
+        for (int i = 0; i < MESSAGES; i++) {
+            // leave a few minutes without any cycle in the middle
+            time += i == MESSAGES / 2 ? 180_000 : 97;
+            TIMES_MS[i] = time;
+        }
+    }
+
+    @Test
+    public void movesToTheFirstExcerptAtOrAfterATime() {
+        final File dir = DirectoryUtils.tempDir("TimeIndexTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider();
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).timeIndexSpacing(SPACING).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < MESSAGES; i++) {
+                timeProvider.currentTimeMillis(TIMES_MS[i]);
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(i);
+                }
+            }
+        }
+
+        // the time index is read from the files, not the configuration of the reader
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).build()) {
+            final ExcerptTailer tailer = queue.createTailer();
+            final Random random = new Random(1);
+            for (int i = 0; i < 500; i++) {
+                final int expected = random.nextInt(MESSAGES);
+                final long time = TIMES_MS[expected] - random.nextInt(2);
+                assertTrue(tailer.moveToTime(time * 1_000_000L));
+                assertEquals(expected, readUpTo(tailer, time, SPACING));
+            }
+
+            assertTrue(tailer.moveToTime((START_MS - 60_000) * 1_000_000L));
+            assertEquals(0, readUpTo(tailer, START_MS, 0));
+
+            assertFalse(tailer.moveToTime((TIMES_MS[MESSAGES - 1] + 1) * 1_000_000L));
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertFalse(dc.isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void indexesTheTimesOfALazyAppender() {
+        final File dir = DirectoryUtils.tempDir("TimeIndexTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider();
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).timeIndexSpacing(SPACING).build()) {
+            final ExcerptAppender appender = queue.acquireAppender().lazyIndexing(true);
+            for (int i = 0; i < MESSAGES; i++) {
+                timeProvider.currentTimeMillis(TIMES_MS[i]);
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(i);
+                }
+            }
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final Random random = new Random(2);
+            for (int i = 0; i < 100; i++) {
+                final int expected = random.nextInt(MESSAGES);
+                final long time = TIMES_MS[expected];
+                assertTrue(tailer.moveToTime(time * 1_000_000L));
+                // no more than the spacing is skipped, as every entry was recorded
+                assertEquals(expected, readUpTo(tailer, time, SPACING));
+            }
+        }
+    }
+
+    @Test
+    public void withoutATimeIndexMovesToTheStartOfTheCycle() {
+        final File dir = DirectoryUtils.tempDir("TimeIndexTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider();
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < MESSAGES; i++) {
+                timeProvider.currentTimeMillis(TIMES_MS[i]);
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("value").int32(i);
+                }
+            }
+            assertFalse(TimeIndex.fileFor(queue.fileForCycle(queue.lastCycle())).exists());
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final int expected = MESSAGES - 10;
+            assertTrue(tailer.moveToTime(TIMES_MS[expected] * 1_000_000L));
+            assertEquals(expected, readUpTo(tailer, TIMES_MS[expected], MESSAGES));
+        }
+    }
+
+    /**
+     * @return the first value written at or after the time, checking fewer than maxSkipped
+     * excerpts were read before it.
+     */
+    private static int readUpTo(ExcerptTailer tailer, long timeMs, int maxSkipped) {
+        for (int skipped = 0; ; skipped++) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertTrue(dc.isPresent());
+                final int value = dc.wire().read("value").int32();
+                if (TIMES_MS[value] >= timeMs)
+                    return value;
+                assertTrue("skipped " + skipped, skipped < maxSkipped);
+            }
+        }
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir, SetTimeProvider timeProvider) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.MINUTELY)
+                .timeProvider(timeProvider);
+    }
+}
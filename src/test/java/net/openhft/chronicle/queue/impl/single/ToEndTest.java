@@ -28,7 +28,9 @@ import net.openhft.chronicle.queue.DirectoryUtils;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.ExcerptTailer;
 import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.TailerDirection;
 import net.openhft.chronicle.queue.impl.RollingChronicleQueue;
+import net.openhft.chronicle.queue.impl.WireStore;
 import net.openhft.chronicle.wire.DocumentContext;
 import org.jetbrains.annotations.NotNull;
 import org.junit.After;
@@ -261,6 +263,94 @@ public class ToEndTest {
         IOTools.shallowDeleteDirWithFiles(baseDir);
     }
 
+    @Test
+    public void toEndWithTwoAppendersAndLazyIndexing() {
+        File file = DirectoryUtils.tempDir("toEndWithTwoAppenders");
+
+        try (SingleChronicleQueue queue1 = SingleChronicleQueueBuilder.binary(file)
+                .testBlockSize()
+                .rollCycle(RollCycles.DAILY)
+                .build();
+             SingleChronicleQueue queue2 = SingleChronicleQueueBuilder.binary(file)
+                     .testBlockSize()
+                     .rollCycle(RollCycles.DAILY)
+                     .build()) {
+            ExcerptAppender appender1 = queue1.acquireAppender().lazyIndexing(true);
+            ExcerptAppender appender2 = queue2.acquireAppender().lazyIndexing(true);
+
+            long lastIndex = Long.MIN_VALUE;
+            for (int i = 0; i < 1000; i++) {
+                ExcerptAppender appender = i % 3 == 0 ? appender2 : appender1;
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write(() -> "msg").int32(i);
+                }
+                lastIndex = appender.lastIndexAppended();
+
+                if (i % 100 == 99) {
+                    // the lazy appenders have recorded the sequence number, so toEnd() needn't scan
+                    assertEquals(queue1.rollCycle().toSequenceNumber(lastIndex), recordedSequence(queue1));
+
+                    ExcerptTailer tailer = queue1.createTailer().toEnd();
+                    assertEquals(lastIndex + 1, tailer.index());
+                    assertFalse(tailer.readingDocument().isPresent());
+
+                    ExcerptTailer backward = queue2.createTailer()
+                            .direction(TailerDirection.BACKWARD).toEnd();
+                    assertEquals(lastIndex, backward.index());
+                    try (DocumentContext dc = backward.readingDocument()) {
+                        assertTrue(dc.isPresent());
+                        assertEquals(i, dc.wire().read(() -> "msg").int32());
+                    }
+                }
+            }
+            assertEquals(1000, queue2.entryCount());
+        }
+        IOTools.shallowDeleteDirWithFiles(file);
+    }
+
+    @Test
+    public void toEndWithHugeDailyBeyond64KB() {
+        File file = DirectoryUtils.tempDir("toEndWithHugeDailyBeyond64KB");
+
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(file)
+                .testBlockSize()
+                .rollCycle(RollCycles.HUGE_DAILY)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+
+            long lastIndex = Long.MIN_VALUE;
+            for (int i = 0; i < 10_000; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write(() -> "msg").int32(i);
+                }
+                lastIndex = appender.lastIndexAppended();
+            }
+            final WireStore store = queue.storeForCycle(queue.cycle(), queue.epoch(), false);
+            assertNotNull(store);
+            try {
+                // the position no longer fits in the bits above the sequence number of the index
+                assertTrue(store.writePosition() > 64 << 10);
+            } finally {
+                queue.release(store);
+            }
+            assertEquals(queue.rollCycle().toSequenceNumber(lastIndex), recordedSequence(queue));
+
+            ExcerptTailer tailer = queue.createTailer().toEnd();
+            assertEquals(lastIndex + 1, tailer.index());
+            assertFalse(tailer.readingDocument().isPresent());
+
+            ExcerptTailer backward = queue.createTailer()
+                    .direction(TailerDirection.BACKWARD).toEnd();
+            assertEquals(lastIndex, backward.index());
+            try (DocumentContext dc = backward.readingDocument()) {
+                assertTrue(dc.isPresent());
+                assertEquals(9_999, dc.wire().read(() -> "msg").int32());
+            }
+            assertEquals(10_000, queue.entryCount());
+        }
+        IOTools.shallowDeleteDirWithFiles(file);
+    }
+
     @Test
     public void toEndAfterWriteTest() {
         File file = DirectoryUtils.tempDir("toEndAfterWriteTest");
@@ -323,6 +413,16 @@ public class ToEndTest {
             fail("Too many files " + Arrays.toString(files));
     }
 
+    private static long recordedSequence(@NotNull SingleChronicleQueue queue) {
+        final WireStore store = queue.storeForCycle(queue.cycle(), queue.epoch(), false);
+        assertNotNull(store);
+        try {
+            return store.sequenceForWritePosition(store.writePosition());
+        } finally {
+            queue.release(store);
+        }
+    }
+
     @NotNull
     private List<Integer> fillResults(@NotNull ExcerptTailer tailer, @NotNull List<Integer> results) {
         for (int i = 0; i < 10; i++) {
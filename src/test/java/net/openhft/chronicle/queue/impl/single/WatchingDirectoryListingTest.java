@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ChronicleQueueTestBase;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class WatchingDirectoryListingTest extends ChronicleQueueTestBase {
+
+    @Test
+    public void readOnlyTailerFindsNewCycles() {
+        assumeTrue(DirectoryWatcher.isAvailable());
+        final File dir = DirectoryUtils.tempDir("WatchingDirectoryListingTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            write(appender, 0);
+
+            try (SingleChronicleQueue readOnly = builder(dir, timeProvider).readOnly(true).build()) {
+                final ExcerptTailer tailer = readOnly.createTailer();
+                assertEquals(0, read(tailer));
+
+                for (int i = 1; i < 4; i++) {
+                    // leave a gap between the cycles
+                    timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 2_000);
+                    write(appender, i);
+                    awaitLastCycle(readOnly, queue.cycle());
+                    assertEquals(i, read(tailer));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void deletedCyclesAreRemoved() {
+        assumeTrue(DirectoryWatcher.isAvailable());
+        final File dir = DirectoryUtils.tempDir("WatchingDirectoryListingTest");
+        final SetTimeProvider timeProvider = new SetTimeProvider(System.currentTimeMillis());
+        try (SingleChronicleQueue queue = builder(dir, timeProvider).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            write(appender, 0);
+            final int firstCycle = queue.cycle();
+            timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 2_000);
+            write(appender, 1);
+
+            try (SingleChronicleQueue readOnly = builder(dir, timeProvider).readOnly(true).build()) {
+                assertEquals(firstCycle, readOnly.firstCycle());
+                assertTrue(queue.fileForCycle(firstCycle).delete());
+                final long timeout = System.currentTimeMillis() + 5_000;
+                while (readOnly.firstCycle() == firstCycle) {
+                    assertTrue(System.currentTimeMillis() < timeout);
+                    Jvm.pause(1);
+                }
+                assertEquals(queue.cycle(), readOnly.firstCycle());
+            }
+        }
+    }
+
+    private static void awaitLastCycle(SingleChronicleQueue queue, int cycle) {
+        final long timeout = System.currentTimeMillis() + 5_000;
+        while (queue.lastCycle() < cycle) {
+            assertTrue(System.currentTimeMillis() < timeout);
+            Jvm.pause(1);
+        }
+    }
+
+    private static void write(ExcerptAppender appender, int value) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            dc.wire().write("value").int32(value);
+        }
+    }
+
+    private static int read(ExcerptTailer tailer) {
+        final long timeout = System.currentTimeMillis() + 5_000;
+        while (true) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (dc.isPresent())
+                    return dc.wire().read("value").int32();
+            }
+            assertTrue(System.currentTimeMillis() < timeout);
+        }
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir, SetTimeProvider timeProvider) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider);
+    }
+}